@@ -0,0 +1,26 @@
+package com.playmate.config;
+
+import com.playmate.websocket.CommentStreamHandler;
+import com.playmate.websocket.PresenceHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final CommentStreamHandler commentStreamHandler;
+    private final PresenceHandler presenceHandler;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(commentStreamHandler, "/ws/comments")
+                .setAllowedOriginPatterns("*");
+        registry.addHandler(presenceHandler, "/ws/presence")
+                .setAllowedOriginPatterns("*");
+    }
+}
@@ -0,0 +1,25 @@
+package com.playmate.controller;
+
+import com.playmate.dto.ApiResponse;
+import com.playmate.job.PlayerRankingScoreJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/jobs")
+@RequiredArgsConstructor
+public class AdminJobController {
+
+    private final PlayerRankingScoreJob playerRankingScoreJob;
+
+    /**
+     * 陪玩排序分任务的进度与吞吐
+     */
+    @GetMapping("/player-score")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPlayerScoreMetrics() {
+        return ResponseEntity.ok(ApiResponse.success(playerRankingScoreJob.metrics()));
+    }
+}
@@ -23,10 +23,11 @@ public class CommentController {
     public ResponseEntity<ApiResponse<Page<CommentResponse>>> getCommentsByPostId(
             @PathVariable String postId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.ASC, "createTime"));
-        Page<CommentResponse> comments = commentService.getCommentsByPostId(postId, pageable);
+        Page<CommentResponse> comments = commentService.getCommentsByPostId(postId, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(comments));
     }
     
@@ -34,10 +35,11 @@ public class CommentController {
     public ResponseEntity<ApiResponse<Page<CommentResponse>>> getCommentsByUserId(
             @PathVariable String userId,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<CommentResponse> comments = commentService.getUserComments(userId, null, pageable);
+        Page<CommentResponse> comments = commentService.getUserComments(userId, null, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(comments));
     }
     
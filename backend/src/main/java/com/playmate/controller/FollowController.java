@@ -1,6 +1,7 @@
 package com.playmate.controller;
 
 import com.playmate.dto.ApiResponse;
+import com.playmate.dto.FollowRecommendationResponse;
 import com.playmate.dto.FollowRequest;
 import com.playmate.dto.FollowResponse;
 import com.playmate.dto.UserStatsResponse;
@@ -13,6 +14,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/follows")
 @RequiredArgsConstructor
@@ -86,4 +89,36 @@ public class FollowController {
         Page<FollowResponse> mutualFollowers = followService.getMutualFollowers(currentUserId, userId, pageable);
         return ResponseEntity.ok(ApiResponse.success(mutualFollowers));
     }
-}
\ No newline at end of file
+    
+    @GetMapping("/common-followers/{userId}")
+    public ResponseEntity<ApiResponse<List<Long>>> getCommonFollowers(
+            @RequestHeader("X-User-Id") Long currentUserId,
+            @PathVariable Long userId) {
+        
+        List<Long> commonFollowers = followService.getCommonFollowerIds(currentUserId, userId);
+        return ResponseEntity.ok(ApiResponse.success(commonFollowers));
+    }
+    
+    @GetMapping("/friends/{userId}")
+    public ResponseEntity<ApiResponse<List<Long>>> getFriends(@PathVariable Long userId) {
+        List<Long> friends = followService.getFriendIds(userId);
+        return ResponseEntity.ok(ApiResponse.success(friends));
+    }
+    
+    @GetMapping("/follow-back-candidates")
+    public ResponseEntity<ApiResponse<List<Long>>> getFollowBackCandidates(
+            @RequestHeader("X-User-Id") Long userId) {
+        
+        List<Long> candidates = followService.getFollowBackCandidateIds(userId);
+        return ResponseEntity.ok(ApiResponse.success(candidates));
+    }
+    
+    @GetMapping("/recommendations")
+    public ResponseEntity<ApiResponse<List<FollowRecommendationResponse>>> getRecommendations(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        List<FollowRecommendationResponse> recommendations = followService.getRecommendations(userId, limit);
+        return ResponseEntity.ok(ApiResponse.success(recommendations));
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -35,9 +36,29 @@ public class HomeController {
      */
     @GetMapping("/recommended-players")
     public ResponseEntity<ApiResponse<List<Object>>> getRecommendedPlayers(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         try {
-            List<Object> players = homeService.getRecommendedPlayers(limit);
+            List<Object> players = homeService.getRecommendedPlayers(limit, viewerId);
+            return ResponseEntity.ok(ApiResponse.success(players));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+
+    /**
+     * 获取陪玩排行榜
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<ApiResponse<List<Object>>> getLeaderboard(
+            @RequestParam(defaultValue = "overall") String type,
+            @RequestParam(required = false) String game,
+            @RequestParam(required = false) BigDecimal price,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
+        try {
+            List<Object> players = homeService.getLeaderboard(type, game, price, limit, viewerId);
             return ResponseEntity.ok(ApiResponse.success(players));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
@@ -50,9 +71,10 @@ public class HomeController {
      */
     @GetMapping("/hot-posts")
     public ResponseEntity<ApiResponse<List<Object>>> getHotPosts(
-            @RequestParam(defaultValue = "10") int limit) {
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         try {
-            List<Object> posts = homeService.getHotPosts(limit);
+            List<Object> posts = homeService.getHotPosts(limit, viewerId);
             return ResponseEntity.ok(ApiResponse.success(posts));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
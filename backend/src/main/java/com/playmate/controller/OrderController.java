@@ -2,6 +2,7 @@ package com.playmate.controller;
 
 import com.playmate.dto.ApiResponse;
 import com.playmate.dto.CreateOrderRequest;
+import com.playmate.dto.OrderPageResponse;
 import com.playmate.dto.OrderResponse;
 import com.playmate.service.OrderService;
 import lombok.RequiredArgsConstructor;
@@ -10,6 +11,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -31,23 +33,55 @@ public class OrderController {
         }
     }
     
+    /**
+     * 用户订单历史，status 为空或 all 时不筛选，下一页游标通过 X-Next-Cursor 响应头返回
+     */
     @GetMapping("/user")
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        try {
+            Long userId = Long.valueOf(authentication.getName());
+            return pageResponse(orderService.getUserOrders(userId, status, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/user/counts")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getUserOrderCounts(Authentication authentication) {
         try {
             Long userId = Long.valueOf(authentication.getName());
-            List<OrderResponse> orders = orderService.getUserOrders(userId);
-            return ResponseEntity.ok(ApiResponse.success("获取订单列表成功", orders));
+            return ResponseEntity.ok(ApiResponse.success("获取订单数量成功", orderService.getUserOrderCounts(userId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
     
+    /**
+     * 陪玩接到的订单，参数同 /user
+     */
     @GetMapping("/player")
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getPlayerOrders(Authentication authentication) {
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getPlayerOrders(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            Authentication authentication) {
+        try {
+            Long playerId = Long.valueOf(authentication.getName());
+            return pageResponse(orderService.getPlayerOrders(playerId, status, cursor, size));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
+    @GetMapping("/player/counts")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getPlayerOrderCounts(Authentication authentication) {
         try {
             Long playerId = Long.valueOf(authentication.getName());
-            List<OrderResponse> orders = orderService.getPlayerOrders(playerId);
-            return ResponseEntity.ok(ApiResponse.success("获取订单列表成功", orders));
+            return ResponseEntity.ok(ApiResponse.success("获取订单数量成功", orderService.getPlayerOrderCounts(playerId)));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
@@ -76,6 +110,19 @@ public class OrderController {
         }
     }
     
+    @PostMapping("/{orderId}/decline")
+    public ResponseEntity<ApiResponse<Void>> declineOrder(
+            @PathVariable String orderId,
+            Authentication authentication) {
+        try {
+            Long playerId = Long.valueOf(authentication.getName());
+            orderService.declineOrder(orderId, playerId);
+            return ResponseEntity.ok(ApiResponse.success("已拒绝派单", null));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
+    }
+    
     @PostMapping("/{orderId}/start")
     public ResponseEntity<ApiResponse<OrderResponse>> startOrder(
             @PathVariable String orderId,
@@ -130,4 +177,12 @@ public class OrderController {
             return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    private ResponseEntity<ApiResponse<List<OrderResponse>>> pageResponse(OrderPageResponse page) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (page.getNextCursor() != null) {
+            builder.header("X-Next-Cursor", page.getNextCursor());
+        }
+        return builder.body(ApiResponse.success("获取订单列表成功", page.getItems()));
+    }
+}
@@ -0,0 +1,79 @@
+package com.playmate.controller;
+
+import com.playmate.dto.ApiResponse;
+import com.playmate.dto.PlayerCard;
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+import com.playmate.search.PlayerSearchQuery;
+import com.playmate.search.PlayerSort;
+import com.playmate.service.PlayerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/players")
+@RequiredArgsConstructor
+public class PlayerController {
+    
+    private final PlayerService playerService;
+    
+    @GetMapping
+    public ResponseEntity<ApiResponse<Page<PlayerCard>>> getPlayers(
+            @RequestParam(required = false) String game,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "rating") String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
+        
+        Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
+        String sortProperty = switch (sort) {
+            case "price" -> "servicePrice";
+            case "orders" -> "totalOrders";
+            default -> "rating";
+        };
+        PageRequest pageable = PageRequest.of(page, size, Sort.by(sortDirection, sortProperty).and(Sort.by("id")));
+        Page<PlayerCard> players = playerService.listPlayers(game, minPrice, maxPrice, minRating, viewerId, pageable);
+        return ResponseEntity.ok(ApiResponse.success(players));
+    }
+    
+    /**
+     * 陪玩搜索：组合筛选、排序、分面统计，使用 nextCursor 翻页
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<PlayerSearchResponse>> searchPlayers(
+            @RequestParam(required = false) String game,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) BigDecimal minRating,
+            @RequestParam(required = false) User.Gender gender,
+            @RequestParam(required = false) Player.CertificationStatus certificationStatus,
+            @RequestParam(defaultValue = "false") boolean onlineOnly,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime availableFrom,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime availableTo,
+            @RequestParam(defaultValue = "RATING") PlayerSort sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
+        try {
+            PlayerSearchQuery query = new PlayerSearchQuery(game, minPrice, maxPrice, minRating,
+                    gender, certificationStatus, onlineOnly, availableFrom, availableTo, sort, cursor, size);
+            return ResponseEntity.ok(ApiResponse.success(playerService.searchPlayers(query, viewerId)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        }
+    }
+}
@@ -32,12 +32,13 @@ public class PostController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createTime") String sort,
-            @RequestParam(defaultValue = "desc") String direction) {
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Sort.Direction sortDirection = direction.equalsIgnoreCase("asc") ? Sort.Direction.ASC : Sort.Direction.DESC;
         Pageable pageable = PageRequest.of(page, size, Sort.by(sortDirection, sort));
         
-        Page<PostResponse> posts = postService.getPosts(status, pageable);
+        Page<PostResponse> posts = postService.getPosts(status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
@@ -46,10 +47,11 @@ public class PostController {
             @PathVariable String userId,
             @RequestParam(defaultValue = "PUBLISHED") PostStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<PostResponse> posts = postService.getUserPosts(userId, status, pageable);
+        Page<PostResponse> posts = postService.getUserPosts(userId, status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
@@ -58,10 +60,11 @@ public class PostController {
             @PathVariable PostType type,
             @RequestParam(defaultValue = "PUBLISHED") PostStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<PostResponse> posts = postService.getPostsByType(type, status, pageable);
+        Page<PostResponse> posts = postService.getPostsByType(type, status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
@@ -70,10 +73,11 @@ public class PostController {
             @PathVariable String gameName,
             @RequestParam(defaultValue = "PUBLISHED") PostStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<PostResponse> posts = postService.getPostsByGame(gameName, status, pageable);
+        Page<PostResponse> posts = postService.getPostsByGame(gameName, status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
@@ -82,10 +86,11 @@ public class PostController {
             @RequestParam String keyword,
             @RequestParam(defaultValue = "PUBLISHED") PostStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<PostResponse> posts = postService.searchPosts(keyword, status, pageable);
+        Page<PostResponse> posts = postService.searchPosts(keyword, status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
@@ -94,10 +99,11 @@ public class PostController {
             @RequestParam List<String> userIds,
             @RequestParam(defaultValue = "PUBLISHED") PostStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestHeader(value = "X-User-Id", required = false) Long viewerId) {
         
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createTime"));
-        Page<PostResponse> posts = postService.getPostsByUserIds(userIds, status, pageable);
+        Page<PostResponse> posts = postService.getPostsByUserIds(userIds, status, viewerId, pageable);
         return ResponseEntity.ok(ApiResponse.success(posts));
     }
     
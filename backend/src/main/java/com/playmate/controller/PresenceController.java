@@ -0,0 +1,50 @@
+package com.playmate.controller;
+
+import com.playmate.dto.ApiResponse;
+import com.playmate.entity.SkillTags;
+import com.playmate.presence.PresenceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/presence")
+@RequiredArgsConstructor
+public class PresenceController {
+    
+    private static final int MAX_BATCH = 500;
+    
+    private final PresenceService presenceService;
+    
+    /**
+     * 批量查询：返回给定用户中当前在线的ID
+     */
+    @GetMapping("/online")
+    public ResponseEntity<ApiResponse<List<Long>>> getOnlineUsers(@RequestParam List<Long> userIds) {
+        if (userIds.size() > MAX_BATCH) {
+            return ResponseEntity.badRequest().body(ApiResponse.error("单次最多查询" + MAX_BATCH + "个用户"));
+        }
+        return ResponseEntity.ok(ApiResponse.success(presenceService.onlineAmong(userIds)));
+    }
+    
+    /**
+     * 在线人数，指定 game 时返回该游戏的在线陪玩数，否则附带各游戏在线数
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getStats(@RequestParam(required = false) String game) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("online", presenceService.onlineCount());
+        String normalized = SkillTags.normalize(game);
+        if (normalized != null) {
+            stats.put("game", normalized);
+            stats.put("gameOnline", presenceService.onlineCount(normalized));
+        } else {
+            stats.put("games", presenceService.onlineCountsByGame());
+        }
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+}
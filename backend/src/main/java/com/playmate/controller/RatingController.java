@@ -1,6 +1,7 @@
 package com.playmate.controller;
 
 import com.playmate.dto.ApiResponse;
+import com.playmate.dto.RatingPageResponse;
 import com.playmate.dto.RatingRequest;
 import com.playmate.dto.RatingResponse;
 import com.playmate.service.RatingService;
@@ -34,16 +35,21 @@ public class RatingController {
     }
 
     /**
-     * 获取用户的所有评价
+     * 获取用户的所有评价，下一页游标通过 X-Next-Cursor 响应头返回
      */
     @GetMapping("/user/{userId}")
     public ResponseEntity<ApiResponse<List<RatingResponse>>> getUserRatings(
             @PathVariable String userId,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            List<RatingResponse> response = ratingService.getUserRatings(userId, page, size);
-            return ResponseEntity.ok(ApiResponse.success(response));
+            RatingPageResponse response = ratingService.getUserRatings(userId, cursor, page, size);
+            ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+            if (response.getNextCursor() != null) {
+                builder.header("X-Next-Cursor", response.getNextCursor());
+            }
+            return builder.body(ApiResponse.success(response.getItems()));
         } catch (Exception e) {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
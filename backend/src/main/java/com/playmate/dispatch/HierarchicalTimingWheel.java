@@ -0,0 +1,133 @@
+package com.playmate.dispatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分层时间轮，4 层各 64 格，1 秒一格时可覆盖约 194 天，超出范围的定时器停在顶层，每次级联时重新定位。
+ * 低层转满一圈时把上一层当前格的定时器下放到更精确的位置，插入、取消、到期都是 O(1) 摊还，
+ * 开销只与挂着的定时器数量有关。每个 key 同时只保留一个定时器，重复设置会替换旧的。
+ * 非线程安全，由调用方加锁
+ */
+final class HierarchicalTimingWheel<T> {
+
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMs;
+    private final List<List<Timer<T>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    private final Map<String, Timer<T>> timers = new HashMap<>();
+    /** 下一个待处理的刻度 */
+    private long currentTick;
+
+    HierarchicalTimingWheel(long tickMs, long startMillis) {
+        this.tickMs = tickMs;
+        this.currentTick = startMillis / tickMs;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    int size() {
+        return timers.size();
+    }
+
+    void schedule(String key, long deadlineMillis, T payload) {
+        cancel(key);
+        Timer<T> timer = new Timer<>(key, Math.max(deadlineMillis / tickMs, currentTick), payload);
+        timers.put(key, timer);
+        place(timer);
+    }
+
+    /**
+     * 取消只做标记，格子里的残留在转到时丢弃
+     */
+    void cancel(String key) {
+        Timer<T> timer = timers.remove(key);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+
+    /**
+     * 推进到 nowMillis，返回期间到期的定时器负载
+     */
+    List<T> advance(long nowMillis) {
+        long target = nowMillis / tickMs;
+        List<T> expired = new ArrayList<>();
+        while (currentTick <= target) {
+            for (int level = 1; level < LEVELS; level++) {
+                if ((currentTick & ((1L << (BITS * level)) - 1)) != 0) {
+                    break;
+                }
+                cascade(level, (int) ((currentTick >>> (BITS * level)) & MASK));
+            }
+            List<Timer<T>> bucket = slot(0, (int) (currentTick & MASK));
+            if (!bucket.isEmpty()) {
+                List<Timer<T>> due = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Timer<T> timer : due) {
+                    if (timer.cancelled) {
+                        continue;
+                    }
+                    if (timer.deadline <= currentTick) {
+                        timers.remove(timer.key);
+                        expired.add(timer.payload);
+                    } else {
+                        place(timer);
+                    }
+                }
+            }
+            currentTick++;
+        }
+        return expired;
+    }
+
+    private void cascade(int level, int index) {
+        List<Timer<T>> bucket = slot(level, index);
+        if (bucket.isEmpty()) {
+            return;
+        }
+        List<Timer<T>> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Timer<T> timer : moving) {
+            if (!timer.cancelled) {
+                place(timer);
+            }
+        }
+    }
+
+    private void place(Timer<T> timer) {
+        long delta = timer.deadline - currentTick;
+        for (int level = 0; level < LEVELS; level++) {
+            if (delta < (1L << (BITS * (level + 1)))) {
+                slot(level, (int) ((timer.deadline >>> (BITS * level)) & MASK)).add(timer);
+                return;
+            }
+        }
+        // 超出总跨度：放在顶层最后一格，级联到达时重新定位
+        int top = LEVELS - 1;
+        slot(top, (int) (((currentTick >>> (BITS * top)) - 1) & MASK)).add(timer);
+    }
+
+    private List<Timer<T>> slot(int level, int index) {
+        return slots.get(level * SLOTS + index);
+    }
+
+    private static final class Timer<T> {
+        final String key;
+        final long deadline;
+        final T payload;
+        boolean cancelled;
+
+        Timer(String key, long deadline, T payload) {
+            this.key = key;
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,472 @@
+package com.playmate.dispatch;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderStatus;
+import com.playmate.entity.SkillTags;
+import com.playmate.graph.BlockListStore;
+import com.playmate.repository.OrderRepository;
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.search.PlayerSearchQuery;
+import com.playmate.search.PlayerSort;
+import com.playmate.websocket.UserSessionRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 实时派单引擎
+ * 未指定陪玩的订单按 (游戏, 服务类型) 进入内存优先队列，先下单先派；
+ * 每个调度周期对每个非空队列做一次在线陪玩检索，按排序分从高到低贪心匹配，
+ * 每位陪玩同一时间最多持有一个邀约。邀约经 WebSocket 推送，超时或拒绝后排除该陪玩重新入队。
+ * 订单的 offeredTo 字段记录当前受邀陪玩，接单的条件更新据此判断，过期邀约无法再接
+ */
+@Component
+public class OrderDispatchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderDispatchEngine.class);
+
+    private static final int DEFAULT_DURATION_MINUTES = 60;
+
+    private static final Comparator<PendingOrder> PRIORITY = Comparator
+            .comparingLong((PendingOrder order) -> order.createTime)
+            .thenComparingLong(order -> order.sequence);
+
+    private final PlayerSearchEngine playerSearchEngine;
+    private final BlockListStore blockListStore;
+    private final UserSessionRegistry userSessionRegistry;
+    private final OrderRepository orderRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${playmate.dispatch.offer-timeout-ms:30000}")
+    private long offerTimeoutMs;
+
+    @Value("${playmate.dispatch.candidates-per-queue:50}")
+    private int candidatesPerQueue;
+
+    @Value("${playmate.dispatch.max-attempts:10}")
+    private int maxAttempts;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    /** (游戏, 服务类型) -> 等待派单的订单 */
+    private final Map<QueueKey, PriorityQueue<PendingOrder>> queues = new HashMap<>();
+    /** orderId -> 排队中或邀约中的订单 */
+    private final Map<String, PendingOrder> orders = new HashMap<>();
+    /** 邀约按过期时间排序，出队时与订单当前邀约核对，已失效的条目直接丢弃 */
+    private final PriorityQueue<OfferTimeout> offerTimeouts =
+            new PriorityQueue<>(Comparator.comparingLong(OfferTimeout::expireAt));
+    /** 陪玩用户ID -> 其手上的邀约订单 */
+    private final Map<Long, String> offersByPlayer = new HashMap<>();
+    /** 已接单尚未结束的订单 -> 陪玩，重复通知同一订单不会重复计数 */
+    private final Map<String, Long> activeOrders = new HashMap<>();
+    /** 陪玩 -> 进行中的订单数，归零才不再视为忙碌 */
+    private final Map<Long, Integer> busyPlayers = new HashMap<>();
+    private long sequence;
+
+    public OrderDispatchEngine(PlayerSearchEngine playerSearchEngine,
+                               BlockListStore blockListStore,
+                               UserSessionRegistry userSessionRegistry,
+                               OrderRepository orderRepository,
+                               MongoTemplate mongoTemplate,
+                               ObjectMapper objectMapper) {
+        this.playerSearchEngine = playerSearchEngine;
+        this.blockListStore = blockListStore;
+        this.userSessionRegistry = userSessionRegistry;
+        this.orderRepository = orderRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<Order> pending = orderRepository.findByStatusAndPlayerIdIsNull(OrderStatus.PENDING.code());
+            List<Order> active = orderRepository.findPlayerIdsByStatusIn(
+                    List.of(OrderStatus.ACCEPTED.code(), OrderStatus.IN_PROGRESS.code()));
+            lock.lock();
+            try {
+                for (Order order : active) {
+                    Long playerId = BlockListStore.parseUserId(order.getPlayerId());
+                    if (playerId != null) {
+                        markActive(order.getId(), playerId);
+                    }
+                }
+                pending.forEach(this::enqueue);
+            } finally {
+                lock.unlock();
+            }
+            log.info("派单队列加载完成，待派订单: {}，服务中陪玩: {}", pending.size(), busyPlayers.size());
+        } catch (RuntimeException e) {
+            log.error("派单队列加载失败", e);
+        }
+    }
+
+    /**
+     * 新订单：指定了陪玩的直接通知该陪玩，否则进入派单队列，下一个调度周期匹配
+     */
+    public void submit(Order order) {
+        if (order.getPlayerId() != null) {
+            Long playerId = BlockListStore.parseUserId(order.getPlayerId());
+            if (playerId != null) {
+                push(playerId, event("order_assigned", order.getId(), order));
+            }
+            return;
+        }
+        lock.lock();
+        try {
+            enqueue(order);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 接单成功，订单离开派单流程，陪玩转为服务中
+     */
+    public void onAccepted(String orderId, long playerId) {
+        lock.lock();
+        try {
+            PendingOrder pending = orders.remove(orderId);
+            if (pending != null) {
+                dequeue(pending);
+            }
+            markActive(orderId, playerId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 订单完成或取消，释放陪玩
+     */
+    public void onClosed(String orderId) {
+        lock.lock();
+        try {
+            PendingOrder pending = orders.remove(orderId);
+            if (pending != null) {
+                dequeue(pending);
+            }
+            // 按订单释放：取消从未接单的订单不影响陪玩的其他进行中订单
+            Long activePlayer = activeOrders.remove(orderId);
+            if (activePlayer != null) {
+                busyPlayers.computeIfPresent(activePlayer, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void markActive(String orderId, long playerId) {
+        if (activeOrders.put(orderId, playerId) == null) {
+            busyPlayers.merge(playerId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * 陪玩拒绝邀约，排除该陪玩后重新入队
+     */
+    public boolean decline(String orderId, long playerId) {
+        lock.lock();
+        try {
+            PendingOrder pending = orders.get(orderId);
+            if (pending == null || pending.offeredTo == null || pending.offeredTo != playerId) {
+                return false;
+            }
+            revoke(pending);
+        } finally {
+            lock.unlock();
+        }
+        clearOfferedTo(orderId, playerId);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.dispatch.tick-ms:200}")
+    public void tick() {
+        expireOffers();
+        dispatch();
+    }
+
+    private void expireOffers() {
+        long now = System.currentTimeMillis();
+        List<OfferTimeout> expired = new ArrayList<>();
+        lock.lock();
+        try {
+            while (!offerTimeouts.isEmpty() && offerTimeouts.peek().expireAt() <= now) {
+                OfferTimeout timeout = offerTimeouts.poll();
+                PendingOrder pending = orders.get(timeout.orderId());
+                if (pending == null || pending.offeredTo == null
+                        || pending.offeredTo != timeout.playerId() || pending.offerExpireAt != timeout.expireAt()) {
+                    continue;
+                }
+                revoke(pending);
+                expired.add(timeout);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (OfferTimeout timeout : expired) {
+            clearOfferedTo(timeout.orderId(), timeout.playerId());
+            push(timeout.playerId(), Map.of("type", "order_offer_expired", "orderId", timeout.orderId()));
+        }
+    }
+
+    private void dispatch() {
+        if (!playerSearchEngine.isReady()) {
+            return;
+        }
+        List<PendingOrder> offered = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Iterator<Map.Entry<QueueKey, PriorityQueue<PendingOrder>>> iterator = queues.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<QueueKey, PriorityQueue<PendingOrder>> entry = iterator.next();
+                if (entry.getValue().isEmpty()) {
+                    iterator.remove();
+                    continue;
+                }
+                matchQueue(entry.getKey(), entry.getValue(), now, offered);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        for (PendingOrder pending : offered) {
+            deliverOffer(pending);
+        }
+    }
+
+    /**
+     * 一个队列一次检索：候选按排序分降序，订单按优先级依次取第一个可用的候选
+     */
+    private void matchQueue(QueueKey key, PriorityQueue<PendingOrder> queue, long now, List<PendingOrder> offered) {
+        List<PlayerDoc> candidates = candidates(key.game());
+        if (candidates.isEmpty()) {
+            return;
+        }
+        Set<Long> taken = new HashSet<>();
+        List<PendingOrder> unmatched = new ArrayList<>();
+        while (!queue.isEmpty() && taken.size() < candidates.size()) {
+            PendingOrder pending = queue.poll();
+            PlayerDoc match = null;
+            for (PlayerDoc candidate : candidates) {
+                if (!taken.contains(candidate.userId()) && eligible(pending, candidate)) {
+                    match = candidate;
+                    break;
+                }
+            }
+            if (match == null) {
+                unmatched.add(pending);
+                continue;
+            }
+            taken.add(match.userId());
+            pending.offeredTo = match.userId();
+            pending.offerExpireAt = now + offerTimeoutMs;
+            pending.attempts++;
+            offersByPlayer.put(match.userId(), pending.orderId);
+            offerTimeouts.add(new OfferTimeout(pending.orderId, match.userId(), pending.offerExpireAt));
+            offered.add(pending);
+        }
+        queue.addAll(unmatched);
+    }
+
+    private List<PlayerDoc> candidates(String game) {
+        // 检索结果多取忙碌陪玩的数量，尽量保证过滤后仍有足够候选
+        int size = candidatesPerQueue + Math.min(offersByPlayer.size() + busyPlayers.size(), candidatesPerQueue);
+        PlayerSearchResponse response = playerSearchEngine.search(new PlayerSearchQuery(
+                game, null, null, null, null, null, true, LocalDateTime.now(), null, PlayerSort.RATING, null, size));
+        List<PlayerDoc> candidates = new ArrayList<>(response.getItems().size());
+        for (PlayerSearchResponse.Item item : response.getItems()) {
+            long userId = item.getUserId();
+            if (busyPlayers.containsKey(userId) || offersByPlayer.containsKey(userId)) {
+                continue;
+            }
+            PlayerDoc doc = playerSearchEngine.getByUserId(userId);
+            if (doc != null) {
+                candidates.add(doc);
+            }
+        }
+        return candidates;
+    }
+
+    private boolean eligible(PendingOrder pending, PlayerDoc candidate) {
+        long playerId = candidate.userId();
+        if (playerId == pending.userId || pending.excluded.contains(playerId)
+                || blockListStore.isBlocked(pending.userId, playerId)) {
+            return false;
+        }
+        LocalDateTime from = LocalDateTime.now();
+        return candidate.availability().covers(from, from.plusMinutes(pending.duration));
+    }
+
+    /**
+     * 先写 offeredTo 再推送；订单已不在待接单状态时移出派单流程，推送不到时视为拒绝
+     */
+    private void deliverOffer(PendingOrder pending) {
+        long playerId = pending.offeredTo;
+        Query query = Query.query(Criteria.where("id").is(pending.orderId)
+                .and("status").is(OrderStatus.PENDING.code())
+                .and("playerId").is(null));
+        boolean stillPending = mongoTemplate.updateFirst(query, Update.update("offeredTo", String.valueOf(playerId)),
+                Order.class).getMatchedCount() > 0;
+        if (!stillPending) {
+            drop(pending);
+            return;
+        }
+
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", "order_offer");
+        event.put("orderId", pending.orderId);
+        event.put("gameId", pending.gameId);
+        event.put("serviceType", pending.serviceType);
+        event.put("duration", pending.duration);
+        event.put("requirements", pending.requirements);
+        event.put("expireAt", pending.offerExpireAt);
+        if (!push(playerId, event)) {
+            decline(pending.orderId, playerId);
+        }
+    }
+
+    /**
+     * 订单已离开待接单状态，只移出派单流程；陪玩的服务中计数由 onAccepted/onClosed 维护，这里不动
+     */
+    private void drop(PendingOrder pending) {
+        lock.lock();
+        try {
+            if (orders.remove(pending.orderId, pending)) {
+                dequeue(pending);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void clearOfferedTo(String orderId, long playerId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(orderId).and("offeredTo").is(String.valueOf(playerId))),
+                new Update().unset("offeredTo"), Order.class);
+    }
+
+    /**
+     * 收回当前邀约并重新入队；多次无人接单的订单停止派单，留待超时处理
+     */
+    private void revoke(PendingOrder pending) {
+        offersByPlayer.remove(pending.offeredTo, pending.orderId);
+        pending.excluded.add(pending.offeredTo);
+        pending.offeredTo = null;
+        pending.offerExpireAt = 0;
+        if (pending.attempts >= maxAttempts) {
+            orders.remove(pending.orderId);
+            log.info("订单多次派单无人接单，停止派单 orderId={}", pending.orderId);
+            return;
+        }
+        queues.computeIfAbsent(pending.key, key -> new PriorityQueue<>(PRIORITY)).add(pending);
+    }
+
+    private void enqueue(Order order) {
+        if (order.getId() == null || orders.containsKey(order.getId())) {
+            return;
+        }
+        PendingOrder pending = new PendingOrder(order, sequence++);
+        orders.put(pending.orderId, pending);
+        queues.computeIfAbsent(pending.key, key -> new PriorityQueue<>(PRIORITY)).add(pending);
+    }
+
+    private void dequeue(PendingOrder pending) {
+        if (pending.offeredTo != null) {
+            offersByPlayer.remove(pending.offeredTo, pending.orderId);
+            return;
+        }
+        PriorityQueue<PendingOrder> queue = queues.get(pending.key);
+        if (queue != null) {
+            queue.remove(pending);
+        }
+    }
+
+    private Map<String, Object> event(String type, String orderId, Order order) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("type", type);
+        event.put("orderId", orderId);
+        event.put("gameId", order.getGameId());
+        event.put("serviceType", order.getServiceType());
+        event.put("duration", order.getDuration());
+        event.put("requirements", order.getRequirements());
+        return event;
+    }
+
+    private boolean push(long userId, Map<String, Object> event) {
+        try {
+            return userSessionRegistry.sendToUser(userId, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("派单消息序列化失败 userId={}", userId, e);
+            return false;
+        }
+    }
+
+    private record QueueKey(String game, String serviceType) {
+    }
+
+    private record OfferTimeout(String orderId, long playerId, long expireAt) {
+    }
+
+    /**
+     * 派单流程中的订单，只在引擎锁内修改
+     */
+    private static final class PendingOrder {
+        final String orderId;
+        final long userId;
+        final String gameId;
+        final String serviceType;
+        final int duration;
+        final String requirements;
+        final long createTime;
+        final long sequence;
+        final QueueKey key;
+        final Set<Long> excluded = new HashSet<>();
+        Long offeredTo;
+        long offerExpireAt;
+        int attempts;
+
+        PendingOrder(Order order, long sequence) {
+            this.orderId = order.getId();
+            Long user = BlockListStore.parseUserId(order.getUserId());
+            this.userId = user != null ? user : -1;
+            this.gameId = order.getGameId();
+            this.serviceType = order.getServiceType();
+            this.duration = order.getDuration() != null && order.getDuration() > 0
+                    ? order.getDuration() : DEFAULT_DURATION_MINUTES;
+            this.requirements = order.getRequirements();
+            LocalDateTime created = order.getCreateTime() != null ? order.getCreateTime() : LocalDateTime.now();
+            this.createTime = created.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            this.sequence = sequence;
+            String game = SkillTags.normalize(order.getGameId());
+            this.key = new QueueKey(game, order.getServiceType() != null ? order.getServiceType() : "");
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.playmate.dispatch;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * 订单超时调度
+ * 待接单超时自动取消、服务中满时长自动完成，截止时间挂在内存分层时间轮上，不扫描订单集合。
+ * 启动时只按 status 索引读取未结束的订单重建时间轮；到期的订单按批做一次条件 updateMulti，
+ * 并用批次号回查本批实际流转的订单，已被人工处理的订单不受影响；流转事件随同一次更新写入各订单 outbox
+ */
+@Component
+public class OrderTimeoutScheduler {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderTimeoutScheduler.class);
+
+    private static final String EXPIRE_REASON = "超时未接单";
+
+    private final MongoTemplate mongoTemplate;
+    private final OrderDispatchEngine orderDispatchEngine;
+
+    @Value("${playmate.order-timeout.pending-timeout-ms:1800000}")
+    private long pendingTimeoutMs;
+
+    @Value("${playmate.order-timeout.batch-size:200}")
+    private int batchSize;
+
+    private final HierarchicalTimingWheel<Deadline> wheel;
+
+    public OrderTimeoutScheduler(MongoTemplate mongoTemplate,
+                                 OrderDispatchEngine orderDispatchEngine,
+                                 @Value("${playmate.order-timeout.tick-ms:1000}") long tickMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.orderDispatchEngine = orderDispatchEngine;
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        Query query = Query.query(Criteria.where("status")
+                .in(OrderStatus.PENDING.code(), OrderStatus.IN_PROGRESS.code()))
+                .cursorBatchSize(batchSize);
+        query.fields().include("id", "status", "createTime", "startTime", "duration");
+        int loaded = 0;
+        try (Stream<Order> orders = mongoTemplate.stream(query, Order.class)) {
+            Iterator<Order> iterator = orders.iterator();
+            while (iterator.hasNext()) {
+                Order order = iterator.next();
+                if (OrderStatus.PENDING.code().equals(order.getStatus())) {
+                    onOrderCreated(order);
+                } else {
+                    onOrderStarted(order);
+                }
+                loaded++;
+            }
+            log.info("订单超时调度加载完成，订单数: {}，耗时: {}ms", loaded, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("订单超时调度加载失败", e);
+        }
+    }
+
+    /**
+     * 新订单：到期仍无人接单则自动取消
+     */
+    public void onOrderCreated(Order order) {
+        LocalDateTime created = order.getCreateTime() != null ? order.getCreateTime() : LocalDateTime.now();
+        schedule(order.getId(), toMillis(created) + pendingTimeoutMs, Action.EXPIRE_PENDING);
+    }
+
+    /**
+     * 开始服务：满 duration 分钟后自动完成
+     */
+    public void onOrderStarted(Order order) {
+        if (order.getDuration() == null || order.getDuration() <= 0) {
+            cancel(order.getId());
+            return;
+        }
+        LocalDateTime started = order.getStartTime() != null ? order.getStartTime() : LocalDateTime.now();
+        schedule(order.getId(), toMillis(started) + order.getDuration() * 60_000L, Action.AUTO_COMPLETE);
+    }
+
+    /**
+     * 接单、完成或取消后不再需要当前的截止时间
+     */
+    public synchronized void cancel(String orderId) {
+        wheel.cancel(orderId);
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.order-timeout.tick-ms:1000}")
+    public void advance() {
+        List<Deadline> expired;
+        synchronized (this) {
+            expired = wheel.advance(System.currentTimeMillis());
+        }
+        if (expired.isEmpty()) {
+            return;
+        }
+        List<String> pending = new ArrayList<>();
+        List<String> inProgress = new ArrayList<>();
+        for (Deadline deadline : expired) {
+            (deadline.action() == Action.EXPIRE_PENDING ? pending : inProgress).add(deadline.orderId());
+        }
+        try {
+            int cancelled = fire(pending, Action.EXPIRE_PENDING);
+            int completed = fire(inProgress, Action.AUTO_COMPLETE);
+            log.info("订单超时处理完成，到期: {}，自动取消: {}，自动完成: {}", expired.size(), cancelled, completed);
+        } catch (RuntimeException e) {
+            log.error("订单超时处理失败", e);
+        }
+    }
+
+    private int fire(List<String> orderIds, Action action) {
+        int transitioned = 0;
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            transitioned += fireBatch(orderIds.subList(from, Math.min(from + batchSize, orderIds.size())), action);
+        }
+        return transitioned;
+    }
+
+    /**
+     * 一批订单一次条件更新，再按批次号取回本批真正流转的订单释放派单占用
+     */
+    private int fireBatch(List<String> orderIds, Action action) {
+        String batchId = UUID.randomUUID().toString();
+        OrderStatus target = action.target;
+        Update update = OrderEvent.of(target, batchId).appendTo(new Update()
+                .set("status", target.code())
+                .set("timeoutBatch", batchId));
+        if (action == Action.EXPIRE_PENDING) {
+            update.set("cancelReason", EXPIRE_REASON).unset("offeredTo");
+        } else {
+            update.set("endTime", LocalDateTime.now());
+        }
+        long modified = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("id").in(orderIds).and("status").is(action.source.code())),
+                update, Order.class).getModifiedCount();
+        if (modified == 0) {
+            return 0;
+        }
+
+        Query changed = Query.query(Criteria.where("timeoutBatch").is(batchId));
+        changed.fields().include("id");
+        for (Order order : mongoTemplate.find(changed, Order.class)) {
+            orderDispatchEngine.onClosed(order.getId());
+        }
+        return (int) modified;
+    }
+
+    private synchronized void schedule(String orderId, long deadlineMillis, Action action) {
+        if (orderId != null) {
+            wheel.schedule(orderId, deadlineMillis, new Deadline(orderId, action));
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 只从定时器对应的那个状态流转：待接单超时取消、服务中到时完成，
+     * 期间已被接单的待接单订单不会被超时完成，反之亦然
+     */
+    private enum Action {
+        EXPIRE_PENDING(OrderStatus.PENDING, OrderStatus.CANCELLED),
+        AUTO_COMPLETE(OrderStatus.IN_PROGRESS, OrderStatus.COMPLETED);
+
+        final OrderStatus source;
+        final OrderStatus target;
+
+        Action(OrderStatus source, OrderStatus target) {
+            this.source = source;
+            this.target = target;
+        }
+    }
+
+    private record Deadline(String orderId, Action action) {
+    }
+}
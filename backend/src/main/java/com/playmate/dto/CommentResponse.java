@@ -5,31 +5,31 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 public class CommentResponse {
-    private Long id;
-    private Long postId;
+    private String id;
+    private String postId;
     private UserInfo user;
     private UserInfo replyToUser;
     private String content;
-    private Long parentId;
+    private String parentId;
     private CommentStatus status;
     private Integer likeCount;
     private Boolean isLiked;
     private LocalDateTime createTime;
     private List<CommentResponse> replies;
     
-    public Long getId() {
+    public String getId() {
         return id;
     }
     
-    public void setId(Long id) {
+    public void setId(String id) {
         this.id = id;
     }
     
-    public Long getPostId() {
+    public String getPostId() {
         return postId;
     }
     
-    public void setPostId(Long postId) {
+    public void setPostId(String postId) {
         this.postId = postId;
     }
     
@@ -57,11 +57,11 @@ public class CommentResponse {
         this.content = content;
     }
     
-    public Long getParentId() {
+    public String getParentId() {
         return parentId;
     }
     
-    public void setParentId(Long parentId) {
+    public void setParentId(String parentId) {
         this.parentId = parentId;
     }
     
@@ -0,0 +1,49 @@
+package com.playmate.dto;
+
+public class FollowRecommendationResponse {
+    private Long userId;
+    private String username;
+    private String nickname;
+    private String avatar;
+    private Integer mutualCount;
+    
+    public Long getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+    
+    public String getUsername() {
+        return username;
+    }
+    
+    public void setUsername(String username) {
+        this.username = username;
+    }
+    
+    public String getNickname() {
+        return nickname;
+    }
+    
+    public void setNickname(String nickname) {
+        this.nickname = nickname;
+    }
+    
+    public String getAvatar() {
+        return avatar;
+    }
+    
+    public void setAvatar(String avatar) {
+        this.avatar = avatar;
+    }
+    
+    public Integer getMutualCount() {
+        return mutualCount;
+    }
+    
+    public void setMutualCount(Integer mutualCount) {
+        this.mutualCount = mutualCount;
+    }
+}
@@ -0,0 +1,11 @@
+package com.playmate.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class OrderPageResponse {
+    private List<OrderResponse> items;
+    // 本页已满时返回，作为下一页的 cursor 参数
+    private String nextCursor;
+}
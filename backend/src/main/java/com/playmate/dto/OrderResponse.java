@@ -7,7 +7,7 @@ import java.time.LocalDateTime;
 
 @Data
 public class OrderResponse {
-    private Long id;
+    private String id;
     private String orderNo;
     private UserInfo user;
     private PlayerInfo player;
@@ -26,7 +26,7 @@ public class OrderResponse {
     private LocalDateTime commentTime;
     
     // Manual setters for Lombok compatibility
-    public void setId(Long id) {
+    public void setId(String id) {
         this.id = id;
     }
     
@@ -0,0 +1,33 @@
+package com.playmate.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.math.BigDecimal;
+
+/**
+ * 陪玩列表卡片，JPQL 构造表达式直接投影，只取列表展示需要的列
+ */
+@Data
+@NoArgsConstructor
+public class PlayerCard {
+    private Long playerId;
+    private Long userId;
+    private String nickname;
+    private String avatar;
+    private String skillTags;
+    private BigDecimal price;
+    private BigDecimal rating;
+    private Integer totalOrders;
+    
+    public PlayerCard(Long playerId, Long userId, String nickname, String avatar, String skillTags,
+                      BigDecimal price, BigDecimal rating, Integer totalOrders) {
+        this.playerId = playerId;
+        this.userId = userId;
+        this.nickname = nickname;
+        this.avatar = avatar;
+        this.skillTags = skillTags;
+        this.price = price;
+        this.rating = rating;
+        this.totalOrders = totalOrders;
+    }
+}
@@ -0,0 +1,30 @@
+package com.playmate.dto;
+
+import lombok.Data;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Data
+public class PlayerSearchResponse {
+    private List<Item> items;
+    private int total;
+    private String nextCursor;
+    // 维度 -> 取值 -> 命中数，基于全部筛选条件后的结果集
+    private Map<String, Map<String, Integer>> facets;
+    
+    @Data
+    public static class Item {
+        private Long playerId;
+        private Long userId;
+        private String nickname;
+        private String avatar;
+        private Set<String> games;
+        private BigDecimal price;
+        private BigDecimal rating;
+        private Integer totalOrders;
+        private String gender;
+        private boolean online;
+    }
+}
@@ -1,10 +1,12 @@
 package com.playmate.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
 @Document(collection = "comments")
+@CompoundIndex(name = "post_status_idx", def = "{'postId': 1, 'status': 1}")
 public class Comment {
     
     @Id
@@ -6,6 +6,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "follows", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"follower_id", "following_id"})
+}, indexes = {
+    @Index(name = "idx_follows_update_time", columnList = "update_time")
 })
 public class Follow {
     
@@ -26,9 +28,18 @@ public class Follow {
     @Column(nullable = false)
     private LocalDateTime createTime;
     
+    @Column(name = "update_time")
+    private LocalDateTime updateTime;
+    
     @PrePersist
     protected void onCreate() {
         createTime = LocalDateTime.now();
+        updateTime = createTime;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updateTime = LocalDateTime.now();
     }
     
     // Manual getters and setters
@@ -46,4 +57,7 @@ public class Follow {
     
     public LocalDateTime getCreateTime() { return createTime; }
     public void setCreateTime(LocalDateTime createTime) { this.createTime = createTime; }
+    
+    public LocalDateTime getUpdateTime() { return updateTime; }
+    public void setUpdateTime(LocalDateTime updateTime) { this.updateTime = updateTime; }
 }
\ No newline at end of file
@@ -1,11 +1,26 @@
 package com.playmate.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Document(collection = "orders")
+@CompoundIndexes({
+        @CompoundIndex(name = "status_create_idx", def = "{'status': 1, 'createTime': 1}"),
+        @CompoundIndex(name = "status_end_idx", def = "{'status': 1, 'endTime': 1}"),
+        // 订单历史按 (createTime, _id) 倒序游标翻页，带状态筛选的索引同时用于各状态计数
+        @CompoundIndex(name = "user_create_idx", def = "{'userId': 1, 'createTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "user_status_create_idx", def = "{'userId': 1, 'status': 1, 'createTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "player_create_idx", def = "{'playerId': 1, 'createTime': -1, '_id': -1}"),
+        @CompoundIndex(name = "player_status_create_idx", def = "{'playerId': 1, 'status': 1, 'createTime': -1, '_id': -1}"),
+        // 只有发件箱非空的订单进入索引，供事件投递轮询
+        @CompoundIndex(name = "outbox_next_attempt_idx", def = "{'outboxNextAttempt': 1}", sparse = true)
+})
 public class Order {
     @Id
     private String id;
@@ -24,6 +39,15 @@ public class Order {
     private String rating;
     private String comment;
     private LocalDateTime commentTime;
+    // 未指定陪玩的订单当前派单给谁，只有该陪玩可以接单
+    private String offeredTo;
+    // 超时自动流转的批次号，用于回查本批实际变更的订单
+    @Indexed(sparse = true)
+    private String timeoutBatch;
+    // 待投递的订单事件，随状态流转在同一次更新中追加
+    private List<OrderEvent> outbox;
+    // 队首事件的下次投递时间，发件箱清空时去掉；轮询按它取到期订单，队首退避中的订单不会占用批次
+    private LocalDateTime outboxNextAttempt;
 
     public String getId() {
         return id;
@@ -153,6 +177,38 @@ public class Order {
         this.commentTime = commentTime;
     }
 
+    public String getOfferedTo() {
+        return offeredTo;
+    }
+
+    public void setOfferedTo(String offeredTo) {
+        this.offeredTo = offeredTo;
+    }
+
+    public String getTimeoutBatch() {
+        return timeoutBatch;
+    }
+
+    public void setTimeoutBatch(String timeoutBatch) {
+        this.timeoutBatch = timeoutBatch;
+    }
+
+    public List<OrderEvent> getOutbox() {
+        return outbox;
+    }
+
+    public void setOutbox(List<OrderEvent> outbox) {
+        this.outbox = outbox;
+    }
+
+    public LocalDateTime getOutboxNextAttempt() {
+        return outboxNextAttempt;
+    }
+
+    public void setOutboxNextAttempt(LocalDateTime outboxNextAttempt) {
+        this.outboxNextAttempt = outboxNextAttempt;
+    }
+
     // 添加getPlayer方法返回PlayerInfo对象
     public PlayerInfo getPlayer() {
         PlayerInfo playerInfo = new PlayerInfo();
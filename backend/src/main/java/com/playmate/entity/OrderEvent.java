@@ -0,0 +1,105 @@
+package com.playmate.entity;
+
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 订单发件箱事件，内嵌在订单文档的 outbox 数组中
+ * 与状态流转在同一次单文档更新里追加，事件与状态变更同时生效或同时失败；
+ * 全部处理器投递成功后从 outbox 中移除
+ */
+public class OrderEvent {
+    // 订单内唯一；超时批量流转时同一批订单共用一个
+    private String eventId;
+    // 流转到的状态 code，新建订单为 pending
+    private String type;
+    private LocalDateTime createTime;
+    private LocalDateTime nextAttemptTime;
+    private Integer attempts;
+    // 已投递成功的处理器名，重试时跳过
+    private List<String> deliveredTo;
+    private String lastError;
+
+    public static OrderEvent of(OrderStatus status) {
+        return of(status, UUID.randomUUID().toString());
+    }
+
+    public static OrderEvent of(OrderStatus status, String eventId) {
+        OrderEvent event = new OrderEvent();
+        LocalDateTime now = LocalDateTime.now();
+        event.setEventId(eventId);
+        event.setType(status.code());
+        event.setCreateTime(now);
+        event.setNextAttemptTime(now);
+        event.setAttempts(0);
+        event.setDeliveredTo(new ArrayList<>());
+        return event;
+    }
+
+    /**
+     * 在状态流转的更新中追加本事件，订单下次投递时间不晚于本事件
+     */
+    public Update appendTo(Update update) {
+        return update.push("outbox", this).min("outboxNextAttempt", nextAttemptTime);
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public LocalDateTime getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(LocalDateTime createTime) {
+        this.createTime = createTime;
+    }
+
+    public LocalDateTime getNextAttemptTime() {
+        return nextAttemptTime;
+    }
+
+    public void setNextAttemptTime(LocalDateTime nextAttemptTime) {
+        this.nextAttemptTime = nextAttemptTime;
+    }
+
+    public Integer getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(Integer attempts) {
+        this.attempts = attempts;
+    }
+
+    public List<String> getDeliveredTo() {
+        return deliveredTo;
+    }
+
+    public void setDeliveredTo(List<String> deliveredTo) {
+        this.deliveredTo = deliveredTo;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
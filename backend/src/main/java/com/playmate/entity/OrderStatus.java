@@ -0,0 +1,60 @@
+package com.playmate.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 订单状态机
+ * 数据库与接口中仍使用小写字符串（code），状态流转只允许按 previous 声明的来源状态进行：
+ * pending -> accepted -> in_progress -> completed，完成前的 pending/accepted 可取消
+ */
+public enum OrderStatus {
+    PENDING("pending"),        // 待接单
+    ACCEPTED("accepted"),      // 已接单
+    IN_PROGRESS("in_progress"), // 服务中
+    COMPLETED("completed"),    // 已完成
+    CANCELLED("cancelled");    // 已取消
+
+    private final String code;
+
+    OrderStatus(String code) {
+        this.code = code;
+    }
+
+    public String code() {
+        return code;
+    }
+
+    /**
+     * 可以流转到当前状态的来源状态
+     */
+    public List<OrderStatus> previous() {
+        return switch (this) {
+            case PENDING -> List.of();
+            case ACCEPTED -> List.of(PENDING);
+            case IN_PROGRESS -> List.of(ACCEPTED);
+            case COMPLETED -> List.of(IN_PROGRESS);
+            case CANCELLED -> List.of(PENDING, ACCEPTED);
+        };
+    }
+
+    /**
+     * 来源状态的 code 列表，用作条件更新的过滤值
+     */
+    public List<String> previousCodes() {
+        List<String> codes = new ArrayList<>();
+        for (OrderStatus status : previous()) {
+            codes.add(status.code);
+        }
+        return codes;
+    }
+
+    public static OrderStatus fromCode(String code) {
+        for (OrderStatus status : values()) {
+            if (status.code.equalsIgnoreCase(code) || status.name().equalsIgnoreCase(code)) {
+                return status;
+            }
+        }
+        throw new RuntimeException("未知的订单状态: " + code);
+    }
+}
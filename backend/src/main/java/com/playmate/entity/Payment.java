@@ -18,9 +18,9 @@ public class Payment {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
-    @ManyToOne
-    @JoinColumn(name = "order_id")
-    private Order order;
+    // 订单保存在 Mongo，这里只记录订单ID
+    @Column(name = "order_id")
+    private String orderId;
     
     @Column(precision = 10, scale = 2, nullable = false)
     private BigDecimal amount;
@@ -83,8 +83,8 @@ public class Payment {
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
     
-    public Order getOrder() { return order; }
-    public void setOrder(Order order) { this.order = order; }
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
     
     public BigDecimal getAmount() { return amount; }
     public void setAmount(BigDecimal amount) { this.amount = amount; }
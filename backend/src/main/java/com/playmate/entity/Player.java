@@ -1,17 +1,22 @@
 package com.playmate.entity;
 
+import com.playmate.search.PlayerSearchIndexListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "players")
+@EntityListeners(PlayerSearchIndexListener.class)
 public class Player {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
-    @OneToOne
+    // 列表查询通过实体图或 JOIN FETCH 显式取用户，避免默认 EAGER 每行一次查询
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
     
@@ -40,6 +45,10 @@ public class Player {
     @Column(precision = 3, scale = 2, nullable = false)
     private BigDecimal rating = BigDecimal.valueOf(5.0);
     
+    // 贝叶斯平滑、按时间衰减的排序分，由评分批处理任务回写，尚未计算时为空
+    @Column(name = "ranking_score", precision = 3, scale = 2)
+    private BigDecimal rankingScore;
+    
     @Column(columnDefinition = "JSON")
     private String availableTime;
     
@@ -50,6 +59,15 @@ public class Player {
     @Column
     private String game;
     
+    // 归一化的游戏/技能索引，由 skillTags 与 game 派生，供按游戏筛选时走索引
+    @ElementCollection
+    @CollectionTable(name = "player_games",
+            joinColumns = @JoinColumn(name = "player_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_player_games", columnNames = {"player_id", "game"}),
+            indexes = @Index(name = "idx_player_games_game", columnList = "game"))
+    @Column(name = "game", length = SkillTags.MAX_TAG_LENGTH, nullable = false)
+    private Set<String> games = new HashSet<>();
+    
     public enum CertificationStatus {
         PENDING, APPROVED, REJECTED
     }
@@ -86,7 +104,10 @@ public class Player {
     public void setIdCard(String idCard) { this.idCard = idCard; }
     
     public String getSkillTags() { return skillTags; }
-    public void setSkillTags(String skillTags) { this.skillTags = skillTags; }
+    public void setSkillTags(String skillTags) {
+        this.skillTags = skillTags;
+        refreshGames();
+    }
     
     public BigDecimal getServicePrice() { return servicePrice; }
     public void setServicePrice(BigDecimal servicePrice) { this.servicePrice = servicePrice; }
@@ -103,6 +124,9 @@ public class Player {
     public BigDecimal getRating() { return rating; }
     public void setRating(BigDecimal rating) { this.rating = rating; }
     
+    public BigDecimal getRankingScore() { return rankingScore; }
+    public void setRankingScore(BigDecimal rankingScore) { this.rankingScore = rankingScore; }
+    
     public String getAvailableTime() { return availableTime; }
     public void setAvailableTime(String availableTime) { this.availableTime = availableTime; }
     
@@ -110,5 +134,21 @@ public class Player {
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
     
     public String getGame() { return game; }
-    public void setGame(String game) { this.game = game; }
+    public void setGame(String game) {
+        this.game = game;
+        refreshGames();
+    }
+    
+    public Set<String> getGames() { return games; }
+    
+    /**
+     * 按当前 skillTags/game 重建索引集合；原地修改以保留持久化集合实例
+     */
+    public void refreshGames() {
+        Set<String> parsed = SkillTags.parse(skillTags, game);
+        if (!games.equals(parsed)) {
+            games.clear();
+            games.addAll(parsed);
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.playmate.entity;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 陪玩评分汇总，每条评价写入时原子累加，读取平均分与星级分布无需扫描评价
+ * id 为陪玩的用户ID，与 Rating.playerId 一致
+ */
+@Document(collection = "player_rating_summaries")
+public class PlayerRatingSummary {
+
+    @Id
+    private String id;
+
+    private long sum;
+
+    private long count;
+
+    // 星级 "1" - "5" -> 评价数
+    private Map<String, Long> histogram = new HashMap<>();
+
+    // 评价标签热门计数器，容量固定
+    private List<TagSketch.TagCounter> tags = new ArrayList<>();
+
+    // 标签计数器的版本号，条件更新防止并发写入互相覆盖
+    private long tagVersion;
+
+    private LocalDateTime updateTime;
+
+    public Double getAverage() {
+        return count > 0 ? (double) sum / count : null;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public long getSum() {
+        return sum;
+    }
+
+    public void setSum(long sum) {
+        this.sum = sum;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    public Map<String, Long> getHistogram() {
+        return histogram;
+    }
+
+    public void setHistogram(Map<String, Long> histogram) {
+        this.histogram = histogram;
+    }
+
+    public List<TagSketch.TagCounter> getTags() {
+        return tags;
+    }
+
+    public void setTags(List<TagSketch.TagCounter> tags) {
+        this.tags = tags;
+    }
+
+    public long getTagVersion() {
+        return tagVersion;
+    }
+
+    public void setTagVersion(long tagVersion) {
+        this.tagVersion = tagVersion;
+    }
+
+    public LocalDateTime getUpdateTime() {
+        return updateTime;
+    }
+
+    public void setUpdateTime(LocalDateTime updateTime) {
+        this.updateTime = updateTime;
+    }
+}
@@ -0,0 +1,39 @@
+package com.playmate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 订单事件在 MySQL 侧的处理记录，与业务写入同一事务提交；(handler, order_id) 唯一，重投的事件插入失败即跳过
+ */
+@Entity
+@Table(name = "processed_order_events",
+        uniqueConstraints = @UniqueConstraint(name = "uk_handler_order", columnNames = {"handler", "order_id"}))
+public class ProcessedOrderEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "handler", nullable = false, length = 64)
+    private String handler;
+    
+    @Column(name = "order_id", nullable = false, length = 64)
+    private String orderId;
+    
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+    
+    // Manual getters and setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    
+    public String getHandler() { return handler; }
+    public void setHandler(String handler) { this.handler = handler; }
+    
+    public String getOrderId() { return orderId; }
+    public void setOrderId(String orderId) { this.orderId = orderId; }
+    
+    public LocalDateTime getProcessedAt() { return processedAt; }
+    public void setProcessedAt(LocalDateTime processedAt) { this.processedAt = processedAt; }
+}
@@ -1,15 +1,20 @@
 package com.playmate.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "ratings")
+@CompoundIndex(name = "player_create_idx", def = "{'playerId': 1, 'createTime': -1, '_id': -1}")
 public class Rating {
     @Id
     private String id;
+    /** 一个订单只能评价一次，唯一索引挡住并发重复提交 */
+    @Indexed(unique = true)
     private String orderId;
     private String raterId;
     private String playerId;
@@ -0,0 +1,70 @@
+package com.playmate.entity;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 陪玩技能标签解析
+ * skillTags 为 JSON 数组字符串，解析失败时按逗号分隔兜底；标签统一去空白、转小写后入索引，
+ * 超过索引列长度的标签不入索引
+ */
+public final class SkillTags {
+
+    /**
+     * player_games.game 列长度
+     */
+    public static final int MAX_TAG_LENGTH = 64;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> TAG_LIST = new TypeReference<>() {};
+
+    private SkillTags() {
+    }
+
+    /**
+     * 标签归一化，查询参数与索引值使用同一规则
+     */
+    public static String normalize(String tag) {
+        if (tag == null) {
+            return null;
+        }
+        String normalized = tag.trim().toLowerCase(Locale.ROOT);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    /**
+     * 合并 skillTags 与 game 字段，得到归一化后的游戏/技能集合
+     */
+    public static Set<String> parse(String skillTags, String game) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (skillTags != null && !skillTags.isBlank()) {
+            for (String tag : split(skillTags)) {
+                add(tags, tag);
+            }
+        }
+        add(tags, game);
+        return tags;
+    }
+
+    private static List<String> split(String skillTags) {
+        try {
+            List<String> tags = MAPPER.readValue(skillTags, TAG_LIST);
+            return tags != null ? tags : List.of();
+        } catch (JsonProcessingException e) {
+            return List.of(skillTags.split("[,，]"));
+        }
+    }
+
+    private static void add(Set<String> tags, String tag) {
+        String normalized = normalize(tag);
+        if (normalized != null && normalized.length() <= MAX_TAG_LENGTH) {
+            tags.add(normalized);
+        }
+    }
+}
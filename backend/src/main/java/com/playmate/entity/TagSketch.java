@@ -0,0 +1,123 @@
+package com.playmate.entity;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 评价标签的 Space-Saving 热门统计
+ * 每位陪玩只保留固定数量的计数器：未命中的新标签顶替计数最小的一个并继承其计数，
+ * 出现频率超过 总数/容量 的标签一定留在计数器中，count - error 是真实次数的下界
+ */
+public final class TagSketch {
+
+    private static final Comparator<TagCounter> BY_COUNT = Comparator
+            .comparingLong(TagCounter::getCount).reversed()
+            .thenComparing(TagCounter::getTag);
+
+    private TagSketch() {
+    }
+
+    /**
+     * 记入一条评价的标签（同一条评价内去重），返回新的计数器列表，不修改入参
+     */
+    public static List<TagCounter> offer(List<TagCounter> counters, Collection<String> tags, int capacity) {
+        List<TagCounter> next = new ArrayList<>(capacity);
+        if (counters != null) {
+            for (TagCounter counter : counters) {
+                next.add(new TagCounter(counter.getTag(), counter.getCount(), counter.getError()));
+            }
+        }
+        for (String tag : distinct(tags)) {
+            TagCounter hit = null;
+            TagCounter min = null;
+            for (TagCounter counter : next) {
+                if (counter.getTag().equals(tag)) {
+                    hit = counter;
+                    break;
+                }
+                if (min == null || counter.getCount() < min.getCount()) {
+                    min = counter;
+                }
+            }
+            if (hit != null) {
+                hit.setCount(hit.getCount() + 1);
+            } else if (next.size() < capacity) {
+                next.add(new TagCounter(tag, 1, 0));
+            } else if (min != null) {
+                min.setError(min.getCount());
+                min.setCount(min.getCount() + 1);
+                min.setTag(tag);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * 计数最高的 n 个标签
+     */
+    public static List<TagCounter> top(List<TagCounter> counters, int n) {
+        if (counters == null || counters.isEmpty()) {
+            return List.of();
+        }
+        return counters.stream().sorted(BY_COUNT).limit(n).toList();
+    }
+
+    private static Set<String> distinct(Collection<String> tags) {
+        Set<String> result = new LinkedHashSet<>();
+        if (tags != null) {
+            for (String tag : tags) {
+                if (tag != null && !tag.isBlank()) {
+                    result.add(tag.trim());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 单个标签计数器；error 为顶替时继承的计数，即可能多计的上界
+     */
+    public static class TagCounter {
+
+        private String tag;
+        private long count;
+        private long error;
+
+        public TagCounter() {
+        }
+
+        public TagCounter(String tag, long count, long error) {
+            this.tag = tag;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getTag() {
+            return tag;
+        }
+
+        public void setTag(String tag) {
+            this.tag = tag;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public void setCount(long count) {
+            this.count = count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        public void setError(long error) {
+            this.error = error;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.playmate.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 用户计数汇总（粉丝、关注、动态、获赞），由业务事件增量维护，定时校准
+ */
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+    
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+    
+    @Column(name = "followers_count", nullable = false)
+    private Integer followersCount = 0;
+    
+    @Column(name = "following_count", nullable = false)
+    private Integer followingCount = 0;
+    
+    @Column(name = "posts_count", nullable = false)
+    private Integer postsCount = 0;
+    
+    @Column(name = "liked_count", nullable = false)
+    private Integer likedCount = 0;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
+    // Manual getters and setters
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    
+    public Integer getFollowersCount() { return followersCount; }
+    public void setFollowersCount(Integer followersCount) { this.followersCount = followersCount; }
+    
+    public Integer getFollowingCount() { return followingCount; }
+    public void setFollowingCount(Integer followingCount) { this.followingCount = followingCount; }
+    
+    public Integer getPostsCount() { return postsCount; }
+    public void setPostsCount(Integer postsCount) { this.postsCount = postsCount; }
+    
+    public Integer getLikedCount() { return likedCount; }
+    public void setLikedCount(Integer likedCount) { this.likedCount = likedCount; }
+    
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,200 @@
+package com.playmate.graph;
+
+import com.playmate.entity.FollowStatus;
+import com.playmate.repository.FollowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongPredicate;
+
+/**
+ * 拉黑关系内存索引
+ * 按用户保存双向拉黑集合（我拉黑的人、拉黑我的人），前置一个用户对布隆过滤器：
+ * 过滤一页内容时，绝大多数条目只需一次布隆探测即可放行
+ */
+@Component
+public class BlockListStore {
+
+    private static final Logger log = LoggerFactory.getLogger(BlockListStore.class);
+
+    private final FollowRepository followRepository;
+
+    @Value("${playmate.blocklist.bloom-bits:8388608}")
+    private int bloomBits;
+
+    @Value("${playmate.blocklist.bloom-hashes:4}")
+    private int bloomHashes;
+
+    @Value("${playmate.graph.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    /** userId -> 该用户拉黑的人 */
+    private final Map<Long, long[]> blocking = new ConcurrentHashMap<>();
+    /** userId -> 拉黑了该用户的人 */
+    private final Map<Long, long[]> blockedBy = new ConcurrentHashMap<>();
+
+    private volatile PairBloomFilter bloom;
+    private volatile boolean ready;
+
+    public BlockListStore(FollowRepository followRepository) {
+        this.followRepository = followRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            bloom = new PairBloomFilter(bloomBits, bloomHashes);
+            long afterId = 0;
+            while (true) {
+                List<Object[]> rows = followRepository.findEdgesAfterId(
+                        FollowStatus.BLOCKED, afterId, PageRequest.of(0, loadBatchSize));
+                for (Object[] row : rows) {
+                    addBlock((Long) row[1], (Long) row[2]);
+                }
+                if (rows.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = (Long) rows.get(rows.size() - 1)[0];
+            }
+            ready = true;
+            log.info("拉黑关系加载完成，用户数: {}，耗时: {}ms", blocking.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("拉黑关系加载失败，继续使用数据库查询", e);
+        }
+    }
+
+    /**
+     * 拉黑生效，事务内调用时在提交后应用
+     */
+    public void onBlock(long blockerId, long blockedId) {
+        TransactionHooks.afterCommit(() -> addBlock(blockerId, blockedId));
+    }
+
+    /**
+     * 拉黑解除，事务内调用时在提交后应用
+     */
+    public void onUnblock(long blockerId, long blockedId) {
+        TransactionHooks.afterCommit(() -> removeBlock(blockerId, blockedId));
+    }
+
+    /**
+     * 两个用户之间是否存在任一方向的拉黑
+     */
+    public boolean isBlocked(long userId, long otherId) {
+        LongPredicate predicate = blockedPredicate(userId);
+        return predicate != null && predicate.test(otherId);
+    }
+
+    /**
+     * 与该用户存在任一方向拉黑关系的所有用户
+     */
+    public SortedLongSet blockedSet(long userId) {
+        if (!ready) {
+            return loadFromDatabase(userId);
+        }
+        long[] out = blocking.get(userId);
+        long[] in = blockedBy.get(userId);
+        SortedLongSet outSet = out == null ? SortedLongSet.empty() : SortedLongSet.wrapSorted(out, out.length);
+        SortedLongSet inSet = in == null ? SortedLongSet.empty() : SortedLongSet.wrapSorted(in, in.length);
+        return outSet.union(inSet);
+    }
+
+    /**
+     * 过滤列表中与 viewer 存在拉黑关系的作者内容
+     */
+    public <T> List<T> filter(Long viewerId, List<T> items, Function<T, Long> authorIdOf) {
+        if (viewerId == null || items.isEmpty()) {
+            return items;
+        }
+        LongPredicate blocked = blockedPredicate(viewerId);
+        if (blocked == null) {
+            return items;
+        }
+        List<T> kept = new ArrayList<>(items.size());
+        for (T item : items) {
+            Long authorId = authorIdOf.apply(item);
+            if (authorId == null || !blocked.test(authorId)) {
+                kept.add(item);
+            }
+        }
+        return kept.size() == items.size() ? items : kept;
+    }
+
+    /**
+     * 过滤分页内容，总数相应扣减
+     */
+    public <T> Page<T> filter(Long viewerId, Page<T> page, Function<T, Long> authorIdOf) {
+        List<T> kept = filter(viewerId, page.getContent(), authorIdOf);
+        if (kept == page.getContent()) {
+            return page;
+        }
+        long removed = page.getNumberOfElements() - kept.size();
+        return new PageImpl<>(kept, page.getPageable(), page.getTotalElements() - removed);
+    }
+
+    /**
+     * Mongo 中以字符串保存的用户ID，无法解析时视为无作者
+     */
+    public static Long parseUserId(String userId) {
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 返回 null 表示该用户没有任何拉黑关系，无需逐条判断
+     */
+    private LongPredicate blockedPredicate(long userId) {
+        if (!ready) {
+            SortedLongSet set = loadFromDatabase(userId);
+            return set.isEmpty() ? null : set::contains;
+        }
+        long[] out = blocking.get(userId);
+        long[] in = blockedBy.get(userId);
+        if (out == null && in == null) {
+            return null;
+        }
+        PairBloomFilter filter = bloom;
+        return otherId -> filter.mightContain(userId, otherId)
+                && (SortedLongArrays.contains(out, otherId) || SortedLongArrays.contains(in, otherId));
+    }
+
+    private SortedLongSet loadFromDatabase(long userId) {
+        return SortedLongSet.of(followRepository.findFollowingIdsByFollowerIdAndStatus(userId, FollowStatus.BLOCKED))
+                .union(SortedLongSet.of(followRepository.findFollowerIdsByFollowingIdAndStatus(userId, FollowStatus.BLOCKED)));
+    }
+
+    private void addBlock(long blockerId, long blockedId) {
+        // 加载前的变更只更新集合，加载时会从数据库补齐布隆过滤器
+        PairBloomFilter filter = bloom;
+        if (filter != null) {
+            filter.put(blockerId, blockedId);
+        }
+        blocking.compute(blockerId, (key, ids) -> SortedLongArrays.insert(ids, blockedId));
+        blockedBy.compute(blockedId, (key, ids) -> SortedLongArrays.insert(ids, blockerId));
+    }
+
+    private void removeBlock(long blockerId, long blockedId) {
+        // 布隆过滤器不支持删除，残留位只会带来一次多余的精确判断
+        blocking.computeIfPresent(blockerId, (key, ids) -> SortedLongArrays.delete(ids, blockedId));
+        blockedBy.computeIfPresent(blockedId, (key, ids) -> SortedLongArrays.delete(ids, blockerId));
+    }
+}
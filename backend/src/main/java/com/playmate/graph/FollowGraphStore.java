@@ -0,0 +1,311 @@
+package com.playmate.graph;
+
+import com.playmate.entity.Follow;
+import com.playmate.entity.FollowStatus;
+import com.playmate.repository.FollowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存关注关系图
+ * 正反两个方向各保存一份有序邻接数组（写时复制，读无锁），
+ * 启动时优先从磁盘快照恢复，再回放快照之后变更过的关注记录
+ */
+@Component
+public class FollowGraphStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowGraphStore.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x46474753;
+    private static final int SNAPSHOT_VERSION = 1;
+
+    /**
+     * 回放变更时向前多取的时间，覆盖快照期间并发提交的写入
+     */
+    private static final long REPLAY_MARGIN_SECONDS = 60;
+
+    private final FollowRepository followRepository;
+
+    @Value("${playmate.graph.snapshot-path:data/follow-graph.snap}")
+    private String snapshotPath;
+
+    @Value("${playmate.graph.load-batch-size:10000}")
+    private int loadBatchSize;
+
+    /** userId -> 该用户关注的人 */
+    private volatile Map<Long, long[]> following = new ConcurrentHashMap<>();
+    /** userId -> 该用户的粉丝 */
+    private volatile Map<Long, long[]> followers = new ConcurrentHashMap<>();
+
+    private volatile boolean ready;
+
+    public FollowGraphStore(FollowRepository followRepository) {
+        this.followRepository = followRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public boolean isFollowing(long followerId, long followingId) {
+        return Arrays.binarySearch(following.getOrDefault(followerId, SortedLongArrays.EMPTY), followingId) >= 0;
+    }
+
+    public int followingCount(long userId) {
+        return following.getOrDefault(userId, SortedLongArrays.EMPTY).length;
+    }
+
+    public int followerCount(long userId) {
+        return followers.getOrDefault(userId, SortedLongArrays.EMPTY).length;
+    }
+
+    public SortedLongSet followingOf(long userId) {
+        long[] edges = following.getOrDefault(userId, SortedLongArrays.EMPTY);
+        return SortedLongSet.wrapSorted(edges, edges.length);
+    }
+
+    public SortedLongSet followersOf(long userId) {
+        long[] edges = followers.getOrDefault(userId, SortedLongArrays.EMPTY);
+        return SortedLongSet.wrapSorted(edges, edges.length);
+    }
+
+    /**
+     * 关注数不少于 threshold 的用户
+     */
+    public List<Long> usersWithFollowingAtLeast(int threshold) {
+        List<Long> users = new ArrayList<>();
+        following.forEach((userId, edges) -> {
+            if (edges.length >= threshold) {
+                users.add(userId);
+            }
+        });
+        return users;
+    }
+
+    /**
+     * 关注关系生效，事务内调用时在提交后应用
+     */
+    public void onFollow(long followerId, long followingId) {
+        TransactionHooks.afterCommit(() -> addEdge(followerId, followingId));
+    }
+
+    /**
+     * 关注关系失效（取消关注、拉黑），事务内调用时在提交后应用
+     */
+    public void onUnfollow(long followerId, long followingId) {
+        TransactionHooks.afterCommit(() -> removeEdge(followerId, followingId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        LocalDateTime loadStart = LocalDateTime.now();
+        try {
+            LocalDateTime snapshotTime = loadSnapshot();
+            if (snapshotTime != null) {
+                replaySince(snapshotTime.minusSeconds(REPLAY_MARGIN_SECONDS));
+            } else {
+                loadFromDatabase();
+            }
+            // 加载期间的增量写入可能落在旧图上，补一次回放
+            replaySince(loadStart.minusSeconds(REPLAY_MARGIN_SECONDS));
+            ready = true;
+            log.info("关注图加载完成，用户数: {}，耗时: {}ms", following.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("关注图加载失败，继续使用数据库查询", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.graph.snapshot-interval-ms:600000}",
+            initialDelayString = "${playmate.graph.snapshot-interval-ms:600000}")
+    public void snapshot() {
+        if (!ready) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            writeSnapshot(LocalDateTime.now());
+            log.info("关注图快照完成，耗时: {}ms", System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            log.warn("关注图快照写入失败", e);
+        }
+    }
+
+    private void loadFromDatabase() {
+        Map<Long, EdgeBuffer> out = new HashMap<>();
+        Map<Long, EdgeBuffer> in = new HashMap<>();
+        long afterId = 0;
+        while (true) {
+            List<Object[]> rows = followRepository.findEdgesAfterId(
+                    FollowStatus.FOLLOWING, afterId, PageRequest.of(0, loadBatchSize));
+            for (Object[] row : rows) {
+                long followerId = (Long) row[1];
+                long followingId = (Long) row[2];
+                out.computeIfAbsent(followerId, key -> new EdgeBuffer()).add(followingId);
+                in.computeIfAbsent(followingId, key -> new EdgeBuffer()).add(followerId);
+            }
+            if (rows.size() < loadBatchSize) {
+                break;
+            }
+            afterId = (Long) rows.get(rows.size() - 1)[0];
+        }
+        following = freeze(out);
+        followers = freeze(in);
+    }
+
+    private void replaySince(LocalDateTime since) {
+        for (Follow follow : followRepository.findByUpdateTimeGreaterThanEqual(since)) {
+            if (follow.getStatus() == FollowStatus.FOLLOWING) {
+                addEdge(follow.getFollowerId(), follow.getFollowingId());
+            } else {
+                removeEdge(follow.getFollowerId(), follow.getFollowingId());
+            }
+        }
+    }
+
+    private void addEdge(long followerId, long followingId) {
+        following.compute(followerId, (key, edges) -> SortedLongArrays.insert(edges, followingId));
+        followers.compute(followingId, (key, edges) -> SortedLongArrays.insert(edges, followerId));
+    }
+
+    private void removeEdge(long followerId, long followingId) {
+        following.computeIfPresent(followerId, (key, edges) -> SortedLongArrays.delete(edges, followingId));
+        followers.computeIfPresent(followingId, (key, edges) -> SortedLongArrays.delete(edges, followerId));
+    }
+
+    private static Map<Long, long[]> freeze(Map<Long, EdgeBuffer> buffers) {
+        Map<Long, long[]> result = new ConcurrentHashMap<>(Math.max(16, buffers.size() * 4 / 3));
+        buffers.forEach((userId, buffer) -> result.put(userId, buffer.toSortedArray()));
+        return result;
+    }
+
+    /**
+     * 快照只保存关注方向，粉丝方向加载时反向构建；邻接表按差值变长编码
+     */
+    private void writeSnapshot(LocalDateTime snapshotTime) throws IOException {
+        Path target = Paths.get(snapshotPath);
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+
+        Map<Long, long[]> current = following;
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(snapshotTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            out.writeInt(current.size());
+            for (Map.Entry<Long, long[]> entry : current.entrySet()) {
+                long[] edges = entry.getValue();
+                out.writeLong(entry.getKey());
+                writeVarLong(out, edges.length);
+                long previous = 0;
+                for (long edge : edges) {
+                    writeVarLong(out, edge - previous);
+                    previous = edge;
+                }
+            }
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private LocalDateTime loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("关注图快照格式不匹配，改为从数据库加载");
+                return null;
+            }
+            LocalDateTime snapshotTime = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneId.systemDefault());
+            int users = in.readInt();
+
+            Map<Long, long[]> out = new ConcurrentHashMap<>(Math.max(16, users * 4 / 3));
+            Map<Long, EdgeBuffer> reverse = new HashMap<>();
+            for (int i = 0; i < users; i++) {
+                long userId = in.readLong();
+                long[] edges = new long[(int) readVarLong(in)];
+                long previous = 0;
+                for (int j = 0; j < edges.length; j++) {
+                    previous += readVarLong(in);
+                    edges[j] = previous;
+                    reverse.computeIfAbsent(previous, key -> new EdgeBuffer()).add(userId);
+                }
+                out.put(userId, edges);
+            }
+            following = out;
+            followers = freeze(reverse);
+            return snapshotTime;
+        } catch (IOException e) {
+            log.warn("关注图快照读取失败，改为从数据库加载", e);
+            return null;
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    /**
+     * 加载阶段使用的可增长数组
+     */
+    private static final class EdgeBuffer {
+        private long[] values = new long[4];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toSortedArray() {
+            return SortedLongSet.of(Arrays.copyOf(values, size)).toArray();
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.playmate.graph;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * “可能认识的人”推荐引擎
+ * 统计二度关注关系（我关注的人还关注了谁），按共同关注数取 Top-K。
+ * 关注数较多的重度用户由夜间批处理预计算，其余用户实时计算
+ */
+@Component
+public class FollowRecommendationEngine implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FollowRecommendationEngine.class);
+
+    /**
+     * 单个 fork/join 子任务处理的一度邻居数量
+     */
+    private static final int NEIGHBORS_PER_TASK = 64;
+
+    /**
+     * 单次推荐返回数量上限
+     */
+    static final int MAX_LIMIT = 100;
+
+    private final FollowGraphStore followGraph;
+    private final ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /** userId -> 预计算的推荐结果 */
+    private final Map<Long, List<Candidate>> precomputed = new ConcurrentHashMap<>();
+
+    @Value("${playmate.recommendation.heavy-user-threshold:500}")
+    private int heavyUserThreshold;
+
+    @Value("${playmate.recommendation.max-neighbors:2000}")
+    private int maxNeighbors;
+
+    @Value("${playmate.recommendation.precompute-size:100}")
+    private int precomputeSize;
+
+    public FollowRecommendationEngine(FollowGraphStore followGraph) {
+        this.followGraph = followGraph;
+    }
+
+    /**
+     * 获取推荐列表，excluded 中的用户（如拉黑关系）不会出现在结果里；limit 限制在 [1, MAX_LIMIT]
+     */
+    public List<Candidate> recommend(long userId, int limit, SortedLongSet excluded) {
+        if (!followGraph.isReady()) {
+            return List.of();
+        }
+        limit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        List<Candidate> cached = precomputed.get(userId);
+        if (cached != null && cached.size() >= limit) {
+            List<Candidate> result = new ArrayList<>(limit);
+            for (Candidate candidate : cached) {
+                if (result.size() == limit) {
+                    break;
+                }
+                // 预计算之后新关注或新拉黑的用户需要再过滤一次
+                if (!excluded.contains(candidate.userId()) && !followGraph.isFollowing(userId, candidate.userId())) {
+                    result.add(candidate);
+                }
+            }
+            if (result.size() == limit) {
+                return result;
+            }
+        }
+        return compute(userId, limit, excluded);
+    }
+
+    @Scheduled(cron = "${playmate.recommendation.precompute-cron:0 0 2 * * *}")
+    public void precomputeHeavyUsers() {
+        if (!followGraph.isReady()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        List<Long> heavyUsers = followGraph.usersWithFollowingAtLeast(heavyUserThreshold);
+        precomputed.keySet().retainAll(heavyUsers);
+        for (Long userId : heavyUsers) {
+            precomputed.put(userId, compute(userId, precomputeSize, SortedLongSet.empty()));
+        }
+        log.info("推荐预计算完成，用户数: {}，耗时: {}ms", heavyUsers.size(), System.currentTimeMillis() - start);
+    }
+
+    private List<Candidate> compute(long userId, int limit, SortedLongSet excluded) {
+        SortedLongSet neighbors = followGraph.followingOf(userId);
+        if (neighbors.isEmpty()) {
+            return List.of();
+        }
+        int neighborCount = Math.min(neighbors.size(), maxNeighbors);
+        LongIntCounter counter = pool.invoke(new CountTask(neighbors, 0, neighborCount));
+        return topK(counter, limit, userId, neighbors, excluded);
+    }
+
+    private static List<Candidate> topK(LongIntCounter counter, int k, long userId,
+                                        SortedLongSet following, SortedLongSet excluded) {
+        // 小顶堆，堆顶是当前第 K 名
+        long[] heapIds = new long[k];
+        int[] heapScores = new int[k];
+        int[] size = {0};
+        counter.forEach((candidateId, score) -> {
+            if (candidateId == userId || following.contains(candidateId) || excluded.contains(candidateId)) {
+                return;
+            }
+            if (size[0] < k) {
+                heapIds[size[0]] = candidateId;
+                heapScores[size[0]] = score;
+                siftUp(heapIds, heapScores, size[0]++);
+            } else if (better(score, candidateId, heapScores[0], heapIds[0])) {
+                heapIds[0] = candidateId;
+                heapScores[0] = score;
+                siftDown(heapIds, heapScores, size[0]);
+            }
+        });
+
+        int n = size[0];
+        Candidate[] sorted = new Candidate[n];
+        for (int i = n - 1; i >= 0; i--) {
+            sorted[i] = new Candidate(heapIds[0], heapScores[0]);
+            heapIds[0] = heapIds[i];
+            heapScores[0] = heapScores[i];
+            siftDown(heapIds, heapScores, i);
+        }
+        return List.of(sorted);
+    }
+
+    /**
+     * 分数高者优先，分数相同时ID小者优先
+     */
+    private static boolean better(int score, long id, int otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+
+    private static void siftUp(long[] ids, int[] scores, int index) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!better(scores[parent], ids[parent], scores[index], ids[index])) {
+                break;
+            }
+            swap(ids, scores, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] ids, int[] scores, int size) {
+        int index = 0;
+        while (true) {
+            int left = 2 * index + 1;
+            if (left >= size) {
+                break;
+            }
+            int worst = left;
+            int right = left + 1;
+            if (right < size && better(scores[left], ids[left], scores[right], ids[right])) {
+                worst = right;
+            }
+            if (!better(scores[index], ids[index], scores[worst], ids[worst])) {
+                break;
+            }
+            swap(ids, scores, index, worst);
+            index = worst;
+        }
+    }
+
+    private static void swap(long[] ids, int[] scores, int i, int j) {
+        long id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        int score = scores[i];
+        scores[i] = scores[j];
+        scores[j] = score;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    public record Candidate(long userId, int mutualCount) {
+    }
+
+    private final class CountTask extends RecursiveTask<LongIntCounter> {
+        private static final long serialVersionUID = 1L;
+
+        private final SortedLongSet neighbors;
+        private final int from;
+        private final int to;
+
+        private CountTask(SortedLongSet neighbors, int from, int to) {
+            this.neighbors = neighbors;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected LongIntCounter compute() {
+            if (to - from <= NEIGHBORS_PER_TASK) {
+                LongIntCounter counter = new LongIntCounter(256);
+                for (int i = from; i < to; i++) {
+                    SortedLongSet secondHop = followGraph.followingOf(neighbors.get(i));
+                    for (int j = 0; j < secondHop.size(); j++) {
+                        counter.increment(secondHop.get(j));
+                    }
+                }
+                return counter;
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(neighbors, from, mid);
+            left.fork();
+            LongIntCounter right = new CountTask(neighbors, mid, to).compute();
+            LongIntCounter merged = left.join();
+            if (merged.size() < right.size()) {
+                right.addAll(merged);
+                return right;
+            }
+            merged.addAll(right);
+            return merged;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.playmate.graph;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无序用户对 (a, b) 的布隆过滤器
+ * 只会误报不会漏报，不支持删除；命中后需再做精确判断
+ */
+public final class PairBloomFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+
+    public PairBloomFilter(int bitCountPowerOfTwo, int hashCount) {
+        int words = Math.max(1, bitCountPowerOfTwo >>> 6);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words << 6;
+        this.hashCount = hashCount;
+    }
+
+    public void put(long a, long b) {
+        long h1 = hash(Math.min(a, b), Math.max(a, b));
+        long h2 = (h1 >>> 32) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = bits.get(word);
+                if ((current & mask) != 0) {
+                    break;
+                }
+            } while (!bits.compareAndSet(word, current, current | mask));
+        }
+    }
+
+    public boolean mightContain(long a, long b) {
+        long h1 = hash(Math.min(a, b), Math.max(a, b));
+        long h2 = (h1 >>> 32) | 1L;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(long low, long high) {
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
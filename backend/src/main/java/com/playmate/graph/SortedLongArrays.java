@@ -0,0 +1,54 @@
+package com.playmate.graph;
+
+import java.util.Arrays;
+
+/**
+ * 有序 long 数组的写时复制操作，供内存图结构的邻接表使用
+ */
+final class SortedLongArrays {
+
+    static final long[] EMPTY = new long[0];
+
+    private SortedLongArrays() {
+    }
+
+    static boolean contains(long[] values, long value) {
+        return values != null && Arrays.binarySearch(values, value) >= 0;
+    }
+
+    /**
+     * 返回插入 value 后的新数组，已存在时原样返回
+     */
+    static long[] insert(long[] values, long value) {
+        if (values == null) {
+            return new long[]{value};
+        }
+        int index = Arrays.binarySearch(values, value);
+        if (index >= 0) {
+            return values;
+        }
+        index = -index - 1;
+        long[] updated = new long[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, index);
+        updated[index] = value;
+        System.arraycopy(values, index, updated, index + 1, values.length - index);
+        return updated;
+    }
+
+    /**
+     * 返回删除 value 后的新数组，删空时返回 null 以便从 Map 中移除
+     */
+    static long[] delete(long[] values, long value) {
+        int index = Arrays.binarySearch(values, value);
+        if (index < 0) {
+            return values;
+        }
+        if (values.length == 1) {
+            return null;
+        }
+        long[] updated = new long[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, index);
+        System.arraycopy(values, index + 1, updated, index, values.length - index - 1);
+        return updated;
+    }
+}
@@ -0,0 +1,239 @@
+package com.playmate.graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 有序去重的 long 集合（不可变）
+ * 用排序后的原始数组保存用户ID，求交集/差集时按两侧规模选择归并或跳跃查找
+ */
+public final class SortedLongSet {
+
+    private static final SortedLongSet EMPTY = new SortedLongSet(new long[0], 0);
+
+    /**
+     * 两侧规模相差超过该倍数时，改用跳跃查找代替线性归并
+     */
+    private static final int GALLOP_RATIO = 32;
+
+    private final long[] values;
+    private final int size;
+
+    private SortedLongSet(long[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    public static SortedLongSet empty() {
+        return EMPTY;
+    }
+
+    public static SortedLongSet of(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return EMPTY;
+        }
+        long[] array = new long[ids.size()];
+        int i = 0;
+        for (Long id : ids) {
+            array[i++] = id;
+        }
+        return of(array);
+    }
+
+    /**
+     * 复制并排序去重，入参不会被修改
+     */
+    public static SortedLongSet of(long[] ids) {
+        if (ids.length == 0) {
+            return EMPTY;
+        }
+        long[] array = ids.clone();
+        Arrays.sort(array);
+        int size = 1;
+        for (int i = 1; i < array.length; i++) {
+            if (array[i] != array[size - 1]) {
+                array[size++] = array[i];
+            }
+        }
+        return new SortedLongSet(array, size);
+    }
+
+    /**
+     * 直接包装已排序且无重复的数组，不做复制
+     */
+    public static SortedLongSet wrapSorted(long[] sorted, int size) {
+        return size == 0 ? EMPTY : new SortedLongSet(sorted, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public boolean contains(long value) {
+        return Arrays.binarySearch(values, 0, size, value) >= 0;
+    }
+
+    /**
+     * 交集
+     */
+    public SortedLongSet intersect(SortedLongSet other) {
+        SortedLongSet small = this.size <= other.size ? this : other;
+        SortedLongSet large = small == this ? other : this;
+        if (small.size == 0) {
+            return EMPTY;
+        }
+
+        long[] result = new long[small.size];
+        int count = (long) small.size * GALLOP_RATIO < large.size
+                ? gallopIntersect(small, large, result)
+                : mergeIntersect(small, large, result);
+        return wrapSorted(result, count);
+    }
+
+    /**
+     * 交集元素个数，不分配结果数组
+     */
+    public int intersectCount(SortedLongSet other) {
+        SortedLongSet small = this.size <= other.size ? this : other;
+        SortedLongSet large = small == this ? other : this;
+        if (small.size == 0) {
+            return 0;
+        }
+        return (long) small.size * GALLOP_RATIO < large.size
+                ? gallopIntersect(small, large, null)
+                : mergeIntersect(small, large, null);
+    }
+
+    /**
+     * 并集
+     */
+    public SortedLongSet union(SortedLongSet other) {
+        if (other.size == 0) {
+            return this;
+        }
+        if (size == 0) {
+            return other;
+        }
+        long[] result = new long[size + other.size];
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < size && j < other.size) {
+            long x = values[i];
+            long y = other.values[j];
+            if (x < y) {
+                result[count++] = x;
+                i++;
+            } else if (x > y) {
+                result[count++] = y;
+                j++;
+            } else {
+                result[count++] = x;
+                i++;
+                j++;
+            }
+        }
+        while (i < size) {
+            result[count++] = values[i++];
+        }
+        while (j < other.size) {
+            result[count++] = other.values[j++];
+        }
+        return wrapSorted(result, count);
+    }
+
+    /**
+     * 差集：在当前集合中但不在 other 中的元素
+     */
+    public SortedLongSet difference(SortedLongSet other) {
+        if (size == 0 || other.size == 0) {
+            return this;
+        }
+        long[] result = new long[size];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            long value = values[i];
+            while (j < other.size && other.values[j] < value) {
+                j++;
+            }
+            if (j >= other.size || other.values[j] != value) {
+                result[count++] = value;
+            }
+        }
+        return wrapSorted(result, count);
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    public List<Long> toList() {
+        List<Long> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(values[i]);
+        }
+        return list;
+    }
+
+    private static int mergeIntersect(SortedLongSet a, SortedLongSet b, long[] out) {
+        int i = 0;
+        int j = 0;
+        int count = 0;
+        while (i < a.size && j < b.size) {
+            long x = a.values[i];
+            long y = b.values[j];
+            if (x < y) {
+                i++;
+            } else if (x > y) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[count] = x;
+                }
+                count++;
+                i++;
+                j++;
+            }
+        }
+        return count;
+    }
+
+    private static int gallopIntersect(SortedLongSet small, SortedLongSet large, long[] out) {
+        int count = 0;
+        int low = 0;
+        for (int i = 0; i < small.size && low < large.size; i++) {
+            long target = small.values[i];
+
+            // 指数步长找到包含 target 的区间，再在区间内二分
+            int step = 1;
+            int high = low;
+            while (high < large.size && large.values[high] < target) {
+                low = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(large.values, low, Math.min(high + 1, large.size), target);
+            if (index >= 0) {
+                if (out != null) {
+                    out[count] = target;
+                }
+                count++;
+                low = index + 1;
+            } else {
+                low = -index - 1;
+            }
+        }
+        return count;
+    }
+}
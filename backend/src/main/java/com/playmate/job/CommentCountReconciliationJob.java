@@ -0,0 +1,113 @@
+package com.playmate.job;
+
+import com.playmate.entity.Comment;
+import com.playmate.entity.CommentStatus;
+import com.playmate.entity.Post;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 评论计数校准任务
+ * 按批次流式遍历动态，用聚合重新统计每条动态的真实评论数，修复计数漂移
+ */
+@Component
+@RequiredArgsConstructor
+public class CommentCountReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentCountReconciliationJob.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${playmate.jobs.comment-count-reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${playmate.jobs.comment-count-reconcile.cron:0 30 3 * * *}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int fixed = reconcile();
+        log.info("评论计数校准完成，修复文档数: {}，耗时: {}ms", fixed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 执行一次完整校准，返回被修复的文档数
+     */
+    public int reconcile() {
+        int fixed = 0;
+
+        Query postQuery = new Query().with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(batchSize);
+        postQuery.fields().include("id", "commentCount");
+
+        List<Post> batch = new ArrayList<>(batchSize);
+        try (Stream<Post> posts = mongoTemplate.stream(postQuery, Post.class)) {
+            Iterator<Post> iterator = posts.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize) {
+                    fixed += reconcileBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            fixed += reconcileBatch(batch);
+        }
+
+        // 历史数据中可能存在负数点赞，统一归零
+        fixed += (int) mongoTemplate.updateMulti(
+                Query.query(Criteria.where("likeCount").lt(0)),
+                Update.update("likeCount", 0),
+                Comment.class).getModifiedCount();
+
+        return fixed;
+    }
+
+    private int reconcileBatch(List<Post> posts) {
+        List<String> postIds = posts.stream().map(Post::getId).toList();
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("postId").in(postIds).and("status").is(CommentStatus.PUBLISHED.name())),
+                Aggregation.group("postId").count().as("count"));
+
+        Map<String, Integer> actualCounts = new HashMap<>();
+        mongoTemplate.aggregate(aggregation, Comment.class, Document.class)
+                .forEach(doc -> actualCounts.put(doc.getString("_id"), ((Number) doc.get("count")).intValue()));
+
+        BulkOperations bulk = null;
+        for (Post post : posts) {
+            int actual = actualCounts.getOrDefault(post.getId(), 0);
+            Integer stored = post.getCommentCount();
+            if (stored == null || stored != actual) {
+                if (bulk == null) {
+                    bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Post.class);
+                }
+                // 以读到的计数为条件覆盖，统计期间有并发 $inc 的动态留到下次校准
+                bulk.updateOne(Query.query(Criteria.where("id").is(post.getId()).and("commentCount").is(stored)),
+                        Update.update("commentCount", actual));
+            }
+        }
+
+        if (bulk == null) {
+            return 0;
+        }
+        return bulk.execute().getModifiedCount();
+    }
+}
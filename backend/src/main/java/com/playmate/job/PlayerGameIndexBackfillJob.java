@@ -0,0 +1,67 @@
+package com.playmate.job;
+
+import com.playmate.entity.Player;
+import com.playmate.repository.PlayerRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * 陪玩游戏索引补建任务
+ * 启动时为 player_games 中还没有记录的存量陪玩解析 skillTags 建立索引，之后由实体 setter 维护
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayerGameIndexBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerGameIndexBackfillJob.class);
+
+    private final PlayerRepository playerRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${playmate.jobs.player-game-index.batch-size:500}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        long start = System.currentTimeMillis();
+        long afterId = 0;
+        int total = 0;
+        while (true) {
+            long cursor = afterId;
+            List<Player> players = transactionTemplate.execute(status -> indexBatch(cursor));
+            if (players == null || players.isEmpty()) {
+                break;
+            }
+            for (Player player : players) {
+                if (!player.getGames().isEmpty()) {
+                    total++;
+                }
+            }
+            if (players.size() < batchSize) {
+                break;
+            }
+            afterId = players.get(players.size() - 1).getId();
+        }
+        if (total > 0) {
+            log.info("陪玩游戏索引补建完成，陪玩数: {}，耗时: {}ms", total, System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 按主键游标分批，标签解析为空的记录不会写入索引，也不会被重复扫描
+     */
+    private List<Player> indexBatch(long afterId) {
+        List<Player> players = playerRepository.findWithoutGameIndexAfterId(afterId, PageRequest.of(0, batchSize));
+        players.forEach(Player::refreshGames);
+        return players;
+    }
+}
@@ -0,0 +1,286 @@
+package com.playmate.job;
+
+import com.playmate.entity.PlayerRatingSummary;
+import com.playmate.entity.Rating;
+import com.playmate.repository.PlayerRepository;
+import com.playmate.search.PlayerLeaderboard;
+import com.playmate.search.PlayerSearchEngine;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 陪玩排序分计算任务
+ * 按主键游标把陪玩切成若干分片并行处理，每个分片流式读取其评价，
+ * 计算按时间衰减加权、并向全站均值做贝叶斯平滑的排序分，变化的结果批量写回 players.ranking_score。
+ * 评价很少的陪玩会被拉向全站均值，一条五星不会压过长期稳定的老陪玩
+ */
+@Component
+@RequiredArgsConstructor
+public class PlayerRankingScoreJob {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerRankingScoreJob.class);
+
+    private static final double MILLIS_PER_DAY = 86_400_000d;
+
+    private final MongoTemplate mongoTemplate;
+    private final PlayerRepository playerRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlayerSearchEngine playerSearchEngine;
+    private final PlayerLeaderboard playerLeaderboard;
+
+    @Value("${playmate.jobs.player-score.batch-size:500}")
+    private int batchSize;
+
+    @Value("${playmate.jobs.player-score.parallelism:4}")
+    private int parallelism;
+
+    // 先验强度：相当于预先给每位陪玩加上多少条全站均值评价
+    @Value("${playmate.jobs.player-score.prior-weight:10}")
+    private double priorWeight;
+
+    @Value("${playmate.jobs.player-score.default-prior-mean:4.5}")
+    private double defaultPriorMean;
+
+    @Value("${playmate.jobs.player-score.half-life-days:180}")
+    private double halfLifeDays;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile Progress progress = new Progress(0);
+
+    @Scheduled(cron = "${playmate.jobs.player-score.cron:0 30 4 * * *}")
+    public void run() {
+        if (!running.compareAndSet(false, true)) {
+            log.warn("陪玩排序分计算仍在进行，跳过本次调度");
+            return;
+        }
+        try {
+            recompute();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * 当前或最近一次运行的进度与吞吐
+     */
+    public Map<String, Object> metrics() {
+        Map<String, Object> metrics = progress.toMap();
+        metrics.put("running", running.get());
+        return metrics;
+    }
+
+    private void recompute() {
+        Progress current = new Progress(System.currentTimeMillis());
+        progress = current;
+        double priorMean = priorMean();
+        long now = System.currentTimeMillis();
+
+        // 分片在读取主键游标的同时提交，信号量限制排队中的分片数
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        Semaphore inFlight = new Semaphore(parallelism * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Object[]> rows = playerRepository.findRankingRowsAfterId(afterId, PageRequest.of(0, batchSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                List<PlayerRow> partition = new ArrayList<>(rows.size());
+                for (Object[] row : rows) {
+                    partition.add(new PlayerRow((Long) row[0], (Long) row[1], (BigDecimal) row[2]));
+                }
+                inFlight.acquire();
+                current.partitionsTotal.incrementAndGet();
+                futures.add(executor.submit(() -> {
+                    try {
+                        scorePartition(partition, priorMean, now, current);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+                if (rows.size() < batchSize) {
+                    break;
+                }
+                afterId = partition.get(partition.size() - 1).id();
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            current.failed = true;
+            log.warn("陪玩排序分计算被中断");
+        } catch (ExecutionException e) {
+            current.failed = true;
+            log.error("陪玩排序分计算失败", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            current.finishedAt = System.currentTimeMillis();
+        }
+
+        // 批量写回绕过了实体监听，内存索引与排行榜整体刷新一次
+        if (current.playersUpdated.get() > 0) {
+            playerSearchEngine.rebuild();
+            playerLeaderboard.reload();
+        }
+        log.info("陪玩排序分计算完成，陪玩数: {}，评价数: {}，更新数: {}，全站均值: {}，耗时: {}ms，吞吐: {} 条评价/秒",
+                current.playersScored.get(), current.ratingsScanned.get(), current.playersUpdated.get(),
+                String.format("%.3f", priorMean), current.elapsedMillis(), current.ratingsPerSecond());
+    }
+
+    private void scorePartition(List<PlayerRow> partition, double priorMean, long now, Progress current) {
+        Map<String, double[]> sums = new HashMap<>(partition.size() * 2);
+        for (PlayerRow row : partition) {
+            sums.put(String.valueOf(row.userId()), new double[2]);
+        }
+
+        Query query = Query.query(Criteria.where("playerId").in(sums.keySet())).cursorBatchSize(batchSize);
+        query.fields().include("playerId", "rating", "createTime");
+        long scanned = 0;
+        try (Stream<Rating> ratings = mongoTemplate.stream(query, Rating.class)) {
+            Iterator<Rating> iterator = ratings.iterator();
+            while (iterator.hasNext()) {
+                Rating rating = iterator.next();
+                double[] sum = sums.get(rating.getPlayerId());
+                if (sum == null || rating.getRating() == null) {
+                    continue;
+                }
+                double weight = decayWeight(rating.getCreateTime(), now);
+                sum[0] += weight * rating.getRating();
+                sum[1] += weight;
+                scanned++;
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        for (PlayerRow row : partition) {
+            double[] sum = sums.get(String.valueOf(row.userId()));
+            double score = (priorWeight * priorMean + sum[0]) / (priorWeight + sum[1]);
+            BigDecimal rounded = BigDecimal.valueOf(score).setScale(2, RoundingMode.HALF_UP);
+            if (row.rankingScore() == null || row.rankingScore().compareTo(rounded) != 0) {
+                updates.add(new Object[]{rounded, row.id()});
+            }
+        }
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE players SET ranking_score = ? WHERE id = ?", updates);
+        }
+
+        current.ratingsScanned.addAndGet(scanned);
+        current.playersScored.addAndGet(partition.size());
+        current.playersUpdated.addAndGet(updates.size());
+        long done = current.partitionsDone.incrementAndGet();
+        if (done % 20 == 0) {
+            log.info("陪玩排序分计算进度，分片: {}/{}，陪玩数: {}，评价数: {}，吞吐: {} 条评价/秒",
+                    done, current.partitionsTotal.get(), current.playersScored.get(),
+                    current.ratingsScanned.get(), current.ratingsPerSecond());
+        }
+    }
+
+    /**
+     * 评价权重随时间按半衰期指数衰减
+     */
+    private double decayWeight(LocalDateTime createTime, long now) {
+        if (createTime == null) {
+            return 1;
+        }
+        long ageMillis = now - createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (ageMillis <= 0) {
+            return 1;
+        }
+        return Math.pow(0.5, ageMillis / MILLIS_PER_DAY / halfLifeDays);
+    }
+
+    /**
+     * 全站评价均值，取自各陪玩的评分汇总
+     */
+    private double priorMean() {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.group().sum("sum").as("sum").sum("count").as("count"));
+        Document result = mongoTemplate.aggregate(aggregation, PlayerRatingSummary.class, Document.class)
+                .getUniqueMappedResult();
+        if (result == null) {
+            return defaultPriorMean;
+        }
+        double count = ((Number) result.get("count")).doubleValue();
+        return count > 0 ? ((Number) result.get("sum")).doubleValue() / count : defaultPriorMean;
+    }
+
+    private record PlayerRow(long id, long userId, BigDecimal rankingScore) {
+    }
+
+    /**
+     * 单次运行的计数器，分片线程并发累加
+     */
+    private static final class Progress {
+        final long startedAt;
+        final AtomicLong partitionsTotal = new AtomicLong();
+        final AtomicLong partitionsDone = new AtomicLong();
+        final AtomicLong playersScored = new AtomicLong();
+        final AtomicLong playersUpdated = new AtomicLong();
+        final AtomicLong ratingsScanned = new AtomicLong();
+        volatile long finishedAt;
+        volatile boolean failed;
+
+        Progress(long startedAt) {
+            this.startedAt = startedAt;
+        }
+
+        long elapsedMillis() {
+            if (startedAt == 0) {
+                return 0;
+            }
+            return (finishedAt > 0 ? finishedAt : System.currentTimeMillis()) - startedAt;
+        }
+
+        long ratingsPerSecond() {
+            long elapsed = elapsedMillis();
+            return elapsed > 0 ? ratingsScanned.get() * 1000 / elapsed : 0;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("startedAt", startedAt);
+            map.put("finishedAt", finishedAt);
+            map.put("failed", failed);
+            map.put("partitionsTotal", partitionsTotal.get());
+            map.put("partitionsDone", partitionsDone.get());
+            map.put("playersScored", playersScored.get());
+            map.put("playersUpdated", playersUpdated.get());
+            map.put("ratingsScanned", ratingsScanned.get());
+            map.put("elapsedMs", elapsedMillis());
+            map.put("ratingsPerSecond", ratingsPerSecond());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.playmate.job;
+
+import com.playmate.entity.PlayerRatingSummary;
+import com.playmate.service.RatingService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * 评分汇总校准任务
+ * 按批次流式遍历评分汇总，用评价集合重新统计总分、总数与星级分布，修复汇总建立时并发丢失的累加
+ */
+@Component
+@RequiredArgsConstructor
+public class RatingSummaryReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(RatingSummaryReconciliationJob.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final RatingService ratingService;
+
+    @Value("${playmate.jobs.rating-summary-reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${playmate.jobs.rating-summary-reconcile.cron:0 15 4 * * *}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int fixed = reconcile();
+        log.info("评分汇总校准完成，修复汇总数: {}，耗时: {}ms", fixed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 执行一次完整校准，返回被修复的汇总数
+     */
+    public int reconcile() {
+        int fixed = 0;
+
+        Query query = new Query().with(Sort.by(Sort.Direction.ASC, "id")).cursorBatchSize(batchSize);
+        query.fields().include("id", "sum", "count", "histogram");
+
+        List<PlayerRatingSummary> batch = new ArrayList<>(batchSize);
+        try (Stream<PlayerRatingSummary> summaries = mongoTemplate.stream(query, PlayerRatingSummary.class)) {
+            Iterator<PlayerRatingSummary> iterator = summaries.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() >= batchSize) {
+                    fixed += ratingService.reconcileSummaries(batch);
+                    batch.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            fixed += ratingService.reconcileSummaries(batch);
+        }
+        return fixed;
+    }
+}
@@ -0,0 +1,54 @@
+package com.playmate.job;
+
+import com.playmate.repository.UserRepository;
+import com.playmate.service.UserStatsService;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 用户计数校准任务
+ * 按用户ID分批，用分组统计重新计算粉丝、关注、动态和获赞数，修正 user_stats 的漂移
+ */
+@Component
+@RequiredArgsConstructor
+public class UserStatsReconciliationJob {
+
+    private static final Logger log = LoggerFactory.getLogger(UserStatsReconciliationJob.class);
+
+    private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+
+    @Value("${playmate.jobs.user-stats-reconcile.batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(cron = "${playmate.jobs.user-stats-reconcile.cron:0 0 4 * * *}")
+    public void run() {
+        long start = System.currentTimeMillis();
+        int fixed = reconcile();
+        log.info("用户计数校准完成，修复记录数: {}，耗时: {}ms", fixed, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 执行一次完整校准，返回被修复（含新建）的记录数
+     */
+    public int reconcile() {
+        int fixed = 0;
+        long afterId = 0;
+        while (true) {
+            List<Long> userIds = userRepository.findIdsAfter(afterId, PageRequest.of(0, batchSize));
+            if (userIds.isEmpty()) {
+                break;
+            }
+            fixed += userStatsService.reconcileUsers(userIds);
+            afterId = userIds.get(userIds.size() - 1);
+        }
+        return fixed;
+    }
+}
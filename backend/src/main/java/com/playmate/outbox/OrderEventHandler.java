@@ -0,0 +1,28 @@
+package com.playmate.outbox;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+
+/**
+ * 订单事件处理器，注册为 Spring Bean 即由 OrderOutboxDispatcher 投递
+ * 投递语义为至少一次：进程在处理成功与移除事件之间退出时事件会重投，实现须幂等
+ */
+public interface OrderEventHandler {
+
+    /**
+     * 处理器名，记录在事件的 deliveredTo 中，上线后不要修改
+     */
+    String name();
+
+    /**
+     * 是否处理该事件，默认处理全部类型
+     */
+    default boolean accepts(OrderEvent event) {
+        return true;
+    }
+
+    /**
+     * order 为投递时读取的订单当前状态，抛出异常则该事件按退避时间重试
+     */
+    void handle(Order order, OrderEvent event);
+}
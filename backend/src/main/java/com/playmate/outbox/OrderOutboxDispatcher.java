@@ -0,0 +1,171 @@
+package com.playmate.outbox;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 订单发件箱投递
+ * 定时按 outboxNextAttempt 索引批量取出队首事件到期的订单，交给有界线程池按订单并行投递，
+ * 同一订单的事件按追加顺序串行处理。事件全部处理器成功后才从 outbox 移除；
+ * 某个处理器失败时记下已成功的处理器并指数退避重试，前面的事件未完成时后面的事件等待，
+ * 订单的 outboxNextAttempt 同步推后到队首事件的重试时间
+ */
+@Component
+public class OrderOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxDispatcher.class);
+
+    private static final int MAX_ERROR_LENGTH = 200;
+
+    private final MongoTemplate mongoTemplate;
+    private final List<OrderEventHandler> handlers;
+    private final int batchSize;
+    private final ThreadPoolExecutor workers;
+
+    @Value("${playmate.outbox.base-backoff-ms:1000}")
+    private long baseBackoffMs;
+
+    @Value("${playmate.outbox.max-backoff-ms:300000}")
+    private long maxBackoffMs;
+
+    @Value("${playmate.outbox.alert-attempts:10}")
+    private int alertAttempts;
+
+    public OrderOutboxDispatcher(MongoTemplate mongoTemplate,
+                                 List<OrderEventHandler> handlers,
+                                 @Value("${playmate.outbox.batch-size:200}") int batchSize,
+                                 @Value("${playmate.outbox.workers:4}") int workerCount) {
+        this.mongoTemplate = mongoTemplate;
+        this.handlers = handlers;
+        this.batchSize = batchSize;
+        // 每轮最多提交 batchSize 个任务并等待完成，队列不会溢出；溢出时由轮询线程自己执行
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "order-outbox-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.outbox.poll-interval-ms:500}")
+    public void poll() {
+        if (handlers.isEmpty()) {
+            return;
+        }
+        try {
+            Query query = Query.query(Criteria.where("outboxNextAttempt").lte(LocalDateTime.now()))
+                    .with(Sort.by(Sort.Direction.ASC, "outboxNextAttempt"))
+                    .limit(batchSize);
+            List<Order> orders = mongoTemplate.find(query, Order.class);
+            if (orders.isEmpty()) {
+                return;
+            }
+            List<CompletableFuture<Void>> futures = new ArrayList<>(orders.size());
+            for (Order order : orders) {
+                futures.add(CompletableFuture.runAsync(() -> deliver(order), workers));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (RuntimeException e) {
+            log.error("订单事件投递失败", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void deliver(Order order) {
+        List<OrderEvent> events = order.getOutbox() != null ? order.getOutbox() : List.of();
+        LocalDateTime now = LocalDateTime.now();
+        for (OrderEvent event : events) {
+            // 保持同一订单内的事件顺序：队首退避中时推后整单，本次失败时 fail 已推后
+            if (event.getNextAttemptTime() != null && event.getNextAttemptTime().isAfter(now)) {
+                mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(order.getId())),
+                        new Update().set("outboxNextAttempt", event.getNextAttemptTime()), Order.class);
+                return;
+            }
+            if (!deliver(order, event)) {
+                return;
+            }
+        }
+        // 发件箱清空后去掉字段，订单不再留在稀疏索引里；期间又追加了事件则保留，下一轮继续投递
+        Criteria drained = new Criteria().orOperator(
+                Criteria.where("outbox").exists(false), Criteria.where("outbox").size(0));
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(order.getId())).addCriteria(drained),
+                new Update().unset("outbox").unset("outboxNextAttempt"), Order.class);
+    }
+
+    private boolean deliver(Order order, OrderEvent event) {
+        List<String> delivered = event.getDeliveredTo() != null ? event.getDeliveredTo() : List.of();
+        List<String> succeeded = new ArrayList<>();
+        for (OrderEventHandler handler : handlers) {
+            if (delivered.contains(handler.name()) || !handler.accepts(event)) {
+                continue;
+            }
+            try {
+                handler.handle(order, event);
+                succeeded.add(handler.name());
+            } catch (RuntimeException e) {
+                fail(order, event, handler, succeeded, e);
+                return false;
+            }
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(order.getId())),
+                new Update().pull("outbox", new Document("eventId", event.getEventId())), Order.class);
+        return true;
+    }
+
+    private void fail(Order order, OrderEvent event, OrderEventHandler handler,
+                      List<String> succeeded, RuntimeException error) {
+        int attempts = (event.getAttempts() != null ? event.getAttempts() : 0) + 1;
+        long backoff = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempts - 1, 20));
+        String message = handler.name() + ": " + error.getMessage();
+        LocalDateTime nextAttemptTime = LocalDateTime.now().plusNanos(backoff * 1_000_000L);
+        // 失败的一定是队首事件，整单随之推后
+        Update update = new Update()
+                .set("outbox.$.attempts", attempts)
+                .set("outbox.$.nextAttemptTime", nextAttemptTime)
+                .set("outboxNextAttempt", nextAttemptTime)
+                .set("outbox.$.lastError", message.length() > MAX_ERROR_LENGTH
+                        ? message.substring(0, MAX_ERROR_LENGTH) : message);
+        if (!succeeded.isEmpty()) {
+            update.addToSet("outbox.$.deliveredTo").each(succeeded.toArray());
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("id").is(order.getId()).and("outbox.eventId").is(event.getEventId())),
+                update, Order.class);
+        if (attempts >= alertAttempts) {
+            log.error("订单事件多次投递失败 orderId={} eventId={} type={} handler={} attempts={}",
+                    order.getId(), event.getEventId(), event.getType(), handler.name(), attempts, error);
+        } else {
+            log.warn("订单事件投递失败，{}ms 后重试 orderId={} eventId={} handler={}",
+                    backoff, order.getId(), event.getEventId(), handler.name(), error);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.playmate.presence;
+
+import java.util.Arrays;
+
+/**
+ * 单层时间轮，每格保存到期需要复查的用户ID
+ * 续期时只往新到期格追加一条，不删除旧记录；转到某格时由调用方复查最后活跃时间，过时记录直接丢弃。
+ * 超时时长不超过轮长，因此不需要多圈计数
+ */
+final class ExpiryWheel {
+
+    private final Bucket[] buckets;
+    private final int mask;
+
+    ExpiryWheel(int minTicks) {
+        int size = Integer.highestOneBit(Math.max(minTicks, 2) - 1) << 1;
+        buckets = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new Bucket();
+        }
+        mask = size - 1;
+    }
+
+    int size() {
+        return buckets.length;
+    }
+
+    void schedule(long tick, long userId) {
+        buckets[(int) (tick & mask)].add(userId);
+    }
+
+    /**
+     * 取出并清空某一格
+     */
+    long[] drain(long tick) {
+        return buckets[(int) (tick & mask)].drain();
+    }
+
+    private static final class Bucket {
+        private long[] ids = new long[16];
+        private int size;
+
+        synchronized void add(long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            ids[size++] = id;
+        }
+
+        synchronized long[] drain() {
+            long[] drained = Arrays.copyOf(ids, size);
+            size = 0;
+            if (ids.length > 1024) {
+                ids = new long[16];
+            }
+            return drained;
+        }
+    }
+}
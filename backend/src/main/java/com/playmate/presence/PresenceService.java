@@ -0,0 +1,252 @@
+package com.playmate.presence;
+
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.websocket.UserSessionRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 在线状态服务
+ * 用户ID -> 最后心跳时间按分段锁分片保存；过期由时间轮驱动，每个刻度只复查到期的那一格，不做全表扫描。
+ * 上下线时同步维护分游戏在线人数和陪玩搜索索引的在线位。
+ * 用户的连接数以 UserSessionRegistry 为准，这里不单独计数
+ */
+@Service
+public class PresenceService {
+
+    private static final int STRIPES = 64;
+
+    private final PlayerSearchEngine playerSearchEngine;
+    private final UserSessionRegistry userSessionRegistry;
+
+    private final long timeoutMs;
+    private final long tickMs;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ExpiryWheel wheel;
+    private final AtomicInteger onlineCount = new AtomicInteger();
+    private final Map<String, AtomicInteger> onlineByGame = new ConcurrentHashMap<>();
+
+    /** 已处理到的刻度（不含） */
+    private long processedTick;
+
+    public PresenceService(PlayerSearchEngine playerSearchEngine,
+                           UserSessionRegistry userSessionRegistry,
+                           @Value("${playmate.presence.timeout-ms:60000}") long timeoutMs,
+                           @Value("${playmate.presence.tick-ms:1000}") long tickMs) {
+        this.playerSearchEngine = playerSearchEngine;
+        this.userSessionRegistry = userSessionRegistry;
+        this.timeoutMs = timeoutMs;
+        this.tickMs = tickMs;
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.wheel = new ExpiryWheel((int) (timeoutMs / tickMs) + 2);
+        this.processedTick = System.currentTimeMillis() / tickMs;
+    }
+
+    /**
+     * 建立连接，调用前连接已登记到 UserSessionRegistry；同一用户可同时有多个连接
+     */
+    public void connect(long userId) {
+        touch(userId, System.currentTimeMillis());
+    }
+
+    public void heartbeat(long userId) {
+        touch(userId, System.currentTimeMillis());
+    }
+
+    /**
+     * 连接关闭，调用前连接已从 UserSessionRegistry 移除；最后一个连接断开时立即下线，不等超时。
+     * 超时下线后仍开着的连接重新上线时不需要补记连接数，计数也就不会漂移
+     */
+    public void disconnect(long userId) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            // 在分片锁内查注册表：新连接先登记再 touch，不会被这里误判下线
+            if (userSessionRegistry.sessionCount(userId) == 0) {
+                Entry entry = stripe.entries.remove(userId);
+                if (entry != null) {
+                    wentOffline(userId, entry);
+                }
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public boolean isOnline(long userId) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            return stripe.entries.containsKey(userId);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 批量查询在线用户，按分片分组后每个分片只加一次锁
+     */
+    public List<Long> onlineAmong(Collection<Long> userIds) {
+        List<List<Long>> grouped = new ArrayList<>(STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            grouped.add(null);
+        }
+        for (Long userId : userIds) {
+            int index = stripeIndex(userId);
+            if (grouped.get(index) == null) {
+                grouped.set(index, new ArrayList<>());
+            }
+            grouped.get(index).add(userId);
+        }
+        List<Long> online = new ArrayList<>();
+        for (int i = 0; i < STRIPES; i++) {
+            List<Long> ids = grouped.get(i);
+            if (ids == null) {
+                continue;
+            }
+            Stripe stripe = stripes[i];
+            stripe.lock.lock();
+            try {
+                for (Long id : ids) {
+                    if (stripe.entries.containsKey(id)) {
+                        online.add(id);
+                    }
+                }
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return online;
+    }
+
+    public int onlineCount() {
+        return onlineCount.get();
+    }
+
+    public int onlineCount(String normalizedGame) {
+        AtomicInteger count = onlineByGame.get(normalizedGame);
+        return count != null ? count.get() : 0;
+    }
+
+    public Map<String, Integer> onlineCountsByGame() {
+        Map<String, Integer> counts = new HashMap<>();
+        onlineByGame.forEach((game, count) -> {
+            if (count.get() > 0) {
+                counts.put(game, count.get());
+            }
+        });
+        return counts;
+    }
+
+    /**
+     * 推进时间轮，调度线程被其他任务占用时会一次补齐错过的刻度
+     */
+    @Scheduled(fixedRateString = "${playmate.presence.tick-ms:1000}")
+    public void advance() {
+        advance(System.currentTimeMillis());
+    }
+
+    synchronized void advance(long now) {
+        long currentTick = now / tickMs;
+        // 落后超过一圈时各格都会被访问到，只需处理一圈
+        long from = Math.max(processedTick, currentTick - wheel.size() + 1);
+        for (long tick = from; tick <= currentTick; tick++) {
+            for (long userId : wheel.drain(tick)) {
+                expireIfIdle(userId, now);
+            }
+        }
+        processedTick = currentTick + 1;
+    }
+
+    void touch(long userId, long now) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(userId);
+            if (entry == null) {
+                // 新连接，或超时下线后连接仍在发心跳
+                entry = new Entry();
+                stripe.entries.put(userId, entry);
+                wentOnline(userId, entry);
+            }
+            entry.lastSeen = now;
+        } finally {
+            stripe.lock.unlock();
+        }
+        wheel.schedule((now + timeoutMs) / tickMs + 1, userId);
+    }
+
+    private void expireIfIdle(long userId, long now) {
+        Stripe stripe = stripeOf(userId);
+        stripe.lock.lock();
+        try {
+            Entry entry = stripe.entries.get(userId);
+            if (entry != null && entry.lastSeen + timeoutMs <= now) {
+                stripe.entries.remove(userId);
+                wentOffline(userId, entry);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * 上下线在分片锁内完成，保证同一用户的计数和索引在线位按顺序变化
+     */
+    private void wentOnline(long userId, Entry entry) {
+        onlineCount.incrementAndGet();
+        PlayerDoc player = playerSearchEngine.getByUserId(userId);
+        if (player != null) {
+            entry.games = player.games();
+            for (String game : entry.games) {
+                onlineByGame.computeIfAbsent(game, key -> new AtomicInteger()).incrementAndGet();
+            }
+        }
+        playerSearchEngine.setOnline(userId, true);
+    }
+
+    private void wentOffline(long userId, Entry entry) {
+        onlineCount.decrementAndGet();
+        // 按上线时记录的游戏扣减，期间资料变更也不会把计数算乱
+        for (String game : entry.games) {
+            AtomicInteger count = onlineByGame.get(game);
+            if (count != null) {
+                count.decrementAndGet();
+            }
+        }
+        playerSearchEngine.setOnline(userId, false);
+    }
+
+    private Stripe stripeOf(long userId) {
+        return stripes[stripeIndex(userId)];
+    }
+
+    private static int stripeIndex(long userId) {
+        long h = userId * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 58);
+    }
+
+    private static final class Stripe {
+        final ReentrantLock lock = new ReentrantLock();
+        final Map<Long, Entry> entries = new HashMap<>();
+    }
+
+    private static final class Entry {
+        long lastSeen;
+        Set<String> games = Set.of();
+    }
+}
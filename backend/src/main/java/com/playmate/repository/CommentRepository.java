@@ -6,6 +6,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends MongoRepository<Comment, String> {
     
@@ -23,4 +27,38 @@ public interface CommentRepository extends MongoRepository<Comment, String> {
     
     @Query("{ 'postId': ?0, 'status': ?1 }")
     Page<Comment> findTopCommentsByPostId(String postId, CommentStatus status, Pageable pageable);
+    
+    /**
+     * 原子增加点赞数，返回受影响的文档数（0 表示评论不存在）
+     */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'likeCount': 1 } }")
+    long incrementLikeCount(String commentId);
+    
+    /**
+     * 原子减少点赞数，计数已为 0 时不再扣减
+     */
+    @Query("{ '_id': ?0, 'likeCount': { $gt: 0 } }")
+    @Update("{ '$inc': { 'likeCount': -1 } }")
+    long decrementLikeCount(String commentId);
+    
+    /**
+     * 只改写评论内容，点赞数保持由 $inc 维护；返回 0 表示评论不存在或不属于该用户
+     */
+    @Query("{ '_id': ?0, 'userId': ?1 }")
+    @Update("{ '$set': { 'content': ?2 } }")
+    long updateContent(String commentId, String userId, String content);
+    
+    /**
+     * 评论仍为 expected 状态时标记删除，返回受影响的文档数（0 表示状态已被并发修改）
+     */
+    @Query("{ '_id': ?0, 'status': ?1 }")
+    @Update("{ '$set': { 'status': 'DELETED' } }")
+    long markDeleted(String commentId, CommentStatus expected);
+    
+    /**
+     * 批量查询评论所属动态，只返回 postId
+     */
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'postId': 1 }")
+    List<Comment> findPostIdsByIdIn(Collection<String> commentIds);
 }
\ No newline at end of file
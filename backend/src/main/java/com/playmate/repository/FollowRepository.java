@@ -7,6 +7,8 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface FollowRepository extends JpaRepository<Follow, Long> {
@@ -35,4 +37,15 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     List<Follow> findRecentFollowingByFollowerId(@Param("userId") Long userId, @Param("status") FollowStatus status, Pageable pageable);
     
     Page<Follow> findByFollowerIdInAndStatusOrderByCreateTimeDesc(List<Long> followerIds, FollowStatus status, Pageable pageable);
+    
+    @Query("SELECT f.id, f.followerId, f.followingId FROM Follow f WHERE f.status = :status AND f.id > :afterId ORDER BY f.id")
+    List<Object[]> findEdgesAfterId(@Param("status") FollowStatus status, @Param("afterId") Long afterId, Pageable pageable);
+    
+    List<Follow> findByUpdateTimeGreaterThanEqual(LocalDateTime since);
+    
+    @Query("SELECT f.followingId, COUNT(f) FROM Follow f WHERE f.followingId IN :userIds AND f.status = :status GROUP BY f.followingId")
+    List<Object[]> countFollowersGroupByUserIds(@Param("userIds") Collection<Long> userIds, @Param("status") FollowStatus status);
+    
+    @Query("SELECT f.followerId, COUNT(f) FROM Follow f WHERE f.followerId IN :userIds AND f.status = :status GROUP BY f.followerId")
+    List<Object[]> countFollowingGroupByUserIds(@Param("userIds") Collection<Long> userIds, @Param("status") FollowStatus status);
 }
\ No newline at end of file
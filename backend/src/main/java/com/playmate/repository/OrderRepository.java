@@ -2,16 +2,35 @@ package com.playmate.repository;
 
 import com.playmate.entity.Order;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface OrderRepository extends MongoRepository<Order, String> {
     
-    List<Order> findByUserIdOrderByCreateTimeDesc(String userId);
-    
-    List<Order> findByPlayerIdOrderByCreateTimeDesc(String playerId);
+    List<Order> findTop50ByUserIdOrderByCreateTimeDesc(String userId);
     
     List<Order> findByUserIdAndStatus(String userId, String status);
+    
+    /**
+     * 未指定陪玩、等待派单的订单
+     */
+    List<Order> findByStatusAndPlayerIdIsNull(String status);
+    
+    /**
+     * 指定状态订单的陪玩ID，只取 playerId 字段
+     */
+    @Query(value = "{ 'status': { $in: ?0 }, 'playerId': { $ne: null } }", fields = "{ 'playerId': 1 }")
+    List<Order> findPlayerIdsByStatusIn(Collection<String> statuses);
+    
+    /**
+     * 指定时间之后结束的某状态订单，只取 playerId 字段，走 status_end_idx
+     */
+    @Query(value = "{ 'status': ?0, 'endTime': { $gte: ?1 }, 'playerId': { $ne: null } }", fields = "{ 'playerId': 1 }")
+    Stream<Order> streamPlayerIdsByStatusAndEndTimeAfter(String status, LocalDateTime since);
 }
\ No newline at end of file
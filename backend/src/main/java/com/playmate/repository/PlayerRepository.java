@@ -1,34 +1,129 @@
 package com.playmate.repository;
 
+import com.playmate.dto.PlayerCard;
 import com.playmate.entity.Player;
+import com.playmate.entity.SkillTags;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, Long> {
     
-    @Query("SELECT p FROM Player p WHERE p.skillTags LIKE %:game%")
-    List<Player> findByGameContainingIgnoreCase(@Param("game") String game);
+    String CARD_SELECT = "SELECT new com.playmate.dto.PlayerCard(p.id, u.id, u.nickname, u.avatar, " +
+            "p.skillTags, p.servicePrice, p.rating, p.totalOrders) ";
+    String RANGE_FILTERS = "(:minPrice IS NULL OR p.servicePrice >= :minPrice) " +
+            "AND (:maxPrice IS NULL OR p.servicePrice <= :maxPrice) " +
+            "AND (:minRating IS NULL OR p.rating >= :minRating)";
     
+    /**
+     * 按游戏精确匹配，走 player_games 索引
+     */
+    default List<Player> findByNormalizedGame(String game) {
+        return findByGameFilters(SkillTags.normalize(game), null, null, null);
+    }
+    
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT p FROM Player p WHERE p.servicePrice BETWEEN :minPrice AND :maxPrice")
     List<Player> findByPriceBetween(@Param("minPrice") BigDecimal minPrice, 
                                    @Param("maxPrice") BigDecimal maxPrice);
     
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT p FROM Player p WHERE p.rating >= :minRating")
     List<Player> findByRatingGreaterThanEqual(@Param("minRating") BigDecimal minRating);
     
+    @EntityGraph(attributePaths = "user")
     @Query("SELECT p FROM Player p ORDER BY p.rating DESC, p.totalOrders DESC")
     List<Player> findTopPlayers();
     
-    @Query("SELECT p FROM Player p WHERE p.skillTags LIKE %:game% AND p.servicePrice BETWEEN :minPrice AND :maxPrice")
-    List<Player> findByGameAndPriceRange(@Param("game") String game, 
-                                       @Param("minPrice") BigDecimal minPrice, 
-                                       @Param("maxPrice") BigDecimal maxPrice);
+    default List<Player> findByGameAndPriceRange(String game, BigDecimal minPrice, BigDecimal maxPrice) {
+        return findByGameFilters(SkillTags.normalize(game), minPrice, maxPrice, null);
+    }
+    
+    /**
+     * 游戏索引命中后再按价格、评分区间过滤，区间参数为 null 时不限制；game 需已归一化
+     */
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Player p JOIN p.games g WHERE g = :game AND " + RANGE_FILTERS +
+           " ORDER BY p.rating DESC, p.totalOrders DESC")
+    List<Player> findByGameFilters(@Param("game") String game,
+                                   @Param("minPrice") BigDecimal minPrice,
+                                   @Param("maxPrice") BigDecimal maxPrice,
+                                   @Param("minRating") BigDecimal minRating);
+    
+    /**
+     * 尚未建立游戏索引的存量陪玩
+     */
+    @Query("SELECT p FROM Player p WHERE p.id > :afterId AND p.games IS EMPTY " +
+           "AND (p.skillTags IS NOT NULL OR p.game IS NOT NULL) ORDER BY p.id")
+    List<Player> findWithoutGameIndexAfterId(@Param("afterId") Long afterId, Pageable pageable);
     
+    @EntityGraph(attributePaths = "user")
     List<Player> findAllByOrderByRatingDesc();
+    
+    Optional<Player> findByUserId(Long userId);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT p FROM Player p WHERE p.user.id = :userId")
+    Optional<Player> findWithUserByUserId(@Param("userId") Long userId);
+    
+    /**
+     * 原子累加完成单数，返回 0 表示该用户没有陪玩资料
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Player p SET p.totalOrders = COALESCE(p.totalOrders, 0) + 1 WHERE p.user.id = :userId")
+    int incrementTotalOrders(@Param("userId") Long userId);
+    
+    /**
+     * 评分有变化时才写入，返回 0 表示该用户没有陪玩资料或评分未变
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Player p SET p.rating = :rating WHERE p.user.id = :userId " +
+           "AND (p.rating IS NULL OR p.rating <> :rating)")
+    int updateRating(@Param("userId") Long userId, @Param("rating") BigDecimal rating);
+    
+    /**
+     * 陪玩卡片列表，一条 SQL 同时取出用户昵称头像，排序由 pageable 指定
+     */
+    @Query(value = CARD_SELECT + "FROM Player p JOIN p.user u WHERE " + RANGE_FILTERS,
+           countQuery = "SELECT COUNT(p) FROM Player p WHERE " + RANGE_FILTERS)
+    Page<PlayerCard> findCards(@Param("minPrice") BigDecimal minPrice,
+                               @Param("maxPrice") BigDecimal maxPrice,
+                               @Param("minRating") BigDecimal minRating,
+                               Pageable pageable);
+    
+    @Query(CARD_SELECT + "FROM Player p JOIN p.user u ORDER BY p.rating DESC, p.totalOrders DESC")
+    List<PlayerCard> findTopCards(Pageable pageable);
+    
+    /**
+     * 按游戏筛选的陪玩卡片列表，game 需已归一化
+     */
+    @Query(value = CARD_SELECT + "FROM Player p JOIN p.user u JOIN p.games g WHERE g = :game AND " + RANGE_FILTERS,
+           countQuery = "SELECT COUNT(p) FROM Player p JOIN p.games g WHERE g = :game AND " + RANGE_FILTERS)
+    Page<PlayerCard> findCardsByGame(@Param("game") String game,
+                                     @Param("minPrice") BigDecimal minPrice,
+                                     @Param("maxPrice") BigDecimal maxPrice,
+                                     @Param("minRating") BigDecimal minRating,
+                                     Pageable pageable);
+    
+    /**
+     * 按主键游标分批加载，同时取回关联用户
+     */
+    @Query("SELECT p FROM Player p JOIN FETCH p.user WHERE p.id > :afterId ORDER BY p.id")
+    List<Player> findPageAfterId(@Param("afterId") Long afterId, Pageable pageable);
+    
+    /**
+     * 排序分计算用的轻量游标：(id, 用户ID, 当前排序分)
+     */
+    @Query("SELECT p.id, p.user.id, p.rankingScore FROM Player p WHERE p.id > :afterId ORDER BY p.id")
+    List<Object[]> findRankingRowsAfterId(@Param("afterId") Long afterId, Pageable pageable);
 }
\ No newline at end of file
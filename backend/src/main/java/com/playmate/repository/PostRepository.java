@@ -7,7 +7,10 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.Update;
 import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PostRepository extends MongoRepository<Post, String> {
@@ -30,4 +33,47 @@ public interface PostRepository extends MongoRepository<Post, String> {
     Page<Post> findByGameName(PostStatus status, String gameName, Pageable pageable);
     
     long countByUserIdAndStatus(String userId, PostStatus status);
-}
\ No newline at end of file
+    
+    /**
+     * 原子增加评论数，返回受影响的文档数（0 表示动态不存在）
+     */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'commentCount': 1 } }")
+    long incrementCommentCount(String postId);
+    
+    /**
+     * 原子减少评论数，计数已为 0 时不再扣减
+     */
+    @Query("{ '_id': ?0, 'commentCount': { $gt: 0 } }")
+    @Update("{ '$inc': { 'commentCount': -1 } }")
+    long decrementCommentCount(String postId);
+    
+    /**
+     * 原子增加点赞数，返回受影响的文档数（0 表示动态不存在）
+     */
+    @Query("{ '_id': ?0 }")
+    @Update("{ '$inc': { 'likeCount': 1 } }")
+    long incrementLikeCount(String postId);
+    
+    /**
+     * 原子减少点赞数，计数已为 0 时不再扣减
+     */
+    @Query("{ '_id': ?0, 'likeCount': { $gt: 0 } }")
+    @Update("{ '$inc': { 'likeCount': -1 } }")
+    long decrementLikeCount(String postId);
+    
+    /**
+     * 只改写作者可编辑的字段，计数字段保持由 $inc 维护
+     */
+    @Query("{ '_id': ?0, 'userId': ?1 }")
+    @Update("{ '$set': { 'content': ?2, 'mediaUrls': ?3, 'type': ?4, 'updateTime': ?5 } }")
+    long updateContent(String postId, String userId, String content, String[] mediaUrls,
+                       PostType type, LocalDateTime updateTime);
+    
+    /**
+     * 动态仍为 expected 状态时标记删除，返回受影响的文档数（0 表示状态已被并发修改）
+     */
+    @Query("{ '_id': ?0, 'status': ?1 }")
+    @Update("{ '$set': { 'status': 'DELETED' } }")
+    long markDeleted(String postId, PostStatus expected);
+}
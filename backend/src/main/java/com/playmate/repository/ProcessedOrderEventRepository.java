@@ -0,0 +1,23 @@
+package com.playmate.repository;
+
+import com.playmate.entity.ProcessedOrderEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface ProcessedOrderEventRepository extends JpaRepository<ProcessedOrderEvent, Long> {
+    
+    /**
+     * 登记订单事件已处理，返回 0 表示此前已处理过；必须在业务写入所在的事务内调用，回滚时登记一并撤销
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO processed_order_events (handler, order_id, processed_at) " +
+            "VALUES (:handler, :orderId, NOW())", nativeQuery = true)
+    int insertIfAbsent(@Param("handler") String handler, @Param("orderId") String orderId);
+}
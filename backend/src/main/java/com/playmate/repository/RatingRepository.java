@@ -32,6 +32,11 @@ public interface RatingRepository extends MongoRepository<Rating, String> {
      */
     Page<Rating> findByPlayerIdOrderByCreateTimeDesc(String playerId, Pageable pageable);
     
+    /**
+     * 根据陪玩人员ID查找评价，排序由 pageable 指定
+     */
+    Page<Rating> findByPlayerId(String playerId, Pageable pageable);
+    
     /**
      * 统计陪玩人员的评价数量
      */
@@ -41,26 +46,4 @@ public interface RatingRepository extends MongoRepository<Rating, String> {
      * 统计陪玩人员的特定星级评价数量
      */
     long countByPlayerIdAndRating(String playerId, Integer rating);
-    
-    /**
-     * 计算陪玩人员的平均评分
-     */
-    @Query(value = "{ 'playerId': ?0 }", fields = "{ 'rating': 1 }")
-    List<Rating> findRatingsByPlayerId(String playerId);
-    
-    /**
-     * 使用聚合管道计算平均评分
-     */
-    default Double calculateAverageRatingByPlayerId(String playerId) {
-        List<Rating> ratings = findByPlayerIdOrderByCreateTimeDesc(playerId);
-        if (ratings.isEmpty()) {
-            return null;
-        }
-        
-        double sum = ratings.stream()
-                .mapToInt(Rating::getRating)
-                .sum();
-                
-        return sum / ratings.size();
-    }
 }
\ No newline at end of file
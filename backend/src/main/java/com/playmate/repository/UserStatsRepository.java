@@ -0,0 +1,62 @@
+package com.playmate.repository;
+
+import com.playmate.entity.UserStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface UserStatsRepository extends JpaRepository<UserStats, Long> {
+    
+    /**
+     * 原子累加已有记录的计数，计数不会小于 0；返回 0 表示记录不存在，需要按实时统计补建
+     */
+    @Modifying
+    @Query(value = "UPDATE user_stats SET " +
+            "followers_count = GREATEST(followers_count + :followers, 0), " +
+            "following_count = GREATEST(following_count + :following, 0), " +
+            "posts_count = GREATEST(posts_count + :posts, 0), " +
+            "liked_count = GREATEST(liked_count + :liked, 0), " +
+            "updated_at = NOW() " +
+            "WHERE user_id = :userId", nativeQuery = true)
+    int applyDelta(@Param("userId") Long userId,
+                   @Param("followers") int followers,
+                   @Param("following") int following,
+                   @Param("posts") int posts,
+                   @Param("liked") int liked);
+    
+    /**
+     * 记录不存在时按完整计数插入，已存在则不做修改
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO user_stats (user_id, followers_count, following_count, posts_count, liked_count, updated_at) " +
+            "VALUES (:userId, :followers, :following, :posts, :liked, NOW())", nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("followers") int followers,
+                       @Param("following") int following,
+                       @Param("posts") int posts,
+                       @Param("liked") int liked);
+    
+    /**
+     * 记录仍为读到的计数时才覆盖为校准值，期间有增量写入的记录保持不变
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE user_stats SET followers_count = :followers, following_count = :following, " +
+            "posts_count = :posts, liked_count = :liked, updated_at = NOW() " +
+            "WHERE user_id = :userId AND followers_count = :expectedFollowers AND following_count = :expectedFollowing " +
+            "AND posts_count = :expectedPosts AND liked_count = :expectedLiked", nativeQuery = true)
+    int replaceIfUnchanged(@Param("userId") Long userId,
+                           @Param("followers") int followers,
+                           @Param("following") int following,
+                           @Param("posts") int posts,
+                           @Param("liked") int liked,
+                           @Param("expectedFollowers") int expectedFollowers,
+                           @Param("expectedFollowing") int expectedFollowing,
+                           @Param("expectedPosts") int expectedPosts,
+                           @Param("expectedLiked") int expectedLiked);
+}
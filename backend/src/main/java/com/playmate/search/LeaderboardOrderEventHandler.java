@@ -0,0 +1,39 @@
+package com.playmate.search;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
+import com.playmate.graph.BlockListStore;
+import com.playmate.outbox.OrderEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单完成事件计入陪玩周榜，周榜按订单ID去重，重投的事件不会重复计数
+ */
+@Component
+public class LeaderboardOrderEventHandler implements OrderEventHandler {
+
+    private final PlayerLeaderboard playerLeaderboard;
+
+    public LeaderboardOrderEventHandler(PlayerLeaderboard playerLeaderboard) {
+        this.playerLeaderboard = playerLeaderboard;
+    }
+
+    @Override
+    public String name() {
+        return "weekly-leaderboard";
+    }
+
+    @Override
+    public boolean accepts(OrderEvent event) {
+        return OrderStatus.COMPLETED.code().equals(event.getType());
+    }
+
+    @Override
+    public void handle(Order order, OrderEvent event) {
+        Long playerId = BlockListStore.parseUserId(order.getPlayerId());
+        if (playerId != null) {
+            playerLeaderboard.onOrderCompleted(order.getId(), playerId);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.playmate.search;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.SkillTags;
+import com.playmate.graph.BlockListStore;
+import com.playmate.graph.SortedLongSet;
+import com.playmate.repository.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * 个性化陪玩排序
+ * 候选来自排行榜索引（用户偏好游戏的分游戏榜 + 总榜），按列存入原始数组后逐特征打分：
+ * 评分、接单量、近期活跃（本周完成单数与在线状态）、价格匹配度（对比用户历史下单陪玩的价格）、游戏偏好。
+ * 结果按用户缓存，TTL 较短，首页推荐反复刷新时不再重复计算
+ */
+@Component
+public class PersonalizedPlayerRanker {
+
+    private static final int HISTORY_GAME_LIMIT = 3;
+    private static final double DEFAULT_PRICE_FIT = 0.5;
+
+    private final PlayerLeaderboard leaderboard;
+    private final PlayerSearchEngine searchEngine;
+    private final OrderRepository orderRepository;
+    private final BlockListStore blockListStore;
+
+    @Value("${playmate.ranking.cache-ttl-ms:60000}")
+    private long cacheTtlMs;
+
+    @Value("${playmate.ranking.cache-max-viewers:50000}")
+    private int cacheMaxViewers;
+
+    @Value("${playmate.ranking.candidates-per-board:100}")
+    private int candidatesPerBoard;
+
+    @Value("${playmate.ranking.result-size:50}")
+    private int resultSize;
+
+    @Value("${playmate.ranking.weight.rating:0.35}")
+    private double ratingWeight;
+
+    @Value("${playmate.ranking.weight.orders:0.20}")
+    private double ordersWeight;
+
+    @Value("${playmate.ranking.weight.activity:0.15}")
+    private double activityWeight;
+
+    @Value("${playmate.ranking.weight.price:0.15}")
+    private double priceWeight;
+
+    @Value("${playmate.ranking.weight.affinity:0.15}")
+    private double affinityWeight;
+
+    private final Map<Long, CachedRanking> cache = new ConcurrentHashMap<>();
+
+    public PersonalizedPlayerRanker(PlayerLeaderboard leaderboard, PlayerSearchEngine searchEngine,
+                                    OrderRepository orderRepository, BlockListStore blockListStore) {
+        this.leaderboard = leaderboard;
+        this.searchEngine = searchEngine;
+        this.orderRepository = orderRepository;
+        this.blockListStore = blockListStore;
+    }
+
+    public boolean isReady() {
+        return leaderboard.isReady() && searchEngine.isReady();
+    }
+
+    /**
+     * 为 viewer 排序后的前 limit 名陪玩
+     */
+    public List<PlayerDoc> rank(long viewerId, int limit) {
+        long now = System.currentTimeMillis();
+        CachedRanking cached = cache.get(viewerId);
+        if (cached == null || cached.expireAt < now) {
+            cached = new CachedRanking(compute(viewerId), now + cacheTtlMs);
+            if (cache.size() < cacheMaxViewers) {
+                cache.put(viewerId, cached);
+            }
+        }
+        List<PlayerDoc> players = cached.players;
+        return players.size() > limit ? players.subList(0, limit) : players;
+    }
+
+    public void invalidate(long viewerId) {
+        cache.remove(viewerId);
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.ranking.cache-ttl-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(entry -> entry.expireAt < now);
+    }
+
+    private List<PlayerDoc> compute(long viewerId) {
+        ViewerProfile profile = profileOf(viewerId);
+        SortedLongSet blocked = blockListStore.blockedSet(viewerId);
+        LongPredicate excluded = userId -> userId == viewerId || blocked.contains(userId);
+
+        // 候选召回：偏好游戏的分游戏榜 + 总榜，按 playerId 去重
+        Map<Long, PlayerDoc> candidates = new LinkedHashMap<>();
+        for (String game : profile.topGames) {
+            for (PlayerDoc doc : leaderboard.top(PlayerLeaderboard.gameBoard(game), candidatesPerBoard, excluded)) {
+                candidates.putIfAbsent(doc.playerId(), doc);
+            }
+        }
+        for (PlayerDoc doc : leaderboard.top(PlayerLeaderboard.OVERALL, candidatesPerBoard, excluded)) {
+            candidates.putIfAbsent(doc.playerId(), doc);
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        PlayerDoc[] docs = candidates.values().toArray(new PlayerDoc[0]);
+        int n = docs.length;
+        double[] ratings = new double[n];
+        double[] orders = new double[n];
+        double[] activity = new double[n];
+        double[] priceFit = new double[n];
+        double[] affinity = new double[n];
+
+        double maxOrders = 1;
+        for (int i = 0; i < n; i++) {
+            PlayerDoc doc = docs[i];
+            ratings[i] = PlayerSearchEngine.toRatingScaled(doc.rankingRating());
+            orders[i] = doc.totalOrders();
+            maxOrders = Math.max(maxOrders, orders[i]);
+            activity[i] = Math.min(leaderboard.weeklyCompleted(doc.userId()), 10)
+                    + (searchEngine.isOnline(doc.userId()) ? 5 : 0);
+            int cents = PlayerSearchEngine.toCents(doc.price());
+            priceFit[i] = cents == Integer.MAX_VALUE ? -1 : cents;
+            double weight = 0;
+            for (String game : doc.games()) {
+                weight += profile.gameWeights.getOrDefault(game, 0.0);
+            }
+            affinity[i] = Math.min(weight, 1.0);
+        }
+
+        // 逐特征归一化到 [0, 1]，每个循环只处理一列
+        double logMaxOrders = Math.log1p(maxOrders);
+        for (int i = 0; i < n; i++) {
+            ratings[i] = ratings[i] / 500.0;
+        }
+        for (int i = 0; i < n; i++) {
+            orders[i] = Math.log1p(orders[i]) / logMaxOrders;
+        }
+        for (int i = 0; i < n; i++) {
+            activity[i] = activity[i] / 15.0;
+        }
+        double preferredCents = profile.preferredPriceCents;
+        for (int i = 0; i < n; i++) {
+            priceFit[i] = preferredCents <= 0 || priceFit[i] <= 0
+                    ? DEFAULT_PRICE_FIT
+                    : Math.exp(-Math.abs(Math.log(priceFit[i] / preferredCents)));
+        }
+
+        double[] scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            scores[i] = ratingWeight * ratings[i]
+                    + ordersWeight * orders[i]
+                    + activityWeight * activity[i]
+                    + priceWeight * priceFit[i]
+                    + affinityWeight * affinity[i];
+        }
+
+        Integer[] order = new Integer[n];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, Comparator.<Integer>comparingDouble(i -> -scores[i]).thenComparingLong(i -> docs[i].playerId()));
+        int size = Math.min(n, resultSize);
+        List<PlayerDoc> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(docs[order[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * 从最近订单推断用户偏好：常玩游戏权重与下单陪玩的价格中位数
+     */
+    private ViewerProfile profileOf(long viewerId) {
+        List<Order> history = orderRepository.findTop50ByUserIdOrderByCreateTimeDesc(String.valueOf(viewerId));
+        Map<String, Double> gameCounts = new HashMap<>();
+        List<Integer> prices = new ArrayList<>();
+        for (Order order : history) {
+            String game = SkillTags.normalize(order.getGameId());
+            if (game != null) {
+                gameCounts.merge(game, 1.0, Double::sum);
+            }
+            Long playerUserId = BlockListStore.parseUserId(order.getPlayerId());
+            PlayerDoc player = playerUserId != null ? searchEngine.getByUserId(playerUserId) : null;
+            if (player != null) {
+                int cents = PlayerSearchEngine.toCents(player.price());
+                if (cents != Integer.MAX_VALUE) {
+                    prices.add(cents);
+                }
+                for (String playerGame : player.games()) {
+                    gameCounts.merge(playerGame, 0.5, Double::sum);
+                }
+            }
+        }
+
+        double total = gameCounts.values().stream().mapToDouble(Double::doubleValue).sum();
+        Map<String, Double> weights = new HashMap<>();
+        gameCounts.forEach((game, count) -> weights.put(game, count / total));
+        List<String> topGames = gameCounts.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .limit(HISTORY_GAME_LIMIT)
+                .map(Map.Entry::getKey)
+                .toList();
+
+        double preferredPrice = 0;
+        if (!prices.isEmpty()) {
+            prices.sort(null);
+            preferredPrice = prices.get(prices.size() / 2);
+        }
+        return new ViewerProfile(topGames, weights, preferredPrice);
+    }
+
+    private record ViewerProfile(List<String> topGames, Map<String, Double> gameWeights, double preferredPriceCents) {
+    }
+
+    private record CachedRanking(List<PlayerDoc> players, long expireAt) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.playmate.search;
+
+import com.playmate.entity.Player;
+import com.playmate.entity.SkillTags;
+import com.playmate.entity.User;
+
+import java.math.BigDecimal;
+import java.util.Set;
+
+/**
+ * 内存索引中的陪玩快照，字段取自 Player 与其 User，构造后不再变化
+ */
+public record PlayerDoc(
+        long playerId,
+        long userId,
+        String nickname,
+        String avatar,
+        Set<String> games,
+        String skillTags,
+        BigDecimal price,
+        BigDecimal rating,
+        BigDecimal rankingScore,
+        int totalOrders,
+        User.Gender gender,
+        Player.CertificationStatus certificationStatus,
+        WeeklyAvailability availability) {
+
+    public static PlayerDoc of(Player player) {
+        User user = player.getUser();
+        return new PlayerDoc(
+                player.getId(),
+                user.getId(),
+                user.getNickname(),
+                user.getAvatar(),
+                Set.copyOf(SkillTags.parse(player.getSkillTags(), player.getGame())),
+                player.getSkillTags(),
+                player.getServicePrice(),
+                player.getRating(),
+                player.getRankingScore(),
+                player.getTotalOrders() != null ? player.getTotalOrders() : 0,
+                user.getGender(),
+                player.getCertificationStatus(),
+                WeeklyAvailability.parse(player.getAvailableTime()));
+    }
+
+    /**
+     * 排序使用的评分：已有批处理排序分时用排序分，否则退回原始平均分
+     */
+    public BigDecimal rankingRating() {
+        return rankingScore != null ? rankingScore : rating;
+    }
+}
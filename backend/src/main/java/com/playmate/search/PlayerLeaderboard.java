@@ -0,0 +1,348 @@
+package com.playmate.search;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderStatus;
+import com.playmate.entity.Player;
+import com.playmate.graph.BlockListStore;
+import com.playmate.graph.TransactionHooks;
+import com.playmate.repository.OrderRepository;
+import com.playmate.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * 陪玩排行榜
+ * 总榜、分游戏榜、分价位榜按 (评分, 接单数) 排序，周榜按本周完成订单数排序；
+ * 每个榜单是一棵有序跳表，成员分数变化时先删后插，取前 K 名只需顺序遍历。
+ * 榜单保存全部成员而非只保留前 K 名，名次下滑时无需回源补位。
+ * 周榜计数只存在内存，按订单去重；启动时按本周已完成的订单重建，完成事件出队前进程退出也不会丢计数
+ */
+@Component
+public class PlayerLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerLeaderboard.class);
+
+    public static final String OVERALL = "all";
+
+    private static final int MAX_LIMIT = 100;
+
+    private static final Comparator<Ranked> ORDER = Comparator
+            .comparingLong(Ranked::score).reversed()
+            .thenComparingLong(Ranked::id);
+
+    private final PlayerRepository playerRepository;
+    private final OrderRepository orderRepository;
+
+    @Value("${playmate.leaderboard.price-tiers:30,60,100}")
+    private List<BigDecimal> priceTiers;
+
+    @Value("${playmate.search.load-batch-size:2000}")
+    private int loadBatchSize;
+
+    /** 榜单名 -> 成员 (分数, playerId) */
+    private final Map<String, ConcurrentSkipListSet<Ranked>> boards = new ConcurrentHashMap<>();
+    /** playerId -> 当前入榜数据，用于更新时找到旧分数和旧榜单 */
+    private final Map<Long, PlayerDoc> members = new ConcurrentHashMap<>();
+
+    /** 周榜：陪玩用户ID -> 本周完成订单数 */
+    private final Map<Long, Integer> weeklyCounts = new ConcurrentHashMap<>();
+    /** 本周已计入的订单ID -> 陪玩用户ID，完成事件重投时据此跳过 */
+    private final Map<String, Long> weeklyOrders = new HashMap<>();
+    private final ConcurrentSkipListSet<Ranked> weeklyBoard = new ConcurrentSkipListSet<>(ORDER);
+    private int weekKey = currentWeekKey();
+
+    private volatile boolean ready;
+
+    /** 重新加载期间到达的增量，加载结束后重放，避免被加载时读到的旧数据覆盖 */
+    private List<Runnable> pendingDuringReload;
+
+    public PlayerLeaderboard(PlayerRepository playerRepository, OrderRepository orderRepository) {
+        this.playerRepository = playerRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public static String gameBoard(String normalizedGame) {
+        return "game:" + normalizedGame;
+    }
+
+    public static String tierBoard(int tier) {
+        return "tier:" + tier;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loadWeekly();
+        reload();
+    }
+
+    /**
+     * 从数据库重新读取全部陪玩入榜，用于绕过实体监听的批量更新之后
+     */
+    public void reload() {
+        long start = System.currentTimeMillis();
+        synchronized (this) {
+            pendingDuringReload = new ArrayList<>();
+        }
+        try {
+            long afterId = 0;
+            while (true) {
+                List<Player> players = playerRepository.findPageAfterId(afterId, PageRequest.of(0, loadBatchSize));
+                for (Player player : players) {
+                    if (player.getUser() != null) {
+                        upsert(PlayerDoc.of(player));
+                    }
+                }
+                if (players.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = players.get(players.size() - 1).getId();
+            }
+            synchronized (this) {
+                try {
+                    pendingDuringReload.forEach(Runnable::run);
+                } finally {
+                    pendingDuringReload = null;
+                }
+            }
+            ready = true;
+            log.info("陪玩排行榜加载完成，陪玩数: {}，榜单数: {}，耗时: {}ms",
+                    members.size(), boards.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingDuringReload = null;
+            }
+            log.error("陪玩排行榜加载失败", e);
+        }
+    }
+
+    /**
+     * 评分、接单数或资料变更，事务内调用时在提交后应用
+     */
+    public void onPlayerSaved(Player player) {
+        if (player.getId() == null || player.getUser() == null) {
+            return;
+        }
+        PlayerDoc doc = PlayerDoc.of(player);
+        TransactionHooks.afterCommit(() -> apply(() -> upsert(doc)));
+    }
+
+    public void onPlayerRemoved(long playerId) {
+        TransactionHooks.afterCommit(() -> apply(() -> remove(playerId)));
+    }
+
+    /**
+     * 订单完成，计入陪玩本周完成数；同一订单本周只计一次
+     */
+    public synchronized void onOrderCompleted(String orderId, long playerUserId) {
+        rollWeekIfNeeded();
+        if (weeklyOrders.putIfAbsent(orderId, playerUserId) == null) {
+            incrementWeekly(playerUserId);
+        }
+    }
+
+    private void incrementWeekly(long playerUserId) {
+        int count = weeklyCounts.merge(playerUserId, 1, Integer::sum);
+        if (count > 1) {
+            weeklyBoard.remove(new Ranked(count - 1, playerUserId));
+        }
+        weeklyBoard.add(new Ranked(count, playerUserId));
+    }
+
+    /**
+     * 榜单前 limit 名，excludeUser 命中的陪玩（按用户ID）跳过
+     */
+    public List<PlayerDoc> top(String board, int limit, LongPredicate excludeUser) {
+        ConcurrentSkipListSet<Ranked> ranked = boards.get(board);
+        if (ranked == null) {
+            return List.of();
+        }
+        int max = Math.min(limit, MAX_LIMIT);
+        List<PlayerDoc> result = new ArrayList<>(max);
+        for (Ranked entry : ranked) {
+            if (result.size() >= max) {
+                break;
+            }
+            PlayerDoc doc = members.get(entry.id());
+            if (doc != null && (excludeUser == null || !excludeUser.test(doc.userId()))) {
+                result.add(doc);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 本周完成订单数前 limit 名
+     */
+    public List<WeeklyEntry> weeklyTop(int limit, LongPredicate excludeUser) {
+        synchronized (this) {
+            rollWeekIfNeeded();
+        }
+        int max = Math.min(limit, MAX_LIMIT);
+        List<WeeklyEntry> result = new ArrayList<>(max);
+        for (Ranked entry : weeklyBoard) {
+            if (result.size() >= max) {
+                break;
+            }
+            if (excludeUser == null || !excludeUser.test(entry.id())) {
+                result.add(new WeeklyEntry(entry.id(), (int) entry.score()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 陪玩本周完成订单数
+     */
+    public int weeklyCompleted(long playerUserId) {
+        return weeklyCounts.getOrDefault(playerUserId, 0);
+    }
+
+    /**
+     * 价格所在价位档，档位边界由配置给出
+     */
+    public int tierOf(BigDecimal price) {
+        int tier = 0;
+        if (price != null) {
+            for (BigDecimal bound : priceTiers) {
+                if (price.compareTo(bound) >= 0) {
+                    tier++;
+                }
+            }
+        }
+        return tier;
+    }
+
+    private synchronized void apply(Runnable action) {
+        action.run();
+        if (pendingDuringReload != null) {
+            pendingDuringReload.add(action);
+        }
+    }
+
+    private synchronized void upsert(PlayerDoc doc) {
+        PlayerDoc old = members.put(doc.playerId(), doc);
+        if (old != null) {
+            Ranked oldEntry = new Ranked(score(old), old.playerId());
+            for (String board : boardsOf(old)) {
+                ConcurrentSkipListSet<Ranked> ranked = boards.get(board);
+                if (ranked != null) {
+                    ranked.remove(oldEntry);
+                }
+            }
+        }
+        Ranked entry = new Ranked(score(doc), doc.playerId());
+        for (String board : boardsOf(doc)) {
+            boards.computeIfAbsent(board, key -> new ConcurrentSkipListSet<>(ORDER)).add(entry);
+        }
+    }
+
+    private synchronized void remove(long playerId) {
+        PlayerDoc old = members.remove(playerId);
+        if (old == null) {
+            return;
+        }
+        Ranked oldEntry = new Ranked(score(old), playerId);
+        for (String board : boardsOf(old)) {
+            ConcurrentSkipListSet<Ranked> ranked = boards.get(board);
+            if (ranked != null) {
+                ranked.remove(oldEntry);
+            }
+        }
+    }
+
+    private List<String> boardsOf(PlayerDoc doc) {
+        List<String> names = new ArrayList<>(doc.games().size() + 2);
+        names.add(OVERALL);
+        names.add(tierBoard(tierOf(doc.price())));
+        for (String game : doc.games()) {
+            names.add(gameBoard(game));
+        }
+        return names;
+    }
+
+    private static long score(PlayerDoc doc) {
+        return ((long) PlayerSearchEngine.toRatingScaled(doc.rankingRating()) << 32) | doc.totalOrders();
+    }
+
+    private void rollWeekIfNeeded() {
+        int current = currentWeekKey();
+        if (current != weekKey) {
+            weekKey = current;
+            weeklyCounts.clear();
+            weeklyOrders.clear();
+            weeklyBoard.clear();
+        }
+    }
+
+    private static int currentWeekKey() {
+        LocalDate today = LocalDate.now();
+        return today.get(IsoFields.WEEK_BASED_YEAR) * 100 + today.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR);
+    }
+
+    /**
+     * 按本周完成的订单重建周榜；与同时到达的完成事件共用订单去重，先后顺序不影响结果
+     */
+    private void loadWeekly() {
+        long start = System.currentTimeMillis();
+        int week = currentWeekKey();
+        LocalDate monday = LocalDate.now().with(DayOfWeek.MONDAY);
+        int loaded = 0;
+        try (Stream<Order> orders = orderRepository.streamPlayerIdsByStatusAndEndTimeAfter(
+                OrderStatus.COMPLETED.code(), monday.atStartOfDay())) {
+            for (Order order : (Iterable<Order>) orders::iterator) {
+                Long playerUserId = BlockListStore.parseUserId(order.getPlayerId());
+                if (playerUserId != null && countInWeek(week, order.getId(), playerUserId)) {
+                    loaded++;
+                }
+            }
+            log.info("周榜重建完成，订单数: {}，陪玩数: {}，耗时: {}ms",
+                    loaded, weeklyCounts.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.error("周榜重建失败", e);
+        }
+    }
+
+    /**
+     * 重建期间跨周时，上一周的订单不计入新一周
+     */
+    private synchronized boolean countInWeek(int week, String orderId, long playerUserId) {
+        rollWeekIfNeeded();
+        if (weekKey != week || weeklyOrders.putIfAbsent(orderId, playerUserId) != null) {
+            return false;
+        }
+        incrementWeekly(playerUserId);
+        return true;
+    }
+
+    private record Ranked(long score, long id) {
+    }
+
+    /**
+     * 周榜条目
+     */
+    public record WeeklyEntry(long playerUserId, int completedOrders) {
+    }
+}
@@ -0,0 +1,589 @@
+package com.playmate.search;
+
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.Player;
+import com.playmate.entity.SkillTags;
+import com.playmate.entity.User;
+import com.playmate.graph.TransactionHooks;
+import com.playmate.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 陪玩多维筛选搜索引擎
+ * 全量陪玩按列存放在内存：游戏标签为位图，价格（分）为有序数组，性别、认证状态、在线状态也是位图，评分、接单数为定长列；
+ * 每周可接单时间按半小时槽位各建一个位图，时段筛选即对覆盖到的槽位求交；
+ * 组合筛选先做位图求交，再逐行检查标量列，排序只保留一页大小的候选，翻页使用游标
+ */
+@Component
+public class PlayerSearchEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(PlayerSearchEngine.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int NO_PRICE = Integer.MAX_VALUE;
+
+    private final PlayerRepository playerRepository;
+
+    @Value("${playmate.search.load-batch-size:2000}")
+    private int loadBatchSize;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index(1024);
+    private volatile boolean ready;
+
+    /** 在线用户，由在线状态服务维护；索引重建时据此恢复在线位 */
+    private final Set<Long> onlineUsers = ConcurrentHashMap.newKeySet();
+
+    /** 重建期间到达的增量，切换后重放 */
+    private List<Runnable> pendingDuringRebuild;
+
+    public PlayerSearchEngine(PlayerRepository playerRepository) {
+        this.playerRepository = playerRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * 定时全量重建，兜底用户昵称、头像等不经过 Player 实体的变更
+     */
+    @Scheduled(fixedDelayString = "${playmate.search.rebuild-interval-ms:600000}",
+            initialDelayString = "${playmate.search.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Index fresh = new Index(Math.max(1024, index.size));
+            long afterId = 0;
+            while (true) {
+                List<Player> players = playerRepository.findPageAfterId(afterId, PageRequest.of(0, loadBatchSize));
+                for (Player player : players) {
+                    if (player.getUser() != null) {
+                        fresh.upsert(PlayerDoc.of(player), onlineUsers);
+                    }
+                }
+                if (players.size() < loadBatchSize) {
+                    break;
+                }
+                afterId = players.get(players.size() - 1).getId();
+            }
+            lock.writeLock().lock();
+            try {
+                index = fresh;
+                pendingDuringRebuild.forEach(Runnable::run);
+            } finally {
+                pendingDuringRebuild = null;
+                lock.writeLock().unlock();
+            }
+            ready = true;
+            log.info("陪玩搜索索引构建完成，陪玩数: {}，耗时: {}ms", fresh.playerOrdinals.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                pendingDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.error("陪玩搜索索引构建失败", e);
+        }
+    }
+
+    /**
+     * 陪玩资料变更，事务内调用时在提交后应用
+     */
+    public void onPlayerSaved(Player player) {
+        if (player.getId() == null || player.getUser() == null) {
+            return;
+        }
+        PlayerDoc doc = PlayerDoc.of(player);
+        TransactionHooks.afterCommit(() -> write(() -> index.upsert(doc, onlineUsers)));
+    }
+
+    public void onPlayerRemoved(long playerId) {
+        TransactionHooks.afterCommit(() -> write(() -> index.remove(playerId)));
+    }
+
+    /**
+     * 用户上下线
+     */
+    public void setOnline(long userId, boolean online) {
+        if (online) {
+            onlineUsers.add(userId);
+        } else {
+            onlineUsers.remove(userId);
+        }
+        write(() -> index.setOnline(userId, online));
+    }
+
+    public boolean isOnline(long userId) {
+        return onlineUsers.contains(userId);
+    }
+
+    public PlayerDoc getByUserId(long userId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = index.userOrdinals.get(userId);
+            return ordinal != null ? index.docs[ordinal] : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public PlayerSearchResponse search(PlayerSearchQuery query) {
+        int size = Math.min(Math.max(query.size(), 1), MAX_PAGE_SIZE);
+        PlayerSort sort = query.sort() != null ? query.sort() : PlayerSort.RATING;
+        long[] cursor = decodeCursor(query.cursor());
+
+        lock.readLock().lock();
+        try {
+            Index idx = index;
+            LongBitmap matches = idx.filter(query);
+            int total = matches.cardinality();
+
+            // 只保留 size + 1 个，多出的一个用于判断是否还有下一页
+            TopN top = new TopN(size + 1);
+            for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+                long key = idx.sortKey(ordinal, sort);
+                long playerId = idx.playerIds[ordinal];
+                if (cursor != null && compare(key, playerId, cursor[0], cursor[1]) <= 0) {
+                    continue;
+                }
+                top.offer(key, playerId, ordinal);
+            }
+
+            PlayerSearchResponse response = new PlayerSearchResponse();
+            int count = Math.min(top.size, size);
+            List<PlayerSearchResponse.Item> items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                items.add(idx.toItem(top.ordinals[i]));
+            }
+            response.setItems(items);
+            response.setTotal(total);
+            if (top.size > size) {
+                response.setNextCursor(encodeCursor(top.keys[size - 1], top.playerIds[size - 1]));
+            }
+            response.setFacets(idx.facets(matches, total));
+            return response;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(action);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static int compare(long key, long playerId, long otherKey, long otherPlayerId) {
+        int c = Long.compare(key, otherKey);
+        return c != 0 ? c : Long.compare(playerId, otherPlayerId);
+    }
+
+    private static String encodeCursor(long key, long playerId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((key + ":" + playerId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long[] decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            return new long[]{Long.parseLong(parts[0]), Long.parseLong(parts[1])};
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    static int toCents(BigDecimal price) {
+        return price == null ? NO_PRICE : price.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValue();
+    }
+
+    static int toRatingScaled(BigDecimal rating) {
+        return rating == null ? 0 : rating.movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValue();
+    }
+
+    /**
+     * 列式索引本体，所有访问都在外层读写锁内
+     */
+    private static final class Index {
+
+        long[] playerIds;
+        long[] userIds;
+        int[] priceCents;
+        int[] ratings;
+        /** 排序用评分，筛选仍按原始平均分 */
+        int[] rankScores;
+        int[] totalOrders;
+        PlayerDoc[] docs;
+        int size;
+
+        final LongBitmap alive;
+        final LongBitmap online;
+        final LongBitmap[] genders = new LongBitmap[User.Gender.values().length];
+        final LongBitmap[] certifications = new LongBitmap[Player.CertificationStatus.values().length];
+        /** 每周时间槽位 -> 该时段可接单的行 */
+        final LongBitmap[] availability = new LongBitmap[WeeklyAvailability.SLOTS_PER_WEEK];
+        final Map<String, LongBitmap> games = new HashMap<>();
+        final Map<Long, Integer> playerOrdinals = new HashMap<>();
+        final Map<Long, Integer> userOrdinals = new HashMap<>();
+        final ArrayDeque<Integer> freeOrdinals = new ArrayDeque<>();
+
+        /** 价格有序索引，元素为 (价格分 << 32) | 行号 */
+        long[] priceIndex = new long[0];
+        int priceIndexSize;
+
+        Index(int capacity) {
+            playerIds = new long[capacity];
+            userIds = new long[capacity];
+            priceCents = new int[capacity];
+            ratings = new int[capacity];
+            rankScores = new int[capacity];
+            totalOrders = new int[capacity];
+            docs = new PlayerDoc[capacity];
+            priceIndex = new long[capacity];
+            alive = new LongBitmap(capacity);
+            online = new LongBitmap(capacity);
+            for (int i = 0; i < genders.length; i++) {
+                genders[i] = new LongBitmap(capacity);
+            }
+            for (int i = 0; i < certifications.length; i++) {
+                certifications[i] = new LongBitmap(capacity);
+            }
+            for (int i = 0; i < availability.length; i++) {
+                availability[i] = new LongBitmap(capacity);
+            }
+        }
+
+        void upsert(PlayerDoc doc, Set<Long> onlineUsers) {
+            Integer existing = playerOrdinals.get(doc.playerId());
+            int ordinal;
+            if (existing != null) {
+                ordinal = existing;
+                detach(ordinal);
+            } else {
+                ordinal = allocate();
+                playerOrdinals.put(doc.playerId(), ordinal);
+            }
+            playerIds[ordinal] = doc.playerId();
+            userIds[ordinal] = doc.userId();
+            priceCents[ordinal] = toCents(doc.price());
+            ratings[ordinal] = toRatingScaled(doc.rating());
+            rankScores[ordinal] = toRatingScaled(doc.rankingRating());
+            totalOrders[ordinal] = doc.totalOrders();
+            genders[(doc.gender() != null ? doc.gender() : User.Gender.UNKNOWN).ordinal()].set(ordinal);
+            if (doc.certificationStatus() != null) {
+                certifications[doc.certificationStatus().ordinal()].set(ordinal);
+            }
+            docs[ordinal] = doc;
+
+            for (String game : doc.games()) {
+                games.computeIfAbsent(game, key -> new LongBitmap(playerIds.length)).set(ordinal);
+            }
+            for (int slot = 0; slot < availability.length; slot++) {
+                if (doc.availability().isAvailable(slot)) {
+                    availability[slot].set(ordinal);
+                }
+            }
+            insertPrice(ordinal);
+            userOrdinals.put(doc.userId(), ordinal);
+            alive.set(ordinal);
+            if (onlineUsers.contains(doc.userId())) {
+                online.set(ordinal);
+            } else {
+                online.clear(ordinal);
+            }
+        }
+
+        void remove(long playerId) {
+            Integer ordinal = playerOrdinals.remove(playerId);
+            if (ordinal == null) {
+                return;
+            }
+            detach(ordinal);
+            alive.clear(ordinal);
+            online.clear(ordinal);
+            docs[ordinal] = null;
+            freeOrdinals.push(ordinal);
+        }
+
+        void setOnline(long userId, boolean isOnline) {
+            Integer ordinal = userOrdinals.get(userId);
+            if (ordinal == null) {
+                return;
+            }
+            if (isOnline) {
+                online.set(ordinal);
+            } else {
+                online.clear(ordinal);
+            }
+        }
+
+        /**
+         * 从游戏位图、价格索引和用户映射中摘除旧值
+         */
+        private void detach(int ordinal) {
+            PlayerDoc old = docs[ordinal];
+            if (old == null) {
+                return;
+            }
+            for (String game : old.games()) {
+                LongBitmap bitmap = games.get(game);
+                if (bitmap != null) {
+                    bitmap.clear(ordinal);
+                }
+            }
+            deletePrice(ordinal);
+            for (LongBitmap bitmap : genders) {
+                bitmap.clear(ordinal);
+            }
+            for (LongBitmap bitmap : certifications) {
+                bitmap.clear(ordinal);
+            }
+            for (int slot = 0; slot < availability.length; slot++) {
+                if (old.availability().isAvailable(slot)) {
+                    availability[slot].clear(ordinal);
+                }
+            }
+            userOrdinals.remove(old.userId(), ordinal);
+        }
+
+        private int allocate() {
+            if (!freeOrdinals.isEmpty()) {
+                return freeOrdinals.pop();
+            }
+            if (size == playerIds.length) {
+                int capacity = size * 2;
+                playerIds = Arrays.copyOf(playerIds, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                priceCents = Arrays.copyOf(priceCents, capacity);
+                ratings = Arrays.copyOf(ratings, capacity);
+                rankScores = Arrays.copyOf(rankScores, capacity);
+                totalOrders = Arrays.copyOf(totalOrders, capacity);
+                docs = Arrays.copyOf(docs, capacity);
+            }
+            return size++;
+        }
+
+        private void insertPrice(int ordinal) {
+            long entry = ((long) priceCents[ordinal] << 32) | ordinal;
+            int position = Arrays.binarySearch(priceIndex, 0, priceIndexSize, entry);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (priceIndexSize == priceIndex.length) {
+                priceIndex = Arrays.copyOf(priceIndex, Math.max(16, priceIndexSize * 2));
+            }
+            System.arraycopy(priceIndex, position, priceIndex, position + 1, priceIndexSize - position);
+            priceIndex[position] = entry;
+            priceIndexSize++;
+        }
+
+        private void deletePrice(int ordinal) {
+            long entry = ((long) priceCents[ordinal] << 32) | ordinal;
+            int position = Arrays.binarySearch(priceIndex, 0, priceIndexSize, entry);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(priceIndex, position + 1, priceIndex, position, priceIndexSize - position - 1);
+            priceIndexSize--;
+        }
+
+        LongBitmap filter(PlayerSearchQuery query) {
+            LongBitmap result = alive.copy();
+            if (query.game() != null && !query.game().isBlank()) {
+                LongBitmap bitmap = games.get(SkillTags.normalize(query.game()));
+                if (bitmap == null) {
+                    return new LongBitmap(0);
+                }
+                result.and(bitmap);
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                result.and(priceRange(query.minPrice(), query.maxPrice()));
+            }
+            if (query.onlineOnly()) {
+                result.and(online);
+            }
+            if (query.availableFrom() != null) {
+                LocalDateTime to = query.availableTo() != null
+                        ? query.availableTo()
+                        : query.availableFrom().plusMinutes(WeeklyAvailability.SLOT_MINUTES);
+                int[] range = WeeklyAvailability.slotRange(query.availableFrom(), to);
+                for (int i = 0; i < range[1]; i++) {
+                    result.and(availability[(range[0] + i) % WeeklyAvailability.SLOTS_PER_WEEK]);
+                }
+            }
+            if (query.gender() != null) {
+                result.and(genders[query.gender().ordinal()]);
+            }
+            if (query.certificationStatus() != null) {
+                result.and(certifications[query.certificationStatus().ordinal()]);
+            }
+            if (query.minRating() != null) {
+                int minRating = toRatingScaled(query.minRating());
+                for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                    if (ratings[ordinal] < minRating) {
+                        result.clear(ordinal);
+                    }
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 在价格有序索引上二分定位区间，区间内行号写入位图；未标价的陪玩不参与价格筛选
+         */
+        private LongBitmap priceRange(BigDecimal minPrice, BigDecimal maxPrice) {
+            int min = minPrice != null ? toCents(minPrice) : 0;
+            int max = maxPrice != null ? toCents(maxPrice) : NO_PRICE - 1;
+            LongBitmap bitmap = new LongBitmap(size);
+            if (min > max) {
+                return bitmap;
+            }
+            // 同价位按行号升序，命中即为该价位第一条（行号 0），否则取插入点
+            int found = Arrays.binarySearch(priceIndex, 0, priceIndexSize, (long) min << 32);
+            int from = found >= 0 ? found : -found - 1;
+            for (int i = from; i < priceIndexSize; i++) {
+                long entry = priceIndex[i];
+                if ((int) (entry >>> 32) > max) {
+                    break;
+                }
+                bitmap.set((int) entry);
+            }
+            return bitmap;
+        }
+
+        /**
+         * 升序比较的排序键，降序维度取负
+         */
+        long sortKey(int ordinal, PlayerSort sort) {
+            return switch (sort) {
+                case RATING -> -(((long) rankScores[ordinal] << 32) | totalOrders[ordinal]);
+                case ORDERS -> -(((long) totalOrders[ordinal] << 32) | (rankScores[ordinal] & 0xFFFFFFFFL));
+                case PRICE_ASC -> priceCents[ordinal];
+                case PRICE_DESC -> priceCents[ordinal] == NO_PRICE ? Long.MAX_VALUE : -priceCents[ordinal];
+            };
+        }
+
+        Map<String, Map<String, Integer>> facets(LongBitmap matches, int total) {
+            Map<String, Integer> gameCounts = new HashMap<>();
+            games.forEach((game, bitmap) -> {
+                int count = matches.andCardinality(bitmap);
+                if (count > 0) {
+                    gameCounts.put(game, count);
+                }
+            });
+
+            int onlineCount = matches.andCardinality(online);
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put("game", gameCounts);
+            facets.put("gender", enumCounts(User.Gender.values(), genders, matches));
+            facets.put("certificationStatus", enumCounts(Player.CertificationStatus.values(), certifications, matches));
+            facets.put("online", Map.of("true", onlineCount, "false", total - onlineCount));
+            return facets;
+        }
+
+        private static Map<String, Integer> enumCounts(Enum<?>[] values, LongBitmap[] bitmaps, LongBitmap matches) {
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int i = 0; i < values.length; i++) {
+                int count = matches.andCardinality(bitmaps[i]);
+                if (count > 0) {
+                    result.put(values[i].name(), count);
+                }
+            }
+            return result;
+        }
+
+        PlayerSearchResponse.Item toItem(int ordinal) {
+            PlayerDoc doc = docs[ordinal];
+            PlayerSearchResponse.Item item = new PlayerSearchResponse.Item();
+            item.setPlayerId(doc.playerId());
+            item.setUserId(doc.userId());
+            item.setNickname(doc.nickname());
+            item.setAvatar(doc.avatar());
+            item.setGames(doc.games());
+            item.setPrice(doc.price());
+            item.setRating(doc.rating());
+            item.setTotalOrders(doc.totalOrders());
+            item.setGender(doc.gender() != null ? doc.gender().name() : null);
+            item.setOnline(online.get(ordinal));
+            return item;
+        }
+    }
+
+    /**
+     * 固定容量的有序候选表，按 (排序键, playerId) 升序保留最小的若干个
+     */
+    private static final class TopN {
+        final long[] keys;
+        final long[] playerIds;
+        final int[] ordinals;
+        int size;
+
+        TopN(int capacity) {
+            keys = new long[capacity];
+            playerIds = new long[capacity];
+            ordinals = new int[capacity];
+        }
+
+        void offer(long key, long playerId, int ordinal) {
+            int capacity = keys.length;
+            if (size == capacity && compare(key, playerId, keys[size - 1], playerIds[size - 1]) >= 0) {
+                return;
+            }
+            int position = size == capacity ? size - 1 : size++;
+            while (position > 0 && compare(key, playerId, keys[position - 1], playerIds[position - 1]) < 0) {
+                keys[position] = keys[position - 1];
+                playerIds[position] = playerIds[position - 1];
+                ordinals[position] = ordinals[position - 1];
+                position--;
+            }
+            keys[position] = key;
+            playerIds[position] = playerId;
+            ordinals[position] = ordinal;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.playmate.search;
+
+import com.playmate.entity.Player;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Player 实体监听器，把写入同步到内存搜索索引和排行榜
+ * 两者都依赖 PlayerRepository，这里延迟获取以避免与 EntityManagerFactory 循环依赖
+ */
+@Component
+public class PlayerSearchIndexListener {
+
+    private final ObjectProvider<PlayerSearchEngine> searchEngine;
+    private final ObjectProvider<PlayerLeaderboard> leaderboard;
+
+    public PlayerSearchIndexListener(ObjectProvider<PlayerSearchEngine> searchEngine,
+                                     ObjectProvider<PlayerLeaderboard> leaderboard) {
+        this.searchEngine = searchEngine;
+        this.leaderboard = leaderboard;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Player player) {
+        searchEngine.getObject().onPlayerSaved(player);
+        leaderboard.getObject().onPlayerSaved(player);
+    }
+
+    @PostRemove
+    public void onRemoved(Player player) {
+        searchEngine.getObject().onPlayerRemoved(player.getId());
+        leaderboard.getObject().onPlayerRemoved(player.getId());
+    }
+}
@@ -0,0 +1,26 @@
+package com.playmate.search;
+
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 陪玩搜索条件，筛选字段为 null 表示不限
+ * availableFrom/availableTo 要求整个时段都在陪玩的每周可接单时间内，只给开始时间时按一个槽位判断
+ */
+public record PlayerSearchQuery(
+        String game,
+        BigDecimal minPrice,
+        BigDecimal maxPrice,
+        BigDecimal minRating,
+        User.Gender gender,
+        Player.CertificationStatus certificationStatus,
+        boolean onlineOnly,
+        LocalDateTime availableFrom,
+        LocalDateTime availableTo,
+        PlayerSort sort,
+        String cursor,
+        int size) {
+}
@@ -0,0 +1,13 @@
+package com.playmate.search;
+
+/**
+ * 陪玩搜索排序方式
+ */
+public enum PlayerSort {
+    /** 评分优先，其次接单数 */
+    RATING,
+    /** 接单数优先，其次评分 */
+    ORDERS,
+    PRICE_ASC,
+    PRICE_DESC
+}
@@ -0,0 +1,195 @@
+package com.playmate.search;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 陪玩每周可接单时间，按半小时切成 7 * 48 个槽位存为位图
+ * 由 Player.availableTime 解析而来，支持两种写法：
+ * 文本数组 ["周一至周五 19:00-23:00", "周末 10:00-24:00"]，
+ * 对象数组 [{"day": 1, "start": "19:00", "end": "23:00"}]（day 取 1-7 对应周一到周日）。
+ * 结束早于开始视为跨过午夜；无法识别的条目忽略。
+ * 未填写或没有任何可识别时段视为不限时段，搜索、下单校验与派单共用这一规则
+ */
+public final class WeeklyAvailability {
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+
+    public static final WeeklyAvailability ALWAYS = new WeeklyAvailability(allSlots());
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final Pattern TIME_RANGE = Pattern.compile("(\\d{1,2})[:：](\\d{2})\\s*[-~～到至]\\s*(\\d{1,2})[:：](\\d{2})");
+    private static final Pattern DAY_RANGE = Pattern.compile("(?:周|星期)([一二三四五六日天])\\s*[-~～到至]\\s*(?:周|星期)?([一二三四五六日天])");
+    private static final Pattern SINGLE_DAY = Pattern.compile("(?:周|星期)([一二三四五六日天])");
+
+    private final long[] slots;
+
+    private WeeklyAvailability(long[] slots) {
+        this.slots = slots;
+    }
+
+    public static WeeklyAvailability parse(String availableTime) {
+        if (availableTime == null || availableTime.isBlank()) {
+            return ALWAYS;
+        }
+        long[] slots = new long[ALWAYS.slots.length];
+        try {
+            JsonNode root = MAPPER.readTree(availableTime);
+            if (root.isArray()) {
+                for (JsonNode node : root) {
+                    if (node.isTextual()) {
+                        parseText(node.asText(), slots);
+                    } else if (node.isObject()) {
+                        parseObject(node, slots);
+                    }
+                }
+            } else if (root.isTextual()) {
+                parseText(root.asText(), slots);
+            }
+        } catch (Exception e) {
+            parseText(availableTime, slots);
+        }
+        return isEmpty(slots) ? ALWAYS : new WeeklyAvailability(slots);
+    }
+
+    public boolean isAvailable(int slot) {
+        return (slots[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * [from, to) 覆盖到的每个槽位都可接单；区间超过一周按整周判断
+     */
+    public boolean covers(LocalDateTime from, LocalDateTime to) {
+        int[] range = slotRange(from, to);
+        for (int i = 0; i < range[1]; i++) {
+            if (!isAvailable((range[0] + i) % SLOTS_PER_WEEK)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 时间区间对应的槽位：{起始槽位, 槽位个数}，起点向下取整、终点向上取整
+     */
+    public static int[] slotRange(LocalDateTime from, LocalDateTime to) {
+        int start = slotOf(from);
+        long minutes = Math.max(ChronoUnit.MINUTES.between(from, to), 1);
+        int offset = from.getMinute() % SLOT_MINUTES;
+        long count = (offset + minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        return new int[]{start, (int) Math.min(count, SLOTS_PER_WEEK)};
+    }
+
+    public static int slotOf(LocalDateTime time) {
+        return (time.getDayOfWeek().getValue() - 1) * SLOTS_PER_DAY
+                + (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    private static void parseObject(JsonNode node, long[] slots) {
+        int day = node.path("day").asInt(0);
+        Matcher matcher = TIME_RANGE.matcher(node.path("start").asText("") + "-" + node.path("end").asText(""));
+        if (day >= 1 && day <= 7 && matcher.find()) {
+            markRange(slots, day - 1, day - 1, matcher);
+        }
+    }
+
+    private static void parseText(String text, long[] slots) {
+        Matcher time = TIME_RANGE.matcher(text);
+        if (!time.find()) {
+            return;
+        }
+        String days = text.substring(0, time.start());
+        if (days.contains("每天") || days.contains("每日") || days.contains("全天") || days.isBlank()) {
+            markRange(slots, 0, 6, time);
+            return;
+        }
+        boolean matched = false;
+        if (days.contains("工作日")) {
+            markRange(slots, 0, 4, time);
+            matched = true;
+        }
+        if (days.contains("周末")) {
+            markRange(slots, 5, 6, time);
+            matched = true;
+        }
+        Matcher range = DAY_RANGE.matcher(days);
+        int consumedUntil = 0;
+        while (range.find()) {
+            markRange(slots, dayIndex(range.group(1)), dayIndex(range.group(2)), time);
+            consumedUntil = range.end();
+            matched = true;
+        }
+        Matcher single = SINGLE_DAY.matcher(days.substring(consumedUntil));
+        while (single.find()) {
+            int day = dayIndex(single.group(1));
+            markRange(slots, day, day, time);
+            matched = true;
+        }
+        if (!matched) {
+            markRange(slots, 0, 6, time);
+        }
+    }
+
+    /**
+     * 标记 fromDay..toDay（含，可跨周日回到周一）每天的时段
+     */
+    private static void markRange(long[] slots, int fromDay, int toDay, Matcher time) {
+        int startMinute = Integer.parseInt(time.group(1)) * 60 + Integer.parseInt(time.group(2));
+        int endMinute = Integer.parseInt(time.group(3)) * 60 + Integer.parseInt(time.group(4));
+        if (startMinute > 24 * 60 || endMinute > 24 * 60) {
+            return;
+        }
+        if (endMinute <= startMinute) {
+            endMinute += 24 * 60;
+        }
+        // 只有完整落在时段内的槽位才算可接单
+        int firstSlot = (startMinute + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        int endSlot = endMinute / SLOT_MINUTES;
+        int days = Math.floorMod(toDay - fromDay, 7) + 1;
+        for (int d = 0; d < days; d++) {
+            int base = ((fromDay + d) % 7) * SLOTS_PER_DAY;
+            for (int s = firstSlot; s < endSlot; s++) {
+                int slot = (base + s) % SLOTS_PER_WEEK;
+                slots[slot >>> 6] |= 1L << slot;
+            }
+        }
+    }
+
+    private static int dayIndex(String day) {
+        return switch (day) {
+            case "一" -> DayOfWeek.MONDAY.ordinal();
+            case "二" -> DayOfWeek.TUESDAY.ordinal();
+            case "三" -> DayOfWeek.WEDNESDAY.ordinal();
+            case "四" -> DayOfWeek.THURSDAY.ordinal();
+            case "五" -> DayOfWeek.FRIDAY.ordinal();
+            case "六" -> DayOfWeek.SATURDAY.ordinal();
+            default -> DayOfWeek.SUNDAY.ordinal();
+        };
+    }
+
+    private static long[] allSlots() {
+        long[] slots = new long[(SLOTS_PER_WEEK + 63) / 64];
+        for (int slot = 0; slot < SLOTS_PER_WEEK; slot++) {
+            slots[slot >>> 6] |= 1L << slot;
+        }
+        return slots;
+    }
+
+    private static boolean isEmpty(long[] slots) {
+        for (long word : slots) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
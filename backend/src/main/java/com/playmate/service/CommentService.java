@@ -4,10 +4,11 @@ import com.playmate.dto.CommentRequest;
 import com.playmate.dto.CommentResponse;
 import com.playmate.entity.Comment;
 import com.playmate.entity.CommentStatus;
-import com.playmate.entity.Post;
+import com.playmate.graph.BlockListStore;
 import com.playmate.repository.CommentRepository;
 import com.playmate.repository.PostRepository;
 import com.playmate.repository.UserRepository;
+import com.playmate.websocket.CommentEventPublisher;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -23,16 +24,20 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class CommentService {
     
+    private static final int MAX_DELETE_ATTEMPTS = 3;
+    
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final CommentEventPublisher commentEventPublisher;
+    private final BlockListStore blockListStore;
     
-    public Page<CommentResponse> getCommentsByPostId(String postId, Pageable pageable) {
+    public Page<CommentResponse> getCommentsByPostId(String postId, Long viewerId, Pageable pageable) {
         Page<Comment> comments = commentRepository.findByPostIdAndParentIdAndStatusOrderByCreateTimeDesc(postId, null, CommentStatus.PUBLISHED, pageable);
-        return comments.map(comment -> convertToResponse(comment, true));
+        return filterBlocked(viewerId, comments).map(comment -> convertToResponse(comment, true, viewerId));
     }
     
-    public Page<CommentResponse> getRepliesByCommentId(String commentId, CommentStatus status, Pageable pageable) {
+    public Page<CommentResponse> getRepliesByCommentId(String commentId, CommentStatus status, Long viewerId, Pageable pageable) {
         Optional<Comment> parentComment = commentRepository.findById(commentId);
         if (parentComment.isEmpty()) {
             throw new RuntimeException("评论不存在");
@@ -40,18 +45,18 @@ public class CommentService {
         
         Page<Comment> replies = commentRepository.findByPostIdAndParentIdAndStatusOrderByCreateTimeDesc(
             parentComment.get().getPostId(), commentId, status, pageable);
-        return replies.map(comment -> convertToResponse(comment, false));
+        return filterBlocked(viewerId, replies).map(comment -> convertToResponse(comment, false));
     }
     
-    public Page<CommentResponse> getUserComments(String userId, CommentStatus status, Pageable pageable) {
+    public Page<CommentResponse> getUserComments(String userId, CommentStatus status, Long viewerId, Pageable pageable) {
         Page<Comment> comments = commentRepository.findByUserIdAndStatusOrderByCreateTimeDesc(userId, status, pageable);
-        return comments.map(comment -> convertToResponse(comment, true));
+        return filterBlocked(viewerId, comments).map(comment -> convertToResponse(comment, true, viewerId));
     }
     
     @Transactional
     public CommentResponse createComment(String userId, String postId, CommentRequest request) {
-        Optional<Post> optionalPost = postRepository.findById(postId);
-        if (optionalPost.isEmpty()) {
+        // 原子更新动态的评论数，同时校验动态是否存在
+        if (postRepository.incrementCommentCount(postId) == 0) {
             throw new RuntimeException("动态不存在");
         }
         
@@ -66,12 +71,9 @@ public class CommentService {
         
         Comment savedComment = commentRepository.save(comment);
         
-        // 更新动态的评论数
-        Post post = optionalPost.get();
-        post.setCommentCount(post.getCommentCount() + 1);
-        postRepository.save(post);
-        
-        return convertToResponse(savedComment, true);
+        CommentResponse response = convertToResponse(savedComment, true);
+        commentEventPublisher.publishCreated(response);
+        return response;
     }
     
     @Transactional
@@ -86,58 +88,54 @@ public class CommentService {
             throw new RuntimeException("无权修改此评论");
         }
         
+        // 只写内容字段，整条保存会覆盖并发 $inc 的点赞数
+        commentRepository.updateContent(commentId, userId, request.getContent());
         comment.setContent(request.getContent());
-        Comment updatedComment = commentRepository.save(comment);
-        return convertToResponse(updatedComment, true);
+        return convertToResponse(comment, true);
     }
     
     @Transactional
     public void deleteComment(String commentId, String userId) {
-        Optional<Comment> optionalComment = commentRepository.findById(commentId);
-        if (optionalComment.isEmpty()) {
-            throw new RuntimeException("评论不存在");
-        }
-        
-        Comment comment = optionalComment.get();
-        if (!comment.getUserId().equals(userId)) {
-            throw new RuntimeException("无权删除此评论");
+        for (int attempt = 0; attempt < MAX_DELETE_ATTEMPTS; attempt++) {
+            Comment comment = commentRepository.findById(commentId)
+                    .orElseThrow(() -> new RuntimeException("评论不存在"));
+            if (!comment.getUserId().equals(userId)) {
+                throw new RuntimeException("无权删除此评论");
+            }
+            if (comment.getStatus() == CommentStatus.DELETED) {
+                return;
+            }
+            
+            // 以读到的状态为条件删除，并发删除只有一个能命中；状态被审核等并发修改时重读
+            if (commentRepository.markDeleted(commentId, comment.getStatus()) == 0) {
+                continue;
+            }
+            // 只有已发布的评论计入评论数
+            if (comment.getStatus() == CommentStatus.PUBLISHED) {
+                postRepository.decrementCommentCount(comment.getPostId());
+                commentEventPublisher.publishDeleted(comment.getPostId(), commentId);
+            }
+            return;
         }
-        
-        comment.setStatus(CommentStatus.DELETED);
-        commentRepository.save(comment);
-        
-        // 更新动态的评论数
-        Optional<Post> optionalPost = postRepository.findById(comment.getPostId());
-        optionalPost.ifPresent(post -> {
-            post.setCommentCount(post.getCommentCount() - 1);
-            postRepository.save(post);
-        });
+        throw new RuntimeException("评论状态已变化，请重试");
     }
     
     @Transactional
     public void likeComment(String commentId, String userId) {
-        Optional<Comment> optionalComment = commentRepository.findById(commentId);
-        if (optionalComment.isEmpty()) {
+        if (commentRepository.incrementLikeCount(commentId) == 0) {
             throw new RuntimeException("评论不存在");
         }
-        
-        Comment comment = optionalComment.get();
-        comment.setLikeCount(comment.getLikeCount() + 1);
-        commentRepository.save(comment);
+        commentEventPublisher.recordLikeDelta(commentId, 1);
     }
     
     @Transactional
     public void unlikeComment(String commentId, String userId) {
-        Optional<Comment> optionalComment = commentRepository.findById(commentId);
-        if (optionalComment.isEmpty()) {
+        // 点赞数已为 0 时不会更新，此时只需确认评论存在
+        if (commentRepository.decrementLikeCount(commentId) > 0) {
+            commentEventPublisher.recordLikeDelta(commentId, -1);
+        } else if (!commentRepository.existsById(commentId)) {
             throw new RuntimeException("评论不存在");
         }
-        
-        Comment comment = optionalComment.get();
-        if (comment.getLikeCount() > 0) {
-            comment.setLikeCount(comment.getLikeCount() - 1);
-            commentRepository.save(comment);
-        }
     }
     
     public CommentResponse getCommentById(String commentId) {
@@ -150,7 +148,15 @@ public class CommentService {
         return convertToResponse(comment, true);
     }
     
+    private Page<Comment> filterBlocked(Long viewerId, Page<Comment> comments) {
+        return blockListStore.filter(viewerId, comments, comment -> BlockListStore.parseUserId(comment.getUserId()));
+    }
+    
     private CommentResponse convertToResponse(Comment comment, boolean includeReplies) {
+        return convertToResponse(comment, includeReplies, null);
+    }
+    
+    private CommentResponse convertToResponse(Comment comment, boolean includeReplies, Long viewerId) {
         CommentResponse response = new CommentResponse();
         response.setId(comment.getId());
         response.setPostId(comment.getPostId());
@@ -198,6 +204,7 @@ public class CommentService {
                 comment.getPostId(), comment.getId(), CommentStatus.PUBLISHED, 
                 org.springframework.data.domain.PageRequest.of(0, 5)
             ).getContent();
+            replies = blockListStore.filter(viewerId, replies, reply -> BlockListStore.parseUserId(reply.getUserId()));
             
             List<CommentResponse> replyResponses = replies.stream()
                 .map(reply -> convertToResponse(reply, false))
@@ -0,0 +1,52 @@
+package com.playmate.service;
+
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+
+/**
+ * 按 (createTime, _id) 倒序翻页的游标：上一页最后一条的创建时间（毫秒）与ID
+ * 配合以 createTime、_id 结尾的复合索引，任意深度的翻页都只读取一页数据
+ */
+record CreateTimeCursor(LocalDateTime createTime, String id) {
+
+    static final Sort ORDER = Sort.by(Sort.Direction.DESC, "createTime", "_id");
+
+    static String encode(LocalDateTime createTime, String id) {
+        long millis = createTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((millis + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CreateTimeCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (!ObjectId.isValid(parts[1])) {
+                throw new IllegalArgumentException(parts[1]);
+            }
+            LocalDateTime createTime = LocalDateTime.ofInstant(
+                    Instant.ofEpochMilli(Long.parseLong(parts[0])), ZoneId.systemDefault());
+            return new CreateTimeCursor(createTime, parts[1]);
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new RuntimeException("无效的分页游标");
+        }
+    }
+
+    /**
+     * 排在游标之后的记录
+     */
+    Criteria after() {
+        return new Criteria().orOperator(
+                Criteria.where("createTime").lt(createTime),
+                Criteria.where("createTime").is(createTime).and("_id").lt(new ObjectId(id)));
+    }
+}
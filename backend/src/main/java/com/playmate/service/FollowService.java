@@ -1,12 +1,19 @@
 package com.playmate.service;
 
+import com.playmate.dto.FollowRecommendationResponse;
 import com.playmate.dto.FollowResponse;
 import com.playmate.dto.UserStatsResponse;
 import com.playmate.entity.Follow;
 import com.playmate.entity.FollowStatus;
+import com.playmate.entity.User;
+import com.playmate.graph.FollowRecommendationEngine;
+import com.playmate.graph.BlockListStore;
+import com.playmate.graph.FollowGraphStore;
+import com.playmate.graph.SortedLongSet;
+import com.playmate.graph.TransactionHooks;
 import com.playmate.repository.FollowRepository;
-import com.playmate.repository.PostRepository;
 import com.playmate.repository.UserRepository;
+import com.playmate.search.PersonalizedPlayerRanker;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -14,7 +21,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,36 +35,38 @@ public class FollowService {
     
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
-    private final PostRepository postRepository;
+    private final FollowGraphStore followGraph;
+    private final UserStatsService userStatsService;
+    private final FollowRecommendationEngine recommendationEngine;
+    private final BlockListStore blockListStore;
+    private final PersonalizedPlayerRanker personalizedPlayerRanker;
     
     public Page<FollowResponse> getFollowers(Long userId, Pageable pageable) {
         Page<Follow> follows = followRepository.findByFollowingIdAndStatusOrderByCreateTimeDesc(userId, FollowStatus.FOLLOWING, pageable);
-        return follows.map(this::convertToResponse);
+        return convertPage(follows);
     }
     
     public Page<FollowResponse> getFollowing(Long userId, Pageable pageable) {
         Page<Follow> follows = followRepository.findByFollowerIdAndStatusOrderByCreateTimeDesc(userId, FollowStatus.FOLLOWING, pageable);
-        return follows.map(this::convertToResponse);
+        return convertPage(follows);
     }
     
     public Page<FollowResponse> getMutualFollowers(Long userId1, Long userId2, Pageable pageable) {
-        List<Long> user1Following = getFollowingIds(userId1);
-        List<Long> user2Following = getFollowingIds(userId2);
-        
         // 找出共同关注的人
-        List<Long> mutualIds = user1Following.stream()
-            .filter(user2Following::contains)
-            .toList();
+        List<Long> mutualIds = getFollowingSet(userId1).intersect(getFollowingSet(userId2)).toList();
         
         if (mutualIds.isEmpty()) {
             return Page.empty();
         }
         
         Page<Follow> mutualFollows = followRepository.findByFollowerIdInAndStatusOrderByCreateTimeDesc(mutualIds, FollowStatus.FOLLOWING, pageable);
-        return mutualFollows.map(this::convertToResponse);
+        return convertPage(mutualFollows);
     }
     
     public boolean isFollowing(Long followerId, Long followingId) {
+        if (followGraph.isReady()) {
+            return followGraph.isFollowing(followerId, followingId);
+        }
         return followRepository.existsByFollowerIdAndFollowingIdAndStatus(followerId, followingId, FollowStatus.FOLLOWING);
     }
     
@@ -70,6 +85,11 @@ public class FollowService {
         // 检查是否存在之前的关注记录
         Follow follow = followRepository.findByFollowerIdAndFollowingId(followerId, followingId);
         if (follow != null) {
+            // 重新关注会覆盖之前的拉黑记录
+            if (follow.getStatus() == FollowStatus.BLOCKED) {
+                blockListStore.onUnblock(followerId, followingId);
+                invalidateRankings(followerId, followingId);
+            }
             follow.setStatus(FollowStatus.FOLLOWING);
             follow.setCreateTime(LocalDateTime.now());
         } else {
@@ -81,7 +101,9 @@ public class FollowService {
         }
         
         Follow savedFollow = followRepository.save(follow);
-        return convertToResponse(savedFollow);
+        followGraph.onFollow(followerId, followingId);
+        userStatsService.onFollowChanged(followerId, followingId, 1);
+        return convertToResponse(savedFollow, loadUsers(List.of(savedFollow)));
     }
     
     @Transactional
@@ -91,8 +113,19 @@ public class FollowService {
             throw new RuntimeException("未关注该用户");
         }
         
+        boolean wasFollowing = follow.getStatus() == FollowStatus.FOLLOWING;
+        boolean wasBlocked = follow.getStatus() == FollowStatus.BLOCKED;
         follow.setStatus(FollowStatus.REJECTED);
         followRepository.save(follow);
+        followGraph.onUnfollow(followerId, followingId);
+        // 拉黑记录被覆盖即解除拉黑，名单与排序缓存要同步
+        if (wasBlocked) {
+            blockListStore.onUnblock(followerId, followingId);
+            invalidateRankings(followerId, followingId);
+        }
+        if (wasFollowing) {
+            userStatsService.onFollowChanged(followerId, followingId, -1);
+        }
     }
     
     @Transactional
@@ -105,9 +138,16 @@ public class FollowService {
             follow.setFollowingId(blockedId);
         }
         
+        boolean wasFollowing = follow.getStatus() == FollowStatus.FOLLOWING;
         follow.setStatus(FollowStatus.BLOCKED);
         follow.setCreateTime(LocalDateTime.now());
         followRepository.save(follow);
+        followGraph.onUnfollow(blockerId, blockedId);
+        blockListStore.onBlock(blockerId, blockedId);
+        invalidateRankings(blockerId, blockedId);
+        if (wasFollowing) {
+            userStatsService.onFollowChanged(blockerId, blockedId, -1);
+        }
     }
     
     @Transactional
@@ -118,65 +158,142 @@ public class FollowService {
         }
         
         followRepository.delete(follow);
+        blockListStore.onUnblock(blockerId, blockedId);
+        invalidateRankings(blockerId, blockedId);
+    }
+    
+    /**
+     * 拉黑关系变化后丢弃双方的个性化排序缓存；注册在拉黑名单更新之后，提交后按顺序执行
+     */
+    private void invalidateRankings(Long userId, Long otherId) {
+        TransactionHooks.afterCommit(() -> {
+            personalizedPlayerRanker.invalidate(userId);
+            personalizedPlayerRanker.invalidate(otherId);
+        });
     }
     
     public UserStatsResponse getUserStats(Long userId) {
-        UserStatsResponse stats = new UserStatsResponse();
-        stats.setUserId(userId);
-        
-        // 获取粉丝数
-        long followersCount = followRepository.countByFollowingIdAndStatus(userId, FollowStatus.FOLLOWING);
-        stats.setFollowersCount((int) followersCount);
-        
-        // 获取关注数
-        long followingCount = followRepository.countByFollowerIdAndStatus(userId, FollowStatus.FOLLOWING);
-        stats.setFollowingCount((int) followingCount);
-        
-        // 获取动态数
-        long postsCount = postRepository.countByUserIdAndStatus(userId.toString(), com.playmate.entity.PostStatus.PUBLISHED);
-        stats.setPostsCount((int) postsCount);
-        
-        // 获取获赞数（需要结合点赞记录）
-        stats.setLikedCount(0);
+        return userStatsService.getStats(userId);
+    }
+    
+    /**
+     * 两个用户的共同粉丝
+     */
+    public List<Long> getCommonFollowerIds(Long userId1, Long userId2) {
+        return getFollowerSet(userId1).intersect(getFollowerSet(userId2)).toList();
+    }
+    
+    /**
+     * 互相关注的用户（我关注且关注了我）
+     */
+    public List<Long> getFriendIds(Long userId) {
+        return getFollowingSet(userId).intersect(getFollowerSet(userId)).toList();
+    }
+    
+    /**
+     * 关注了我但我尚未回关的用户
+     */
+    public List<Long> getFollowBackCandidateIds(Long userId) {
+        return getFollowerSet(userId).difference(getFollowingSet(userId)).toList();
+    }
+    
+    /**
+     * 可能认识的人：按共同关注数排序，排除已关注和拉黑关系
+     */
+    public List<FollowRecommendationResponse> getRecommendations(Long userId, int limit) {
+        List<FollowRecommendationEngine.Candidate> candidates =
+            recommendationEngine.recommend(userId, limit, blockListStore.blockedSet(userId));
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
         
-        // 设置最后活跃时间
-        stats.setLastActiveTime(LocalDateTime.now());
+        List<Long> candidateIds = candidates.stream().map(FollowRecommendationEngine.Candidate::userId).toList();
+        Map<Long, User> users = userRepository.findAllById(candidateIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
         
-        return stats;
+        List<FollowRecommendationResponse> responses = new ArrayList<>(candidates.size());
+        for (FollowRecommendationEngine.Candidate candidate : candidates) {
+            User user = users.get(candidate.userId());
+            if (user == null) {
+                continue;
+            }
+            FollowRecommendationResponse response = new FollowRecommendationResponse();
+            response.setUserId(user.getId());
+            response.setUsername(user.getUsername());
+            response.setNickname(user.getNickname());
+            response.setAvatar(user.getAvatar());
+            response.setMutualCount(candidate.mutualCount());
+            responses.add(response);
+        }
+        return responses;
+    }
+    
+    public SortedLongSet getFollowingSet(Long userId) {
+        if (followGraph.isReady()) {
+            return followGraph.followingOf(userId);
+        }
+        return SortedLongSet.of(followRepository.findFollowingIdsByFollowerIdAndStatus(userId, FollowStatus.FOLLOWING));
+    }
+    
+    public SortedLongSet getFollowerSet(Long userId) {
+        if (followGraph.isReady()) {
+            return followGraph.followersOf(userId);
+        }
+        return SortedLongSet.of(followRepository.findFollowerIdsByFollowingIdAndStatus(userId, FollowStatus.FOLLOWING));
     }
     
     public List<Long> getFollowingIds(Long userId) {
-        return followRepository.findFollowingIdsByFollowerIdAndStatus(userId, FollowStatus.FOLLOWING);
+        return getFollowingSet(userId).toList();
     }
     
     public List<Long> getFollowerIds(Long userId) {
-        return followRepository.findFollowerIdsByFollowingIdAndStatus(userId, FollowStatus.FOLLOWING);
+        return getFollowerSet(userId).toList();
+    }
+    
+    /**
+     * 整页一次性加载双方用户信息，避免逐条查询
+     */
+    private Page<FollowResponse> convertPage(Page<Follow> follows) {
+        Map<Long, User> users = loadUsers(follows.getContent());
+        return follows.map(follow -> convertToResponse(follow, users));
     }
     
-    private FollowResponse convertToResponse(Follow follow) {
+    private Map<Long, User> loadUsers(List<Follow> follows) {
+        if (follows.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> userIds = new HashSet<>(follows.size() * 2);
+        for (Follow follow : follows) {
+            userIds.add(follow.getFollowerId());
+            userIds.add(follow.getFollowingId());
+        }
+        return userRepository.findAllById(userIds).stream()
+            .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+    
+    private FollowResponse convertToResponse(Follow follow, Map<Long, User> users) {
         FollowResponse response = new FollowResponse();
         response.setId(follow.getId());
         response.setStatus(follow.getStatus());
         response.setCreateTime(follow.getCreateTime());
         
         // 设置关注者信息
-        userRepository.findById(Long.valueOf(follow.getFollowerId())).ifPresent(user -> {
-            FollowResponse.UserInfo followerInfo = new FollowResponse.UserInfo();
-            followerInfo.setId(user.getId());
-            followerInfo.setUsername(user.getUsername());
-            followerInfo.setAvatar(user.getAvatar());
-            response.setFollower(followerInfo);
-        });
+        response.setFollower(toUserInfo(users.get(follow.getFollowerId())));
         
         // 设置被关注者信息
-        userRepository.findById(Long.valueOf(follow.getFollowingId())).ifPresent(user -> {
-            FollowResponse.UserInfo followingInfo = new FollowResponse.UserInfo();
-            followingInfo.setId(user.getId());
-            followingInfo.setUsername(user.getUsername());
-            followingInfo.setAvatar(user.getAvatar());
-            response.setFollowing(followingInfo);
-        });
+        response.setFollowing(toUserInfo(users.get(follow.getFollowingId())));
         
         return response;
     }
+    
+    private FollowResponse.UserInfo toUserInfo(User user) {
+        if (user == null) {
+            return null;
+        }
+        FollowResponse.UserInfo info = new FollowResponse.UserInfo();
+        info.setId(user.getId());
+        info.setUsername(user.getUsername());
+        info.setAvatar(user.getAvatar());
+        return info;
+    }
 }
\ No newline at end of file
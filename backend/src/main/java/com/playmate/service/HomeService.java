@@ -1,25 +1,38 @@
 package com.playmate.service;
 
+import com.playmate.dto.PlayerCard;
 import com.playmate.entity.HomeContent;
-import com.playmate.entity.User;
-import com.playmate.entity.Player;
 import com.playmate.entity.Post;
+import com.playmate.entity.SkillTags;
+import com.playmate.graph.BlockListStore;
+import com.playmate.graph.SortedLongSet;
 import com.playmate.repository.HomeContentRepository;
 import com.playmate.repository.UserRepository;
 import com.playmate.repository.PlayerRepository;
 import com.playmate.repository.PostRepository;
+import com.playmate.search.PersonalizedPlayerRanker;
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerLeaderboard;
+import com.playmate.search.PlayerSearchEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.LongPredicate;
 import java.util.stream.Collectors;
 
 @Service
 public class HomeService {
 
+    static final int MAX_LIMIT = 100;
+
     @Autowired
     private HomeContentRepository homeContentRepository;
 
@@ -32,6 +45,18 @@ public class HomeService {
     @Autowired
     private PostRepository postRepository;
 
+    @Autowired
+    private BlockListStore blockListStore;
+
+    @Autowired
+    private PlayerLeaderboard playerLeaderboard;
+
+    @Autowired
+    private PlayerSearchEngine playerSearchEngine;
+
+    @Autowired
+    private PersonalizedPlayerRanker personalizedPlayerRanker;
+
     /**
      * 获取首页置顶内容
      */
@@ -44,38 +69,113 @@ public class HomeService {
     /**
      * 获取首页推荐陪玩人员
      */
-    public List<Object> getRecommendedPlayers(int limit) {
-        // 这里可以根据评分、订单量、活跃度等指标推荐陪玩人员
-        // 暂时返回评分最高的陪玩人员
-        List<Player> players = playerRepository.findAllByOrderByRatingDesc();
+    public List<Object> getRecommendedPlayers(int limit, Long viewerId) {
+        limit = clampLimit(limit);
+        // 登录用户按个性化排序，匿名访问取排行榜总榜，索引未就绪时回退到按评分查询
+        if (viewerId != null && personalizedPlayerRanker.isReady()) {
+            return personalizedPlayerRanker.rank(viewerId, limit).stream()
+                    .map(this::toPlayerInfo)
+                    .collect(Collectors.toList());
+        }
+        if (playerLeaderboard.isReady()) {
+            return playerLeaderboard.top(PlayerLeaderboard.OVERALL, limit, blockedUsers(viewerId)).stream()
+                    .map(this::toPlayerInfo)
+                    .collect(Collectors.toList());
+        }
+        // 多取被拉黑的人数，过滤后仍能凑满 limit
+        int blockedCount = viewerId != null ? blockListStore.blockedSet(viewerId).size() : 0;
+        List<PlayerCard> cards = blockListStore.filter(viewerId,
+                playerRepository.findTopCards(PageRequest.of(0, limit + blockedCount)), PlayerCard::getUserId);
         
-        return players.stream()
+        return cards.stream()
                 .limit(limit)
-                .map(player -> {
-                    User user = player.getUser();
+                .map(card -> {
                     // 转换为前端需要的格式
-                    Map<String, Object> playerInfo = Map.of(
-                        "id", user.getId(),
-                        "nickname", user.getNickname(),
-                        "avatar", user.getAvatar(),
-                        "rating", player.getRating() != null ? player.getRating().doubleValue() : 0.0,
-                        "gameTypes", player.getSkillTags() != null ? player.getSkillTags() : "",
-                        "price", player.getServicePrice() != null ? player.getServicePrice().doubleValue() : 0.0,
-                        "intro", player.getIntroduction() != null ? player.getIntroduction() : ""
-                    );
-                    return playerInfo;
+                    Map<String, Object> playerInfo = new HashMap<>();
+                    playerInfo.put("id", card.getUserId());
+                    playerInfo.put("nickname", card.getNickname() != null ? card.getNickname() : "");
+                    playerInfo.put("avatar", card.getAvatar() != null ? card.getAvatar() : "");
+                    playerInfo.put("rating", card.getRating() != null ? card.getRating().doubleValue() : 0.0);
+                    playerInfo.put("gameTypes", card.getSkillTags() != null ? card.getSkillTags() : "");
+                    playerInfo.put("price", card.getPrice() != null ? card.getPrice().doubleValue() : 0.0);
+                    playerInfo.put("totalOrders", card.getTotalOrders() != null ? card.getTotalOrders() : 0);
+                    return (Object) playerInfo;
                 })
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 获取陪玩排行榜
+     * type: overall 总榜、game 分游戏榜、tier 分价位榜、weekly 本周完成订单榜
+     */
+    public List<Object> getLeaderboard(String type, String game, BigDecimal price, int limit, Long viewerId) {
+        limit = clampLimit(limit);
+        if (!playerLeaderboard.isReady()) {
+            throw new RuntimeException("排行榜加载中，请稍后再试");
+        }
+        LongPredicate excluded = blockedUsers(viewerId);
+        String board;
+        switch (type) {
+            case "overall" -> board = PlayerLeaderboard.OVERALL;
+            case "game" -> {
+                String normalized = SkillTags.normalize(game);
+                if (normalized == null) {
+                    throw new RuntimeException("请指定游戏");
+                }
+                board = PlayerLeaderboard.gameBoard(normalized);
+            }
+            case "tier" -> board = PlayerLeaderboard.tierBoard(playerLeaderboard.tierOf(price));
+            case "weekly" -> {
+                List<Object> result = new ArrayList<>();
+                for (PlayerLeaderboard.WeeklyEntry entry : playerLeaderboard.weeklyTop(limit, excluded)) {
+                    PlayerDoc doc = playerSearchEngine.getByUserId(entry.playerUserId());
+                    Map<String, Object> playerInfo = doc != null ? toPlayerInfo(doc) : new HashMap<>(Map.of("id", entry.playerUserId()));
+                    playerInfo.put("completedOrders", entry.completedOrders());
+                    result.add(playerInfo);
+                }
+                return result;
+            }
+            default -> throw new RuntimeException("不支持的排行榜类型");
+        }
+        return playerLeaderboard.top(board, limit, excluded).stream()
+                .map(this::toPlayerInfo)
+                .collect(Collectors.toList());
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private LongPredicate blockedUsers(Long viewerId) {
+        if (viewerId == null) {
+            return null;
+        }
+        SortedLongSet blocked = blockListStore.blockedSet(viewerId);
+        return blocked.isEmpty() ? null : blocked::contains;
+    }
+
+    private Map<String, Object> toPlayerInfo(PlayerDoc doc) {
+        Map<String, Object> playerInfo = new HashMap<>();
+        playerInfo.put("id", doc.userId());
+        playerInfo.put("nickname", doc.nickname() != null ? doc.nickname() : "");
+        playerInfo.put("avatar", doc.avatar() != null ? doc.avatar() : "");
+        playerInfo.put("rating", doc.rating() != null ? doc.rating().doubleValue() : 0.0);
+        // 与数据库回退路径一致，返回原始 skillTags 字符串，games 只用于索引匹配
+        playerInfo.put("gameTypes", doc.skillTags() != null ? doc.skillTags() : "");
+        playerInfo.put("price", doc.price() != null ? doc.price().doubleValue() : 0.0);
+        playerInfo.put("totalOrders", doc.totalOrders());
+        return playerInfo;
+    }
+
     /**
      * 获取首页热门动态
      */
-    public List<Object> getHotPosts(int limit) {
+    public List<Object> getHotPosts(int limit, Long viewerId) {
         // 这里可以根据点赞数、评论数等指标获取热门动态
         // 暂时返回最新的动态
         Sort sort = Sort.by(Sort.Direction.DESC, "createTime");
-        List<Post> posts = postRepository.findAll(sort);
+        List<Post> posts = blockListStore.filter(viewerId, postRepository.findAll(sort),
+                post -> BlockListStore.parseUserId(post.getUserId()));
         
         return posts.stream()
                 .limit(limit)
@@ -1,55 +1,155 @@
 package com.playmate.service;
 
+import com.playmate.dispatch.OrderDispatchEngine;
+import com.playmate.dispatch.OrderTimeoutScheduler;
 import com.playmate.dto.CreateOrderRequest;
+import com.playmate.dto.OrderPageResponse;
 import com.playmate.dto.OrderResponse;
 import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
 import com.playmate.entity.User;
+import com.playmate.graph.BlockListStore;
 import com.playmate.repository.OrderRepository;
 import com.playmate.repository.UserRepository;
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerSearchEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import org.bson.Document;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 @Service
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final String ALL_STATUS = "all";
+
     @Autowired
     private OrderRepository orderRepository;
 
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlayerSearchEngine playerSearchEngine;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private OrderDispatchEngine orderDispatchEngine;
+
+    @Autowired
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+
     public OrderResponse createOrder(Long userId, CreateOrderRequest request) {
+        checkPlayerAvailable(request.getPlayerId(), request.getDuration());
         Order order = new Order();
         order.setUserId(userId.toString());
-        order.setPlayerId(request.getPlayerId().toString());
+        // 未指定陪玩时由派单引擎匹配
+        order.setPlayerId(request.getPlayerId() != null ? request.getPlayerId().toString() : null);
         order.setGameId(request.getGameId());
         order.setServiceType(request.getServiceType());
         order.setDuration(request.getDuration());
         order.setRequirements(request.getRequirements());
-        order.setStatus("pending");
+        order.setStatus(OrderStatus.PENDING.code());
         order.setCreateTime(LocalDateTime.now());
+        OrderEvent created = OrderEvent.of(OrderStatus.PENDING);
+        order.setOutbox(new ArrayList<>(List.of(created)));
+        order.setOutboxNextAttempt(created.getNextAttemptTime());
 
         order = orderRepository.save(order);
+        orderDispatchEngine.submit(order);
+        orderTimeoutScheduler.onOrderCreated(order);
         return convertToResponse(order);
     }
 
-    public List<OrderResponse> getUserOrders(Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByCreateTimeDesc(userId.toString());
-        return orders.stream()
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+    public OrderPageResponse getUserOrders(Long userId, String status, String cursor, int size) {
+        return findOrderPage("userId", userId, status, cursor, size);
+    }
+
+    public OrderPageResponse getPlayerOrders(Long playerId, String status, String cursor, int size) {
+        return findOrderPage("playerId", playerId, status, cursor, size);
+    }
+
+    public Map<String, Long> getUserOrderCounts(Long userId) {
+        return countByStatus("userId", userId);
+    }
+
+    public Map<String, Long> getPlayerOrderCounts(Long playerId) {
+        return countByStatus("playerId", playerId);
     }
 
-    public List<OrderResponse> getPlayerOrders(Long playerId) {
-        List<Order> orders = orderRepository.findByPlayerIdOrderByCreateTimeDesc(playerId.toString());
-        return orders.stream()
+    /**
+     * 订单历史按 (createTime, _id) 倒序游标翻页，可按状态筛选，每页只读取 size 条
+     */
+    private OrderPageResponse findOrderPage(String field, Long id, String status, String cursor, int size) {
+        if (size <= 0) {
+            throw new RuntimeException("分页参数无效");
+        }
+        size = Math.min(size, MAX_PAGE_SIZE);
+
+        Query query = Query.query(Criteria.where(field).is(id.toString()))
+                .with(CreateTimeCursor.ORDER)
+                .limit(size);
+        if (status != null && !status.isBlank() && !ALL_STATUS.equalsIgnoreCase(status)) {
+            query.addCriteria(Criteria.where("status").is(OrderStatus.fromCode(status).code()));
+        }
+        CreateTimeCursor after = CreateTimeCursor.decode(cursor);
+        if (after != null) {
+            query.addCriteria(after.after());
+        }
+        List<Order> orders = mongoTemplate.find(query, Order.class);
+
+        OrderPageResponse response = new OrderPageResponse();
+        response.setItems(orders.stream()
                 .map(this::convertToResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+        if (orders.size() == size) {
+            Order last = orders.get(orders.size() - 1);
+            response.setNextCursor(CreateTimeCursor.encode(last.getCreateTime(), last.getId()));
+        }
+        return response;
+    }
+
+    /**
+     * 各状态订单数，用于订单页签角标；只读 (field, status) 索引，不加载订单
+     */
+    private Map<String, Long> countByStatus(String field, Long id) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where(field).is(id.toString())),
+                Aggregation.group("status").count().as("count"));
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put(ALL_STATUS, 0L);
+        for (OrderStatus orderStatus : OrderStatus.values()) {
+            counts.put(orderStatus.code(), 0L);
+        }
+        long total = 0;
+        for (Document doc : mongoTemplate.aggregate(aggregation, Order.class, Document.class)) {
+            long count = ((Number) doc.get("count")).longValue();
+            String status = doc.getString("_id");
+            if (status != null && counts.containsKey(status)) {
+                counts.put(status, count);
+            }
+            total += count;
+        }
+        counts.put(ALL_STATUS, total);
+        return counts;
     }
 
     public OrderResponse getOrderById(String orderId) {
@@ -59,72 +159,134 @@ public class OrderService {
     }
 
     public OrderResponse acceptOrder(String orderId, Long playerId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        order.setPlayerId(playerId.toString());
-        order.setStatus("accepted");
-        order = orderRepository.save(order);
+        // 指定了陪玩的订单只能由该陪玩接单，未指定的订单只能由当前受邀陪玩接单
+        String player = playerId.toString();
+        Order order = transition(orderId, OrderStatus.ACCEPTED,
+                new Criteria().orOperator(Criteria.where("playerId").is(player), Criteria.where("offeredTo").is(player)),
+                o -> player.equals(o.getPlayerId()) || player.equals(o.getOfferedTo()), "无权操作此订单",
+                new Update().set("playerId", player).unset("offeredTo"));
+        orderDispatchEngine.onAccepted(orderId, playerId);
+        orderTimeoutScheduler.cancel(orderId);
         return convertToResponse(order);
     }
 
-    public OrderResponse startOrder(String orderId, Long playerId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        if (!order.getPlayerId().equals(playerId.toString())) {
-            throw new RuntimeException("无权操作此订单");
+    /**
+     * 陪玩拒绝派单邀约，订单改派给其他陪玩
+     */
+    public void declineOrder(String orderId, Long playerId) {
+        if (!orderDispatchEngine.decline(orderId, playerId)) {
+            throw new RuntimeException("没有该订单的派单邀约");
         }
-        order.setStatus("in_progress");
-        order = orderRepository.save(order);
+    }
+
+    public OrderResponse startOrder(String orderId, Long playerId) {
+        String player = playerId.toString();
+        Order order = transition(orderId, OrderStatus.IN_PROGRESS,
+                Criteria.where("playerId").is(player), o -> player.equals(o.getPlayerId()), "无权操作此订单",
+                new Update().set("startTime", LocalDateTime.now()));
+        orderTimeoutScheduler.onOrderStarted(order);
         return convertToResponse(order);
     }
 
     public OrderResponse completeOrder(String orderId, Long playerId) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        if (!order.getPlayerId().equals(playerId.toString())) {
-            throw new RuntimeException("无权操作此订单");
-        }
-        order.setStatus("completed");
-        order = orderRepository.save(order);
+        String player = playerId.toString();
+        Order order = transition(orderId, OrderStatus.COMPLETED,
+                Criteria.where("playerId").is(player), o -> player.equals(o.getPlayerId()), "无权操作此订单",
+                new Update().set("endTime", LocalDateTime.now()));
+        orderDispatchEngine.onClosed(orderId);
+        orderTimeoutScheduler.cancel(orderId);
         return convertToResponse(order);
     }
 
     public OrderResponse cancelOrder(String orderId, Long userId, String reason) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        if (!order.getUserId().equals(userId.toString())) {
-            throw new RuntimeException("无权取消此订单");
-        }
-        order.setStatus("cancelled");
-        order.setCancelReason(reason);
-        order = orderRepository.save(order);
+        String user = userId.toString();
+        Order order = transition(orderId, OrderStatus.CANCELLED,
+                Criteria.where("userId").is(user), o -> user.equals(o.getUserId()), "无权取消此订单",
+                new Update().set("cancelReason", reason));
+        orderDispatchEngine.onClosed(orderId);
+        orderTimeoutScheduler.cancel(orderId);
         return convertToResponse(order);
     }
 
     public OrderResponse rateOrder(String orderId, Long userId, String rating, String comment) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        if (!order.getUserId().equals(userId.toString())) {
+        // 只更新评价字段，整单保存会覆盖并发追加的 outbox 事件
+        Order order = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("id").is(orderId).and("userId").is(userId.toString())),
+                new Update().set("rating", rating).set("comment", comment).set("commentTime", LocalDateTime.now()),
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (order == null) {
+            orderRepository.findById(orderId).orElseThrow(() -> new RuntimeException("订单不存在"));
             throw new RuntimeException("无权评价此订单");
         }
-        order.setRating(rating);
-        order.setComment(comment);
-        order.setCommentTime(LocalDateTime.now());
-        order = orderRepository.save(order);
         return convertToResponse(order);
     }
 
     public OrderResponse updateOrderStatus(String orderId, String status) {
-        Order order = orderRepository.findById(orderId)
-                .orElseThrow(() -> new RuntimeException("订单不存在"));
-        order.setStatus(status);
-        order = orderRepository.save(order);
+        OrderStatus target = OrderStatus.fromCode(status);
+        Order order = transition(orderId, target, null, null, null, new Update());
+        Long playerId = BlockListStore.parseUserId(order.getPlayerId());
+        if (target == OrderStatus.ACCEPTED && playerId != null) {
+            orderDispatchEngine.onAccepted(orderId, playerId);
+        } else if (target == OrderStatus.COMPLETED || target == OrderStatus.CANCELLED) {
+            orderDispatchEngine.onClosed(orderId);
+        }
+        if (target == OrderStatus.IN_PROGRESS) {
+            orderTimeoutScheduler.onOrderStarted(order);
+        } else {
+            orderTimeoutScheduler.cancel(orderId);
+        }
         return convertToResponse(order);
     }
 
+    /**
+     * 状态流转：以「订单ID + 允许的来源状态 + 操作人」为条件原子地 findAndModify，
+     * 并发请求中只有一个能命中条件，成功路径不需要先读订单。
+     * 流转事件在同一次更新中追加到订单 outbox，由 OrderOutboxDispatcher 异步投递给各处理器。
+     * 未命中时才回读一次订单，区分订单不存在、无权操作与状态不允许
+     */
+    private Order transition(String orderId, OrderStatus target, Criteria actor,
+                             Predicate<Order> actorAllowed, String forbiddenMessage, Update update) {
+        Query query = Query.query(Criteria.where("id").is(orderId).and("status").in(target.previousCodes()));
+        if (actor != null) {
+            query.addCriteria(actor);
+        }
+        update.set("status", target.code());
+        OrderEvent.of(target).appendTo(update);
+        Order order = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Order.class);
+        if (order != null) {
+            return order;
+        }
+
+        Order current = orderRepository.findById(orderId)
+                .orElseThrow(() -> new RuntimeException("订单不存在"));
+        if (actorAllowed != null && !actorAllowed.test(current)) {
+            throw new RuntimeException(forbiddenMessage);
+        }
+        throw new RuntimeException("订单当前状态为 " + current.getStatus() + "，不能变更为 " + target.code());
+    }
+
+    /**
+     * 陪玩填写了可接单时间时，下单时段（当前起 duration 分钟）须完整落在其中
+     */
+    private void checkPlayerAvailable(Long playerUserId, Integer duration) {
+        if (playerUserId == null || !playerSearchEngine.isReady()) {
+            return;
+        }
+        PlayerDoc player = playerSearchEngine.getByUserId(playerUserId);
+        if (player == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        int minutes = duration != null && duration > 0 ? duration : 60;
+        if (!player.availability().covers(now, now.plusMinutes(minutes))) {
+            throw new RuntimeException("陪玩该时段不可接单");
+        }
+    }
+
     private OrderResponse convertToResponse(Order order) {
         OrderResponse response = new OrderResponse();
-        response.setId(Long.valueOf(order.getId()));
+        response.setId(order.getId());
         response.setUserId(order.getUserId());
         response.setPlayerId(order.getPlayerId());
         response.setGameId(order.getGameId());
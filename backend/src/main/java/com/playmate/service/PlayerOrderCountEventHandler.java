@@ -0,0 +1,41 @@
+package com.playmate.service;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
+import com.playmate.graph.BlockListStore;
+import com.playmate.outbox.OrderEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * 订单完成事件累加陪玩 totalOrders
+ * 去重登记与累加在同一个 MySQL 事务内提交，累加失败时登记一并回滚，重投的事件只会计入一次
+ */
+@Component
+public class PlayerOrderCountEventHandler implements OrderEventHandler {
+
+    private final PlayerService playerService;
+
+    public PlayerOrderCountEventHandler(PlayerService playerService) {
+        this.playerService = playerService;
+    }
+
+    @Override
+    public String name() {
+        return "player-total-orders";
+    }
+
+    @Override
+    public boolean accepts(OrderEvent event) {
+        return OrderStatus.COMPLETED.code().equals(event.getType());
+    }
+
+    @Override
+    public void handle(Order order, OrderEvent event) {
+        Long playerUserId = BlockListStore.parseUserId(order.getPlayerId());
+        if (playerUserId == null) {
+            return;
+        }
+        playerService.recordCompletedOrder(name(), order.getId(), playerUserId);
+    }
+}
@@ -0,0 +1,77 @@
+package com.playmate.service;
+
+import com.playmate.dto.PlayerCard;
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.SkillTags;
+import com.playmate.graph.BlockListStore;
+import com.playmate.repository.PlayerRepository;
+import com.playmate.repository.ProcessedOrderEventRepository;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.search.PlayerSearchIndexListener;
+import com.playmate.search.PlayerSearchQuery;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+@Service
+@RequiredArgsConstructor
+public class PlayerService {
+    
+    private final PlayerSearchEngine playerSearchEngine;
+    private final BlockListStore blockListStore;
+    private final PlayerRepository playerRepository;
+    private final ProcessedOrderEventRepository processedOrderEventRepository;
+    private final PlayerSearchIndexListener playerSearchIndexListener;
+    
+    /**
+     * 陪玩多维筛选搜索，结果中剔除与当前用户存在拉黑关系的陪玩
+     */
+    public PlayerSearchResponse searchPlayers(PlayerSearchQuery query, Long viewerId) {
+        if (!playerSearchEngine.isReady()) {
+            throw new RuntimeException("陪玩搜索索引加载中，请稍后再试");
+        }
+        PlayerSearchResponse response = playerSearchEngine.search(query);
+        response.setItems(blockListStore.filter(viewerId, response.getItems(), PlayerSearchResponse.Item::getUserId));
+        return response;
+    }
+    
+    /**
+     * 陪玩分页列表，直接查询数据库并投影为卡片
+     */
+    public Page<PlayerCard> listPlayers(String game, BigDecimal minPrice, BigDecimal maxPrice,
+                                        BigDecimal minRating, Long viewerId, Pageable pageable) {
+        String normalized = SkillTags.normalize(game);
+        Page<PlayerCard> cards = normalized != null
+                ? playerRepository.findCardsByGame(normalized, minPrice, maxPrice, minRating, pageable)
+                : playerRepository.findCards(minPrice, maxPrice, minRating, pageable);
+        return blockListStore.filter(viewerId, cards, PlayerCard::getUserId);
+    }
+    
+    /**
+     * 陪玩完成单数原子加一，同一事务内先登记订单，重投的完成事件不会重复累加；
+     * 批量更新不触发实体监听，重新读取后手动同步内存索引和排行榜
+     */
+    @Transactional
+    public void recordCompletedOrder(String handler, String orderId, Long playerUserId) {
+        if (processedOrderEventRepository.insertIfAbsent(handler, orderId) == 0) {
+            return;
+        }
+        if (playerRepository.incrementTotalOrders(playerUserId) > 0) {
+            playerRepository.findWithUserByUserId(playerUserId).ifPresent(playerSearchIndexListener::onSaved);
+        }
+    }
+    
+    /**
+     * 写回陪玩平均评分，只更新评分一列，同样在重新读取后同步内存索引和排行榜
+     */
+    @Transactional
+    public void recordRating(Long playerUserId, BigDecimal rating) {
+        if (playerRepository.updateRating(playerUserId, rating) > 0) {
+            playerRepository.findWithUserByUserId(playerUserId).ifPresent(playerSearchIndexListener::onSaved);
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.playmate.dto.PostResponse;
 import com.playmate.entity.Post;
 import com.playmate.entity.PostStatus;
 import com.playmate.entity.PostType;
+import com.playmate.graph.BlockListStore;
 import com.playmate.repository.PostRepository;
 import com.playmate.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
@@ -22,40 +23,45 @@ public class PostService {
     
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final UserStatsService userStatsService;
+    private final BlockListStore blockListStore;
     
-    public PostService(PostRepository postRepository, UserRepository userRepository) {
+    public PostService(PostRepository postRepository, UserRepository userRepository,
+                       UserStatsService userStatsService, BlockListStore blockListStore) {
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.userStatsService = userStatsService;
+        this.blockListStore = blockListStore;
     }
     
-    public Page<PostResponse> getPosts(PostStatus status, Pageable pageable) {
+    public Page<PostResponse> getPosts(PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByStatusOrderByCreateTimeDesc(status, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
-    public Page<PostResponse> getUserPosts(String userId, PostStatus status, Pageable pageable) {
+    public Page<PostResponse> getUserPosts(String userId, PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByUserIdAndStatusOrderByCreateTimeDesc(userId, status, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
-    public Page<PostResponse> getPostsByType(PostType type, PostStatus status, Pageable pageable) {
+    public Page<PostResponse> getPostsByType(PostType type, PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByTypeAndStatusOrderByCreateTimeDesc(type, status, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
-    public Page<PostResponse> getPostsByGame(String gameName, PostStatus status, Pageable pageable) {
+    public Page<PostResponse> getPostsByGame(String gameName, PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByGameName(status, gameName, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
-    public Page<PostResponse> searchPosts(String keyword, PostStatus status, Pageable pageable) {
+    public Page<PostResponse> searchPosts(String keyword, PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByKeyword(status, keyword, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
-    public Page<PostResponse> getPostsByUserIds(List<String> userIds, PostStatus status, Pageable pageable) {
+    public Page<PostResponse> getPostsByUserIds(List<String> userIds, PostStatus status, Long viewerId, Pageable pageable) {
         Page<Post> posts = postRepository.findByUserIdInAndStatusOrderByCreateTimeDesc(userIds, status, pageable);
-        return posts.map(this::convertToResponse);
+        return filterBlocked(viewerId, posts).map(this::convertToResponse);
     }
     
     @Transactional
@@ -70,6 +76,7 @@ public class PostService {
         post.setCreateTime(LocalDateTime.now());
         
         Post savedPost = postRepository.save(post);
+        userStatsService.onPostCountChanged(userId, 1);
         return convertToResponse(savedPost);
     }
     
@@ -86,13 +93,15 @@ public class PostService {
             throw new RuntimeException("无权修改此动态");
         }
         
+        // 只写可编辑字段，整条保存会覆盖并发 $inc 的点赞数与评论数
+        String[] mediaUrls = request.getImages() != null ? request.getImages().toArray(new String[0]) : new String[0];
+        LocalDateTime now = LocalDateTime.now();
+        postRepository.updateContent(postId, userId, request.getContent(), mediaUrls, request.getType(), now);
         post.setContent(request.getContent());
-        post.setMediaUrls(request.getImages() != null ? request.getImages().toArray(new String[0]) : new String[0]);
+        post.setMediaUrls(mediaUrls);
         post.setType(request.getType());
-        post.setUpdateTime(LocalDateTime.now());
-        
-        Post updatedPost = postRepository.save(post);
-        return convertToResponse(updatedPost);
+        post.setUpdateTime(now);
+        return convertToResponse(post);
     }
     
     @Transactional
@@ -107,36 +116,37 @@ public class PostService {
         if (!post.getUserId().equals(userId)) {
             throw new RuntimeException("无权删除此动态");
         }
+        if (post.getStatus() == PostStatus.DELETED) {
+            return;
+        }
         
-        post.setStatus(PostStatus.DELETED);
-        postRepository.save(post);
+        // 按读到的状态条件删除，并发删除时只有一次会扣减统计
+        if (postRepository.markDeleted(postId, post.getStatus()) == 0) {
+            throw new RuntimeException("动态状态已变化，请重试");
+        }
+        if (post.getStatus() == PostStatus.PUBLISHED) {
+            userStatsService.onPostCountChanged(userId, -1);
+            userStatsService.onLikeReceived(userId, -post.getLikeCount());
+        }
     }
     
     @Transactional
     @SuppressWarnings("null")
     public void likePost(String postId, String userId) {
-        Optional<Post> optionalPost = postRepository.findById(postId);
-        if (optionalPost.isEmpty()) {
-            throw new RuntimeException("动态不存在");
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new RuntimeException("动态不存在"));
+        if (postRepository.incrementLikeCount(postId) > 0) {
+            userStatsService.onLikeReceived(post.getUserId(), 1);
         }
-        
-        Post post = optionalPost.get();
-        post.setLikeCount(post.getLikeCount() + 1);
-        postRepository.save(post);
     }
     
     @Transactional
     @SuppressWarnings("null")
     public void unlikePost(String postId, String userId) {
-        Optional<Post> optionalPost = postRepository.findById(postId);
-        if (optionalPost.isEmpty()) {
-            throw new RuntimeException("动态不存在");
-        }
-        
-        Post post = optionalPost.get();
-        if (post.getLikeCount() > 0) {
-            post.setLikeCount(post.getLikeCount() - 1);
-            postRepository.save(post);
+        Post post = postRepository.findById(postId)
+                .orElseThrow(() -> new RuntimeException("动态不存在"));
+        if (postRepository.decrementLikeCount(postId) > 0) {
+            userStatsService.onLikeReceived(post.getUserId(), -1);
         }
     }
     
@@ -151,6 +161,10 @@ public class PostService {
         return convertToResponse(post);
     }
     
+    private Page<Post> filterBlocked(Long viewerId, Page<Post> posts) {
+        return blockListStore.filter(viewerId, posts, post -> BlockListStore.parseUserId(post.getUserId()));
+    }
+    
     private PostResponse convertToResponse(Post post) {
         PostResponse response = new PostResponse();
         response.setId(Long.valueOf(post.getId()));
@@ -1,28 +1,61 @@
 package com.playmate.service;
 
+import com.playmate.dto.RatingPageResponse;
 import com.playmate.dto.RatingRequest;
 import com.playmate.dto.RatingResponse;
+import com.playmate.entity.PlayerRatingSummary;
 import com.playmate.entity.Rating;
+import com.playmate.entity.TagSketch;
 import com.playmate.entity.Order;
+import com.playmate.entity.OrderStatus;
 import com.playmate.entity.User;
+import com.playmate.graph.BlockListStore;
 import com.playmate.repository.RatingRepository;
 import com.playmate.repository.OrderRepository;
 import com.playmate.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.bson.Document;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class RatingService {
 
+    private static final Logger log = LoggerFactory.getLogger(RatingService.class);
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int TOP_TAGS = 5;
+    /** 增量更新标签连续冲突这么多次后改为按评价集合重建 */
+    private static final int TAG_UPDATE_ATTEMPTS = 5;
+
     @Autowired
     private RatingRepository ratingRepository;
 
@@ -32,6 +65,24 @@ public class RatingService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PlayerService playerService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${playmate.rating.tag-sketch-capacity:20}")
+    private int tagSketchCapacity;
+
+    @Value("${playmate.rating.stats-cache-ttl-ms:60000}")
+    private long statsCacheTtlMs;
+
+    @Value("${playmate.rating.stats-cache-max-players:50000}")
+    private int statsCacheMaxPlayers;
+
+    /** playerId -> 评分统计，新评价写入时换成失效标记 */
+    private final Map<String, CachedStats> statsCache = new ConcurrentHashMap<>();
+
     /**
      * 创建评价
      */
@@ -40,7 +91,7 @@ public class RatingService {
         Order order = orderRepository.findById(request.getOrderId())
                 .orElseThrow(() -> new RuntimeException("订单不存在"));
 
-        if (!order.getStatus().equals("completed")) {
+        if (!OrderStatus.COMPLETED.code().equals(order.getStatus())) {
             throw new RuntimeException("只能评价已完成的订单");
         }
 
@@ -66,64 +117,327 @@ public class RatingService {
         rating.setTags(request.getTags() != null ? java.util.Arrays.asList(request.getTags()) : null);
         rating.setCreateTime(LocalDateTime.now());
 
-        rating = ratingRepository.save(rating);
+        try {
+            rating = ratingRepository.save(rating);
+        } catch (DuplicateKeyException e) {
+            throw new RuntimeException("该订单已经评价过了");
+        }
+
+        // 累加评分汇总并同步陪玩评分
+        PlayerRatingSummary summary = addToSummary(rating.getPlayerId(), request.getRating(), rating.getTags());
+        syncPlayerRating(player.getId(), summary);
+        invalidateStats(rating.getPlayerId());
 
-        // 更新订单评价状态
-        order.setRating(String.valueOf(request.getRating()));
-        order.setComment(request.getComment());
-        order.setCommentTime(LocalDateTime.now());
-        orderRepository.save(order);
+        // 更新订单评价状态，只写评价字段以免覆盖订单 outbox
+        mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(order.getId())),
+                new Update()
+                        .set("rating", String.valueOf(request.getRating()))
+                        .set("comment", request.getComment())
+                        .set("commentTime", LocalDateTime.now()),
+                Order.class);
 
         // 返回评价响应
         return convertToResponse(rating, rater, player);
     }
 
     /**
-     * 获取用户的所有评价
+     * 获取用户收到的评价，按 (createTime, id) 倒序；传入游标时按游标续读，否则按页码偏移
      */
-    public List<RatingResponse> getUserRatings(String userId, int page, int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<Rating> ratings = ratingRepository.findByPlayerIdOrderByCreateTimeDesc(userId, pageable);
+    public RatingPageResponse getUserRatings(String userId, String cursor, int page, int size) {
+        size = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<Rating> ratings;
+        if ((cursor != null && !cursor.isBlank()) || page == 0) {
+            Query query = Query.query(Criteria.where("playerId").is(userId))
+                    .with(CreateTimeCursor.ORDER)
+                    .limit(size);
+            CreateTimeCursor after = CreateTimeCursor.decode(cursor);
+            if (after != null) {
+                query.addCriteria(after.after());
+            }
+            ratings = mongoTemplate.find(query, Rating.class);
+        } else {
+            Pageable pageable = PageRequest.of(page, size, CreateTimeCursor.ORDER);
+            ratings = ratingRepository.findByPlayerId(userId, pageable).getContent();
+        }
 
-        return ratings.getContent().stream()
-                .map(rating -> {
-                    User rater = userRepository.findById(Long.valueOf(rating.getRaterId())).orElse(null);
-                    User player = userRepository.findById(Long.valueOf(rating.getPlayerId())).orElse(null);
-                    return convertToResponse(rating, rater, player);
-                })
-                .collect(Collectors.toList());
+        // 整页一次性加载评价者与陪玩信息
+        Map<Long, User> users = loadUsers(ratings);
+        RatingPageResponse response = new RatingPageResponse();
+        response.setItems(ratings.stream()
+                .map(rating -> convertToResponse(rating,
+                        users.get(BlockListStore.parseUserId(rating.getRaterId())),
+                        users.get(BlockListStore.parseUserId(rating.getPlayerId()))))
+                .collect(Collectors.toList()));
+        if (ratings.size() == size) {
+            Rating last = ratings.get(ratings.size() - 1);
+            response.setNextCursor(CreateTimeCursor.encode(last.getCreateTime(), last.getId()));
+        }
+        return response;
     }
 
     /**
      * 获取陪玩人员的平均评分
      */
     public Double getPlayerAverageRating(String playerId) {
-        return ratingRepository.calculateAverageRatingByPlayerId(playerId);
+        return getSummary(playerId).getAverage();
     }
 
     /**
      * 获取陪玩人员的评分统计
      */
     public Map<String, Object> getPlayerRatingStats(String playerId) {
+        long now = System.currentTimeMillis();
+        CachedStats cached = statsCache.get(playerId);
+        if (cached != null && cached.stats != null && cached.expireAt >= now) {
+            return cached.stats;
+        }
+
+        // 平均分、总数与星级分布都来自同一份汇总
+        PlayerRatingSummary summary = getSummary(playerId);
         Map<String, Object> stats = new HashMap<>();
-        
-        // 平均评分
-        Double averageRating = getPlayerAverageRating(playerId);
+        Double averageRating = summary.getAverage();
         stats.put("averageRating", averageRating != null ? averageRating : 0.0);
-        
-        // 总评价数
-        Long totalRatings = ratingRepository.countByPlayerId(playerId);
-        stats.put("totalRatings", totalRatings);
-        
-        // 各星级评价数量
+        stats.put("totalRatings", summary.getCount());
+
         Map<Integer, Long> ratingCounts = new HashMap<>();
         for (int i = 1; i <= 5; i++) {
-            Long count = ratingRepository.countByPlayerIdAndRating(playerId, i);
-            ratingCounts.put(i, count);
+            ratingCounts.put(i, summary.getHistogram().getOrDefault(String.valueOf(i), 0L));
         }
         stats.put("ratingCounts", ratingCounts);
-        
-        return stats;
+
+        List<Map<String, Object>> topTags = new ArrayList<>();
+        for (TagSketch.TagCounter counter : TagSketch.top(summary.getTags(), TOP_TAGS)) {
+            Map<String, Object> tag = new LinkedHashMap<>();
+            tag.put("tag", counter.getTag());
+            tag.put("count", counter.getCount());
+            topTags.add(tag);
+        }
+        stats.put("topTags", topTags);
+
+        Map<String, Object> result = Collections.unmodifiableMap(stats);
+        // 只替换读汇总前看到的条目：期间有新评价写入时条目已换成失效标记，旧汇总算出的结果不再缓存
+        CachedStats fresh = new CachedStats(result, now + statsCacheTtlMs);
+        if (cached != null) {
+            statsCache.replace(playerId, cached, fresh);
+        } else if (statsCache.size() < statsCacheMaxPlayers) {
+            statsCache.putIfAbsent(playerId, fresh);
+        }
+        return result;
+    }
+
+    /**
+     * 汇总写入后调用，失效标记保留一个缓存周期，挡住写入前已开始计算的读取
+     */
+    private void invalidateStats(String playerId) {
+        statsCache.put(playerId, new CachedStats(null, System.currentTimeMillis() + statsCacheTtlMs));
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.rating.stats-cache-ttl-ms:60000}")
+    public void evictExpiredStats() {
+        long now = System.currentTimeMillis();
+        statsCache.values().removeIf(entry -> entry.expireAt < now);
+    }
+
+    /**
+     * 原子累加一条评价；汇总尚未建立时改为从评价集合重建，重建结果已包含本条评价及其标签
+     */
+    private PlayerRatingSummary addToSummary(String playerId, int stars, List<String> tags) {
+        Update update = new Update()
+                .inc("sum", stars)
+                .inc("count", 1)
+                .inc("histogram." + stars, 1)
+                .set("updateTime", LocalDateTime.now());
+        PlayerRatingSummary summary = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(playerId)), update,
+                FindAndModifyOptions.options().returnNew(true), PlayerRatingSummary.class);
+        if (summary == null) {
+            return rebuildSummary(playerId);
+        }
+        addTagsToSummary(playerId, tags);
+        return summary;
+    }
+
+    /**
+     * 把一条评价的标签记入热门计数器，按版本号条件更新，冲突时重读重试直到成功；
+     * 连续冲突后改为按评价集合重建，本条评价已写入，重建结果一定包含它的标签
+     */
+    private void addTagsToSummary(String playerId, List<String> tags) {
+        if (tags == null || tags.isEmpty()) {
+            return;
+        }
+        for (int attempt = 0; ; attempt++) {
+            PlayerRatingSummary summary = mongoTemplate.findById(playerId, PlayerRatingSummary.class);
+            if (summary == null) {
+                return;
+            }
+            // 先读版本号再重建，重建期间有其他写入时条件更新落空并重来
+            List<TagSketch.TagCounter> next = attempt < TAG_UPDATE_ATTEMPTS
+                    ? TagSketch.offer(summary.getTags(), tags, tagSketchCapacity)
+                    : aggregateTags(playerId);
+            if (replaceTags(playerId, summary.getTagVersion(), next)) {
+                return;
+            }
+            if (attempt + 1 == TAG_UPDATE_ATTEMPTS) {
+                log.warn("评价标签统计更新冲突，改为按评价重建，playerId: {}", playerId);
+            }
+        }
+    }
+
+    private boolean replaceTags(String playerId, long version, List<TagSketch.TagCounter> tags) {
+        Criteria versionMatches = version == 0
+                ? Criteria.where("tagVersion").in(0L, null)
+                : Criteria.where("tagVersion").is(version);
+        Update update = new Update()
+                .set("tags", tags)
+                .set("tagVersion", version + 1);
+        return mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(playerId)).addCriteria(versionMatches),
+                update, PlayerRatingSummary.class).getModifiedCount() > 0;
+    }
+
+    /**
+     * 历史标签直接按真实次数取前若干个作为计数器
+     */
+    private List<TagSketch.TagCounter> aggregateTags(String playerId) {
+        Aggregation tagAggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("playerId").is(playerId)),
+                Aggregation.unwind("tags"),
+                Aggregation.group("tags").count().as("count"),
+                Aggregation.sort(Sort.Direction.DESC, "count"),
+                Aggregation.limit(tagSketchCapacity));
+        List<TagSketch.TagCounter> counters = new ArrayList<>();
+        for (Document doc : mongoTemplate.aggregate(tagAggregation, Rating.class, Document.class)) {
+            String tag = doc.getString("_id");
+            if (tag != null && !tag.isBlank()) {
+                counters.add(new TagSketch.TagCounter(tag.trim(), ((Number) doc.get("count")).longValue(), 0));
+            }
+        }
+        return counters;
+    }
+
+    /**
+     * 读取评分汇总，尚未建立时从评价集合重建
+     */
+    private PlayerRatingSummary getSummary(String playerId) {
+        PlayerRatingSummary summary = mongoTemplate.findById(playerId, PlayerRatingSummary.class);
+        return summary != null ? summary : rebuildSummary(playerId);
+    }
+
+    /**
+     * 一次按星级分组的聚合得出总分、总数和分布，只在汇总不存在时插入；
+     * 并发建立时以先插入的为准并重新读取，不覆盖其后已累加的评价
+     */
+    private PlayerRatingSummary rebuildSummary(String playerId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("playerId").is(playerId)),
+                Aggregation.group("rating").count().as("count"));
+
+        PlayerRatingSummary summary = new PlayerRatingSummary();
+        summary.setId(playerId);
+        for (Document doc : mongoTemplate.aggregate(aggregation, Rating.class, Document.class)) {
+            accumulate(summary, doc.getInteger("_id"), ((Number) doc.get("count")).longValue());
+        }
+
+        summary.getTags().addAll(aggregateTags(playerId));
+
+        summary.setUpdateTime(LocalDateTime.now());
+        if (summary.getCount() > 0) {
+            try {
+                mongoTemplate.insert(summary);
+            } catch (DuplicateKeyException e) {
+                PlayerRatingSummary existing = mongoTemplate.findById(playerId, PlayerRatingSummary.class);
+                if (existing != null) {
+                    return existing;
+                }
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * 按评价集合重新统计一批汇总的总分、总数与星级分布，修复并发建立汇总时丢失的累加；
+     * 以读到的总数和总分为条件覆盖，统计期间有新评价累加的汇总留到下次校准。返回被修复的汇总数
+     */
+    public int reconcileSummaries(List<PlayerRatingSummary> summaries) {
+        List<String> playerIds = summaries.stream().map(PlayerRatingSummary::getId).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("playerId").in(playerIds)),
+                Aggregation.group("playerId", "rating").count().as("count"));
+        Map<String, PlayerRatingSummary> actual = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, Rating.class, Document.class)) {
+            Document key = doc.get("_id", Document.class);
+            PlayerRatingSummary summary = actual.computeIfAbsent(key.getString("playerId"), id -> {
+                PlayerRatingSummary created = new PlayerRatingSummary();
+                created.setId(id);
+                return created;
+            });
+            accumulate(summary, key.getInteger("rating"), ((Number) doc.get("count")).longValue());
+        }
+
+        int fixed = 0;
+        for (PlayerRatingSummary stored : summaries) {
+            PlayerRatingSummary expected = actual.getOrDefault(stored.getId(), new PlayerRatingSummary());
+            if (stored.getSum() == expected.getSum() && stored.getCount() == expected.getCount()
+                    && stored.getHistogram().equals(expected.getHistogram())) {
+                continue;
+            }
+            Query unchanged = Query.query(Criteria.where("_id").is(stored.getId())
+                    .and("count").is(stored.getCount())
+                    .and("sum").is(stored.getSum()));
+            Update update = new Update()
+                    .set("sum", expected.getSum())
+                    .set("count", expected.getCount())
+                    .set("histogram", expected.getHistogram())
+                    .set("updateTime", LocalDateTime.now());
+            if (mongoTemplate.updateFirst(unchanged, update, PlayerRatingSummary.class).getModifiedCount() > 0) {
+                fixed++;
+                Long playerUserId = BlockListStore.parseUserId(stored.getId());
+                if (playerUserId != null) {
+                    syncPlayerRating(playerUserId, expected);
+                }
+                invalidateStats(stored.getId());
+            }
+        }
+        return fixed;
+    }
+
+    private static void accumulate(PlayerRatingSummary summary, Integer stars, long count) {
+        if (stars == null) {
+            return;
+        }
+        summary.getHistogram().put(String.valueOf(stars), count);
+        summary.setSum(summary.getSum() + stars * count);
+        summary.setCount(summary.getCount() + count);
+    }
+
+    /**
+     * 汇总平均分写回 Player.rating
+     */
+    private void syncPlayerRating(Long playerUserId, PlayerRatingSummary summary) {
+        if (summary == null || summary.getCount() == 0) {
+            return;
+        }
+        BigDecimal average = BigDecimal.valueOf(summary.getSum())
+                .divide(BigDecimal.valueOf(summary.getCount()), 2, RoundingMode.HALF_UP);
+        playerService.recordRating(playerUserId, average);
+    }
+
+    private Map<Long, User> loadUsers(List<Rating> ratings) {
+        if (ratings.isEmpty()) {
+            return Map.of();
+        }
+        Set<Long> userIds = new HashSet<>();
+        for (Rating rating : ratings) {
+            Long raterId = BlockListStore.parseUserId(rating.getRaterId());
+            Long playerId = BlockListStore.parseUserId(rating.getPlayerId());
+            if (raterId != null) {
+                userIds.add(raterId);
+            }
+            if (playerId != null) {
+                userIds.add(playerId);
+            }
+        }
+        return userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
     }
 
     /**
@@ -144,4 +458,17 @@ public class RatingService {
         response.setCreateTime(rating.getCreateTime());
         return response;
     }
-}
\ No newline at end of file
+
+    /**
+     * 按引用比较，replace 只认读取时拿到的那个条目；stats 为 null 表示失效标记
+     */
+    private static final class CachedStats {
+        final Map<String, Object> stats;
+        final long expireAt;
+
+        CachedStats(Map<String, Object> stats, long expireAt) {
+            this.stats = stats;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.playmate.service;
+
+import com.playmate.dto.UserStatsResponse;
+import com.playmate.entity.FollowStatus;
+import com.playmate.entity.Post;
+import com.playmate.entity.PostStatus;
+import com.playmate.entity.UserStats;
+import com.playmate.graph.TransactionHooks;
+import com.playmate.repository.FollowRepository;
+import com.playmate.repository.UserStatsRepository;
+import lombok.RequiredArgsConstructor;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 用户计数服务
+ * 关注、动态、点赞事件发生时增量更新 user_stats，统计接口只需一次主键查询
+ */
+@Service
+@RequiredArgsConstructor
+public class UserStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserStatsService.class);
+
+    private final UserStatsRepository userStatsRepository;
+    private final FollowRepository followRepository;
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 读取计数汇总；还没有记录时按实时统计补建后返回，与事件增量、定时校准共用同一份计数
+     */
+    public UserStatsResponse getStats(Long userId) {
+        return userStatsRepository.findById(userId)
+                .or(() -> {
+                    reconcileUsers(List.of(userId));
+                    return userStatsRepository.findById(userId);
+                })
+                .map(this::convertToResponse)
+                .orElseThrow(() -> new RuntimeException("用户计数生成失败"));
+    }
+
+    @Transactional
+    public void onFollowChanged(Long followerId, Long followingId, int delta) {
+        applyDelta(followerId, 0, delta, 0, 0);
+        applyDelta(followingId, delta, 0, 0, 0);
+    }
+
+    @Transactional
+    public void onPostCountChanged(String userId, int delta) {
+        parseUserId(userId).ifPresent(id -> applyDelta(id, 0, 0, delta, 0));
+    }
+
+    @Transactional
+    public void onLikeReceived(String authorId, int delta) {
+        parseUserId(authorId).ifPresent(id -> applyDelta(id, 0, 0, 0, delta));
+    }
+
+    /**
+     * 只累加已有记录；还没有记录的用户在事务提交后按实时统计补建，
+     * 不能只用本次增量建一条其余计数为 0 的记录
+     */
+    private void applyDelta(Long userId, int followers, int following, int posts, int liked) {
+        if (userStatsRepository.applyDelta(userId, followers, following, posts, liked) > 0) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            try {
+                reconcileUsers(List.of(userId));
+            } catch (RuntimeException e) {
+                log.warn("补建用户计数失败，等待定时校准 userId={}", userId, e);
+            }
+        });
+    }
+
+    /**
+     * 校准指定用户的计数，记录不存在时按实时统计补建，返回被修复（含新建）的记录数
+     */
+    public int reconcileUsers(List<Long> userIds) {
+        // 先读已有记录再统计：之后写入的增量会让条件覆盖落空，而不是被统计值抹掉
+        Map<Long, UserStats> existing = userStatsRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(UserStats::getUserId, Function.identity()));
+
+        Map<Long, Integer> followers = toCountMap(
+                followRepository.countFollowersGroupByUserIds(userIds, FollowStatus.FOLLOWING));
+        Map<Long, Integer> following = toCountMap(
+                followRepository.countFollowingGroupByUserIds(userIds, FollowStatus.FOLLOWING));
+
+        // 动态数和获赞数来自 Mongo，userId 以字符串保存
+        List<String> userIdStrings = userIds.stream().map(String::valueOf).toList();
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("userId").in(userIdStrings).and("status").is(PostStatus.PUBLISHED.name())),
+                Aggregation.group("userId").count().as("posts").sum("likeCount").as("likes"));
+        Map<Long, Document> postStats = new HashMap<>();
+        for (Document doc : mongoTemplate.aggregate(aggregation, Post.class, Document.class)) {
+            postStats.put(Long.valueOf(doc.getString("_id")), doc);
+        }
+
+        int fixed = 0;
+        for (Long userId : userIds) {
+            Document doc = postStats.get(userId);
+            int followersCount = followers.getOrDefault(userId, 0);
+            int followingCount = following.getOrDefault(userId, 0);
+            int postsCount = doc != null ? ((Number) doc.get("posts")).intValue() : 0;
+            int likedCount = doc != null ? ((Number) doc.get("likes")).intValue() : 0;
+
+            UserStats stats = existing.get(userId);
+            if (stats == null) {
+                fixed += userStatsRepository.insertIfAbsent(userId, followersCount, followingCount, postsCount, likedCount);
+            } else if (!Objects.equals(stats.getFollowersCount(), followersCount)
+                    || !Objects.equals(stats.getFollowingCount(), followingCount)
+                    || !Objects.equals(stats.getPostsCount(), postsCount)
+                    || !Objects.equals(stats.getLikedCount(), likedCount)) {
+                fixed += userStatsRepository.replaceIfUnchanged(userId, followersCount, followingCount, postsCount, likedCount,
+                        stats.getFollowersCount(), stats.getFollowingCount(), stats.getPostsCount(), stats.getLikedCount());
+            }
+        }
+        return fixed;
+    }
+
+    private static Map<Long, Integer> toCountMap(List<Object[]> rows) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return counts;
+    }
+
+    private Optional<Long> parseUserId(String userId) {
+        try {
+            return Optional.of(Long.valueOf(userId));
+        } catch (NumberFormatException e) {
+            // Mongo 中的 userId 不是有效的Long格式时跳过计数
+            return Optional.empty();
+        }
+    }
+
+    private UserStatsResponse convertToResponse(UserStats userStats) {
+        UserStatsResponse response = new UserStatsResponse();
+        response.setUserId(userStats.getUserId());
+        response.setFollowersCount(userStats.getFollowersCount());
+        response.setFollowingCount(userStats.getFollowingCount());
+        response.setPostsCount(userStats.getPostsCount());
+        response.setLikedCount(userStats.getLikedCount());
+        response.setLastActiveTime(LocalDateTime.now());
+        return response;
+    }
+}
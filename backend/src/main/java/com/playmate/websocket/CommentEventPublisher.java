@@ -0,0 +1,99 @@
+package com.playmate.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.playmate.dto.CommentResponse;
+import com.playmate.entity.Comment;
+import com.playmate.repository.CommentRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评论事件推送
+ * 新增、删除评论即时推送；点赞变化先在内存中合并，再按固定间隔批量推送增量
+ */
+@Component
+@RequiredArgsConstructor
+public class CommentEventPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(CommentEventPublisher.class);
+
+    private final PostSubscriptionRegistry subscriptionRegistry;
+    private final CommentRepository commentRepository;
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Integer> pendingLikeDeltas = new ConcurrentHashMap<>();
+
+    public void publishCreated(CommentResponse comment) {
+        if (!subscriptionRegistry.hasSubscribers(comment.getPostId())) {
+            return;
+        }
+        Map<String, Object> event = new HashMap<>();
+        event.put("type", "comment_created");
+        event.put("postId", comment.getPostId());
+        event.put("data", comment);
+        send(comment.getPostId(), event);
+    }
+
+    public void publishDeleted(String postId, String commentId) {
+        if (!subscriptionRegistry.hasSubscribers(postId)) {
+            return;
+        }
+        send(postId, Map.of("type", "comment_deleted", "postId", postId, "commentId", commentId));
+    }
+
+    /**
+     * 记录点赞增量，由定时任务合并后推送
+     */
+    public void recordLikeDelta(String commentId, int delta) {
+        pendingLikeDeltas.merge(commentId, delta, Integer::sum);
+    }
+
+    @Scheduled(fixedDelayString = "${playmate.websocket.like-flush-interval-ms:1000}")
+    public void flushLikeDeltas() {
+        if (pendingLikeDeltas.isEmpty()) {
+            return;
+        }
+        // 逐个原子取出，取出后的新增量留到下一轮
+        Map<String, Integer> deltas = new HashMap<>();
+        for (String commentId : pendingLikeDeltas.keySet()) {
+            Integer delta = pendingLikeDeltas.remove(commentId);
+            if (delta != null && delta != 0) {
+                deltas.put(commentId, delta);
+            }
+        }
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        // 一次查询解析本批评论所属的动态
+        List<Comment> comments = commentRepository.findPostIdsByIdIn(deltas.keySet());
+        Map<String, Map<String, Integer>> deltasByPost = new HashMap<>();
+        for (Comment comment : comments) {
+            Integer delta = deltas.get(comment.getId());
+            if (delta == null || !subscriptionRegistry.hasSubscribers(comment.getPostId())) {
+                continue;
+            }
+            deltasByPost.computeIfAbsent(comment.getPostId(), key -> new HashMap<>()).put(comment.getId(), delta);
+        }
+
+        deltasByPost.forEach((postId, postDeltas) ->
+                send(postId, Map.of("type", "like_delta", "postId", postId, "deltas", postDeltas)));
+    }
+
+    private void send(String postId, Map<String, Object> event) {
+        try {
+            subscriptionRegistry.broadcast(postId, objectMapper.writeValueAsString(event));
+        } catch (JsonProcessingException e) {
+            log.warn("评论事件序列化失败 postId={}", postId, e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.playmate.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 评论实时推送处理器
+ * 客户端发送 {"action":"subscribe","postId":"..."} 或 {"action":"unsubscribe","postId":"..."}
+ */
+@Component
+@RequiredArgsConstructor
+public class CommentStreamHandler extends TextWebSocketHandler {
+
+    private static final String ATTR_DECORATED = "decoratedSession";
+    private static final String ATTR_POST_IDS = "subscribedPostIds";
+
+    private final PostSubscriptionRegistry subscriptionRegistry;
+    private final ObjectMapper objectMapper;
+
+    @Value("${playmate.websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimit;
+
+    @Value("${playmate.websocket.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    @Value("${playmate.websocket.max-subscriptions:50}")
+    private int maxSubscriptions;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) {
+        // 每个会话一个有界发送缓冲，慢客户端超出上限时丢弃最旧的消息
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimit, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        session.getAttributes().put(ATTR_DECORATED, decorated);
+        session.getAttributes().put(ATTR_POST_IDS, ConcurrentHashMap.newKeySet());
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) throws Exception {
+        JsonNode node = objectMapper.readTree(message.getPayload());
+        String action = node.path("action").asText();
+        String postId = node.path("postId").asText(null);
+        if (postId == null || postId.isEmpty()) {
+            return;
+        }
+
+        WebSocketSession decorated = (WebSocketSession) session.getAttributes().get(ATTR_DECORATED);
+        Set<String> postIds = subscribedPostIds(session);
+        if ("subscribe".equals(action)) {
+            if (postIds.size() >= maxSubscriptions) {
+                return;
+            }
+            postIds.add(postId);
+            subscriptionRegistry.subscribe(postId, decorated);
+        } else if ("unsubscribe".equals(action)) {
+            postIds.remove(postId);
+            subscriptionRegistry.unsubscribe(postId, decorated);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        WebSocketSession decorated = (WebSocketSession) session.getAttributes().get(ATTR_DECORATED);
+        for (String postId : subscribedPostIds(session)) {
+            subscriptionRegistry.unsubscribe(postId, decorated);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> subscribedPostIds(WebSocketSession session) {
+        return (Set<String>) session.getAttributes().get(ATTR_POST_IDS);
+    }
+}
@@ -0,0 +1,115 @@
+package com.playmate.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 动态订阅注册表
+ * 按 postId 分片保存订阅会话，每个分片使用独立的单线程推送，广播不会阻塞请求线程
+ */
+@Component
+public class PostSubscriptionRegistry implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PostSubscriptionRegistry.class);
+
+    private static final int SHARD_COUNT = 16;
+    private static final int SHARD_QUEUE_CAPACITY = 10_000;
+
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+
+    public PostSubscriptionRegistry() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(i);
+        }
+    }
+
+    public void subscribe(String postId, WebSocketSession session) {
+        // 在 compute 内加入，避免并发退订刚好移除空集合时加进一个已脱离注册表的集合
+        shardFor(postId).subscribers.compute(postId, (key, sessions) -> {
+            Set<WebSocketSession> target = sessions != null ? sessions : ConcurrentHashMap.newKeySet();
+            target.add(session);
+            return target;
+        });
+    }
+
+    public void unsubscribe(String postId, WebSocketSession session) {
+        shardFor(postId).subscribers.computeIfPresent(postId, (key, sessions) -> {
+            sessions.remove(session);
+            return sessions.isEmpty() ? null : sessions;
+        });
+    }
+
+    public boolean hasSubscribers(String postId) {
+        return shardFor(postId).subscribers.containsKey(postId);
+    }
+
+    /**
+     * 异步向订阅该动态的所有会话推送消息
+     */
+    public void broadcast(String postId, String payload) {
+        Shard shard = shardFor(postId);
+        if (!shard.subscribers.containsKey(postId)) {
+            return;
+        }
+        shard.executor.execute(() -> deliver(shard, postId, new TextMessage(payload)));
+    }
+
+    private void deliver(Shard shard, String postId, TextMessage message) {
+        Set<WebSocketSession> sessions = shard.subscribers.get(postId);
+        if (sessions == null) {
+            return;
+        }
+        for (WebSocketSession session : sessions) {
+            if (!session.isOpen()) {
+                unsubscribe(postId, session);
+                continue;
+            }
+            try {
+                session.sendMessage(message);
+            } catch (IOException | RuntimeException e) {
+                log.debug("推送失败，移除订阅 session={} postId={}", session.getId(), postId, e);
+                unsubscribe(postId, session);
+            }
+        }
+    }
+
+    private Shard shardFor(String postId) {
+        return shards[(postId.hashCode() & 0x7fffffff) % SHARD_COUNT];
+    }
+
+    @Override
+    public void destroy() {
+        for (Shard shard : shards) {
+            shard.executor.shutdownNow();
+        }
+    }
+
+    private static final class Shard {
+        private final Map<String, Set<WebSocketSession>> subscribers = new ConcurrentHashMap<>();
+        private final ThreadPoolExecutor executor;
+
+        private Shard(int index) {
+            // 队列满时丢弃最旧的推送任务，实时推送允许丢失，客户端可刷新补齐
+            this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(SHARD_QUEUE_CAPACITY),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "post-fanout-" + index);
+                        thread.setDaemon(true);
+                        return thread;
+                    },
+                    new ThreadPoolExecutor.DiscardOldestPolicy());
+        }
+    }
+}
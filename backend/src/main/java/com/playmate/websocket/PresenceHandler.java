@@ -0,0 +1,78 @@
+package com.playmate.websocket;
+
+import com.playmate.presence.PresenceService;
+import com.playmate.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.io.IOException;
+import java.security.Principal;
+
+/**
+ * 在线状态心跳处理器
+ * 连接建立即上线，之后客户端定期发送任意文本作为心跳（建议 {"action":"heartbeat"}），服务端回 pong；
+ * 同一连接也用于接收派单等定向推送
+ */
+@Component
+@RequiredArgsConstructor
+public class PresenceHandler extends TextWebSocketHandler {
+
+    private static final String ATTR_USER_ID = "presenceUserId";
+    private static final String ATTR_DECORATED = "presenceDecorated";
+    private static final TextMessage PONG = new TextMessage("{\"type\":\"pong\"}");
+
+    private final PresenceService presenceService;
+    private final UserRepository userRepository;
+    private final UserSessionRegistry userSessionRegistry;
+
+    @Override
+    public void afterConnectionEstablished(@NonNull WebSocketSession session) throws IOException {
+        Long userId = resolveUserId(session);
+        if (userId == null) {
+            session.close(CloseStatus.POLICY_VIOLATION.withReason("未登录"));
+            return;
+        }
+        session.getAttributes().put(ATTR_USER_ID, userId);
+        session.getAttributes().put(ATTR_DECORATED, userSessionRegistry.register(userId, session));
+        presenceService.connect(userId);
+    }
+
+    @Override
+    protected void handleTextMessage(@NonNull WebSocketSession session, @NonNull TextMessage message) throws IOException {
+        Long userId = (Long) session.getAttributes().get(ATTR_USER_ID);
+        if (userId != null) {
+            presenceService.heartbeat(userId);
+            ((WebSocketSession) session.getAttributes().get(ATTR_DECORATED)).sendMessage(PONG);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus status) {
+        Long userId = (Long) session.getAttributes().get(ATTR_USER_ID);
+        if (userId != null) {
+            userSessionRegistry.unregister(userId, (WebSocketSession) session.getAttributes().get(ATTR_DECORATED));
+            presenceService.disconnect(userId);
+        }
+    }
+
+    /**
+     * 优先取握手时的登录用户，其次取 X-User-Id 请求头
+     */
+    private Long resolveUserId(WebSocketSession session) {
+        Principal principal = session.getPrincipal();
+        if (principal != null) {
+            return userRepository.findByUsername(principal.getName()).map(user -> user.getId()).orElse(null);
+        }
+        String header = session.getHandshakeHeaders().getFirst("X-User-Id");
+        try {
+            return header != null ? Long.valueOf(header) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
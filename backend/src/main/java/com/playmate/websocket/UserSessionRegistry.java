@@ -0,0 +1,88 @@
+package com.playmate.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 用户会话注册表
+ * 在线状态连接按用户登记，服务端可向指定用户的所有连接定向推送（如派单通知）
+ */
+@Component
+public class UserSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSessionRegistry.class);
+
+    @Value("${playmate.websocket.send-time-limit-ms:5000}")
+    private int sendTimeLimit;
+
+    @Value("${playmate.websocket.buffer-size-limit:65536}")
+    private int bufferSizeLimit;
+
+    private final Map<Long, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 登记连接，返回带有界发送缓冲的会话包装
+     */
+    public WebSocketSession register(long userId, WebSocketSession session) {
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(
+                session, sendTimeLimit, bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP);
+        // 与 unregister 同在 compute 内修改，移除空集合和加入连接不会交错
+        sessions.compute(userId, (key, set) -> {
+            Set<WebSocketSession> target = set != null ? set : ConcurrentHashMap.newKeySet();
+            target.add(decorated);
+            return target;
+        });
+        return decorated;
+    }
+
+    public void unregister(long userId, WebSocketSession decorated) {
+        sessions.computeIfPresent(userId, (key, set) -> {
+            set.remove(decorated);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * 用户当前登记的连接数
+     */
+    public int sessionCount(long userId) {
+        Set<WebSocketSession> userSessions = sessions.get(userId);
+        return userSessions != null ? userSessions.size() : 0;
+    }
+
+    /**
+     * 向用户的所有连接推送，至少一个连接发送成功时返回 true
+     */
+    public boolean sendToUser(long userId, String payload) {
+        Set<WebSocketSession> userSessions = sessions.get(userId);
+        if (userSessions == null) {
+            return false;
+        }
+        TextMessage message = new TextMessage(payload);
+        boolean delivered = false;
+        for (WebSocketSession session : userSessions) {
+            if (!session.isOpen()) {
+                unregister(userId, session);
+                continue;
+            }
+            try {
+                session.sendMessage(message);
+                delivered = true;
+            } catch (IOException | RuntimeException e) {
+                log.debug("定向推送失败 session={} userId={}", session.getId(), userId, e);
+                unregister(userId, session);
+            }
+        }
+        return delivered;
+    }
+}
@@ -0,0 +1,131 @@
+package com.playmate.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分层时间轮：随机设置、取消与推进，与按截止刻度逐个比对的参考模型对照
+ */
+class HierarchicalTimingWheelTest {
+
+    /** 4 层 64 格覆盖的刻度数 */
+    private static final long SPAN = 1L << 24;
+
+    @Test
+    void firesExactlyWhenDue() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 0);
+        wheel.schedule("a", 5_000, "a");
+        wheel.schedule("b", 5_999, "b");
+        wheel.schedule("c", 70_000, "c");
+
+        assertThat(wheel.advance(4_999)).isEmpty();
+        assertThat(wheel.advance(5_000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.advance(69_999)).isEmpty();
+        assertThat(wheel.advance(70_000)).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelRemoves() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 0);
+        wheel.schedule("a", 10, "first");
+        wheel.schedule("a", 20, "second");
+        wheel.schedule("b", 10, "b");
+        wheel.cancel("b");
+
+        assertThat(wheel.advance(10)).isEmpty();
+        assertThat(wheel.advance(20)).containsExactly("second");
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 100);
+        wheel.schedule("late", 50, "late");
+
+        assertThat(wheel.advance(100)).containsExactly("late");
+    }
+
+    @Test
+    void randomScheduleCancelAdvanceMatchesModel() {
+        for (long seed = 1; seed <= 20; seed++) {
+            simulate(new Random(seed));
+        }
+    }
+
+    private static void simulate(Random random) {
+        long start = random.nextInt(1 << 20);
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, start);
+        Map<String, Long> model = new HashMap<>();
+        long nextTick = start;
+        int nextKey = 0;
+
+        for (int step = 0; step < 2_000; step++) {
+            int op = random.nextInt(10);
+            if (op < 5) {
+                // 新建或覆盖已有 key
+                String key = !model.isEmpty() && random.nextInt(4) == 0
+                        ? pick(random, model.keySet())
+                        : "k" + nextKey++;
+                long deadline = nextTick + randomDelay(random);
+                wheel.schedule(key, deadline, key);
+                model.put(key, Math.max(deadline, nextTick));
+            } else if (op < 7) {
+                if (!model.isEmpty()) {
+                    String key = pick(random, model.keySet());
+                    wheel.cancel(key);
+                    model.remove(key);
+                }
+            } else {
+                long now = nextTick + (random.nextInt(20) == 0 ? random.nextInt(300_000) : random.nextInt(2_000));
+                assertFires(wheel, model, now);
+                nextTick = now + 1;
+            }
+            assertThat(wheel.size()).isEqualTo(model.size());
+        }
+
+        // 最后推进到所有定时器（含超出总跨度的）都到期
+        long end = model.values().stream().mapToLong(Long::longValue).max().orElse(nextTick);
+        assertFires(wheel, model, end);
+        assertThat(model).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    private static void assertFires(HierarchicalTimingWheel<String> wheel, Map<String, Long> model, long now) {
+        Set<String> expected = new HashSet<>();
+        Iterator<Map.Entry<String, Long>> iterator = model.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (entry.getValue() <= now) {
+                expected.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+        List<String> fired = wheel.advance(now);
+        assertThat(fired).as("advance to %d", now).containsExactlyInAnyOrderElementsOf(expected);
+    }
+
+    private static long randomDelay(Random random) {
+        return switch (random.nextInt(10)) {
+            case 0 -> -random.nextInt(100);
+            case 1, 2, 3, 4 -> random.nextInt(64);
+            case 5, 6 -> random.nextInt(4_096);
+            case 7, 8 -> random.nextInt(300_000);
+            default -> SPAN + random.nextInt(1 << 20);
+        };
+    }
+
+    private static String pick(Random random, Set<String> keys) {
+        List<String> list = new ArrayList<>(keys);
+        return list.get(random.nextInt(list.size()));
+    }
+}
@@ -0,0 +1,239 @@
+package com.playmate.dispatch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.result.UpdateResult;
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderStatus;
+import com.playmate.graph.BlockListStore;
+import com.playmate.repository.OrderRepository;
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.search.PlayerSearchQuery;
+import com.playmate.search.WeeklyAvailability;
+import com.playmate.websocket.UserSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 派单引擎：匹配、拒绝、邀约超时与推送失败后的重新入队，以及订单离开待接单状态时的清理
+ */
+class OrderDispatchEngineTest {
+
+    private static final long CUSTOMER = 1L;
+    private static final long TOP_PLAYER = 100L;
+    private static final long NEXT_PLAYER = 101L;
+
+    private PlayerSearchEngine playerSearchEngine;
+    private MongoTemplate mongoTemplate;
+    private FakeSessionRegistry sessions;
+    private OrderDispatchEngine engine;
+    /** 检索返回的在线陪玩，按排序分从高到低 */
+    private List<Long> onlinePlayers;
+
+    @BeforeEach
+    void setUp() {
+        playerSearchEngine = mock(PlayerSearchEngine.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        sessions = new FakeSessionRegistry();
+        onlinePlayers = new ArrayList<>(List.of(TOP_PLAYER, NEXT_PLAYER));
+
+        when(playerSearchEngine.isReady()).thenReturn(true);
+        when(playerSearchEngine.search(any(PlayerSearchQuery.class))).thenAnswer(invocation -> {
+            PlayerSearchResponse response = new PlayerSearchResponse();
+            List<PlayerSearchResponse.Item> items = new ArrayList<>();
+            for (Long userId : onlinePlayers) {
+                PlayerSearchResponse.Item item = new PlayerSearchResponse.Item();
+                item.setUserId(userId);
+                items.add(item);
+            }
+            response.setItems(items);
+            return response;
+        });
+        when(playerSearchEngine.getByUserId(anyLong())).thenAnswer(invocation -> player(invocation.getArgument(0)));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Order.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        engine = new OrderDispatchEngine(playerSearchEngine, mock(BlockListStore.class), sessions,
+                mock(OrderRepository.class), mongoTemplate, new ObjectMapper());
+        ReflectionTestUtils.setField(engine, "offerTimeoutMs", 60_000L);
+        ReflectionTestUtils.setField(engine, "candidatesPerQueue", 10);
+        ReflectionTestUtils.setField(engine, "maxAttempts", 10);
+    }
+
+    @Test
+    void offersToBestCandidateAndKeepsAcceptedPlayerBusy() {
+        engine.submit(order("o1"));
+        engine.tick();
+
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o1");
+
+        engine.onAccepted("o1", TOP_PLAYER);
+        engine.submit(order("o2"));
+        engine.tick();
+
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o2");
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o1");
+    }
+
+    @Test
+    void playerWithPendingOfferIsNotOfferedAnotherOrder() {
+        engine.submit(order("o1"));
+        engine.submit(order("o2"));
+        engine.tick();
+
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o1");
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o2");
+    }
+
+    @Test
+    void declinedOrderIsRequeuedWithoutThatPlayer() {
+        engine.submit(order("o1"));
+        engine.tick();
+
+        assertThat(engine.decline("o1", TOP_PLAYER)).isTrue();
+        assertThat(engine.decline("o1", TOP_PLAYER)).isFalse();
+        engine.tick();
+
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o1");
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o1");
+    }
+
+    @Test
+    void expiredOfferIsRequeuedWithoutThatPlayer() {
+        ReflectionTestUtils.setField(engine, "offerTimeoutMs", 0L);
+        engine.submit(order("o1"));
+        engine.tick();
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o1");
+
+        engine.tick();
+
+        assertThat(sessions.typesSentTo(TOP_PLAYER)).containsExactly("order_offer", "order_offer_expired");
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o1");
+    }
+
+    @Test
+    void undeliverableOfferCountsAsDecline() {
+        sessions.offline.add(TOP_PLAYER);
+        engine.submit(order("o1"));
+        engine.tick();
+        engine.tick();
+
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o1");
+    }
+
+    @Test
+    void stopsDispatchingAfterMaxAttempts() {
+        ReflectionTestUtils.setField(engine, "maxAttempts", 1);
+        engine.submit(order("o1"));
+        engine.tick();
+        engine.decline("o1", TOP_PLAYER);
+        engine.tick();
+
+        assertThat(sessions.offersTo(NEXT_PLAYER)).isEmpty();
+    }
+
+    @Test
+    void lostOfferWriteDropsOnlyThePendingEntry() {
+        // 写 offeredTo 之前订单已被其他陪玩接走，接单通知先于条件写入到达
+        long grabber = 200L;
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Order.class))).thenAnswer(invocation -> {
+            engine.onAccepted("o1", grabber);
+            return UpdateResult.acknowledged(0, 0L, null);
+        }).thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        engine.submit(order("o1"));
+        engine.tick();
+        assertThat(sessions.offersTo(TOP_PLAYER)).isEmpty();
+
+        // 接单陪玩仍在服务中，未送达的邀约也已释放
+        onlinePlayers = new ArrayList<>(List.of(grabber, TOP_PLAYER));
+        engine.submit(order("o2"));
+        engine.tick();
+
+        assertThat(sessions.offersTo(grabber)).isEmpty();
+        assertThat(sessions.offersTo(TOP_PLAYER)).containsExactly("o2");
+    }
+
+    @Test
+    void closingAnUnacceptedOrderKeepsOtherActiveOrders() {
+        engine.onAccepted("active", TOP_PLAYER);
+        engine.submit(order("o1"));
+        engine.onClosed("o1");
+        engine.submit(order("o2"));
+        engine.tick();
+
+        assertThat(sessions.offersTo(TOP_PLAYER)).isEmpty();
+        assertThat(sessions.offersTo(NEXT_PLAYER)).containsExactly("o2");
+    }
+
+    private static Order order(String id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setUserId(String.valueOf(CUSTOMER));
+        order.setGameId("lol");
+        order.setServiceType("rank");
+        order.setDuration(60);
+        order.setStatus(OrderStatus.PENDING.code());
+        order.setCreateTime(LocalDateTime.now());
+        return order;
+    }
+
+    private static PlayerDoc player(long userId) {
+        return new PlayerDoc(userId, userId, "player" + userId, null, Set.of("lol"), null,
+                null, null, null, 0, null, null, WeeklyAvailability.ALWAYS);
+    }
+
+    /**
+     * 记录推送内容的会话注册表，offline 中的用户推送失败
+     */
+    private static final class FakeSessionRegistry extends UserSessionRegistry {
+        final Set<Long> offline = new HashSet<>();
+        final List<Sent> sent = new ArrayList<>();
+        private final ObjectMapper mapper = new ObjectMapper();
+
+        @Override
+        public boolean sendToUser(long userId, String payload) {
+            if (offline.contains(userId)) {
+                return false;
+            }
+            try {
+                sent.add(new Sent(userId, mapper.readTree(payload).path("type").asText(),
+                        mapper.readTree(payload).path("orderId").asText()));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            return true;
+        }
+
+        List<String> offersTo(long userId) {
+            return sent.stream()
+                    .filter(s -> s.userId() == userId && s.type().equals("order_offer"))
+                    .map(Sent::orderId)
+                    .toList();
+        }
+
+        List<String> typesSentTo(long userId) {
+            return sent.stream().filter(s -> s.userId() == userId).map(Sent::type).toList();
+        }
+    }
+
+    private record Sent(long userId, String type, String orderId) {
+    }
+}
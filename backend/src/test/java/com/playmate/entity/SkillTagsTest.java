@@ -0,0 +1,29 @@
+package com.playmate.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SkillTagsTest {
+
+    @Test
+    void parsesJsonArrayAndGame() {
+        assertThat(SkillTags.parse("[\" LOL \",\"王者荣耀\"]", "Dota2"))
+                .containsExactly("lol", "王者荣耀", "dota2");
+    }
+
+    @Test
+    void fallsBackToCommaSeparated() {
+        assertThat(SkillTags.parse("lol, 王者荣耀，pubg", null))
+                .containsExactly("lol", "王者荣耀", "pubg");
+    }
+
+    @Test
+    void skipsTagsLongerThanIndexColumn() {
+        String longTag = "x".repeat(SkillTags.MAX_TAG_LENGTH + 1);
+        String maxTag = "y".repeat(SkillTags.MAX_TAG_LENGTH);
+
+        assertThat(SkillTags.parse("lol," + longTag + "," + maxTag, longTag))
+                .containsExactly("lol", maxTag);
+    }
+}
@@ -0,0 +1,73 @@
+package com.playmate.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class TagSketchTest {
+
+    @Test
+    void countsTagsWhileUnderCapacity() {
+        List<TagSketch.TagCounter> counters = TagSketch.offer(null, List.of("耐心", "技术好"), 3);
+        counters = TagSketch.offer(counters, List.of("耐心"), 3);
+
+        assertThat(counters).extracting("tag", "count", "error")
+                .containsExactly(tuple("耐心", 2L, 0L), tuple("技术好", 1L, 0L));
+    }
+
+    @Test
+    void dedupesTagsWithinOneRating() {
+        List<TagSketch.TagCounter> counters = TagSketch.offer(null, List.of("耐心", " 耐心 ", "耐心", "", " "), 3);
+
+        assertThat(counters).extracting("tag", "count").containsExactly(tuple("耐心", 1L));
+    }
+
+    @Test
+    void evictsSmallestCounterAndInheritsItsCount() {
+        List<TagSketch.TagCounter> counters = TagSketch.offer(null, List.of("a", "b"), 2);
+        counters = TagSketch.offer(counters, List.of("a"), 2);
+
+        counters = TagSketch.offer(counters, List.of("c"), 2);
+
+        assertThat(counters).hasSize(2);
+        assertThat(counters).extracting("tag", "count", "error")
+                .containsExactly(tuple("a", 2L, 0L), tuple("c", 2L, 1L));
+    }
+
+    @Test
+    void frequentTagSurvivesChurn() {
+        List<TagSketch.TagCounter> counters = null;
+        for (int i = 0; i < 100; i++) {
+            counters = TagSketch.offer(counters, List.of("常客", "rare" + i), 3);
+        }
+
+        TagSketch.TagCounter frequent = TagSketch.top(counters, 1).get(0);
+        assertThat(frequent.getTag()).isEqualTo("常客");
+        assertThat(frequent.getCount() - frequent.getError()).isLessThanOrEqualTo(100L);
+        assertThat(frequent.getCount()).isGreaterThanOrEqualTo(100L);
+        assertThat(counters).hasSize(3);
+    }
+
+    @Test
+    void doesNotModifyInput() {
+        List<TagSketch.TagCounter> before = List.of(new TagSketch.TagCounter("a", 1, 0));
+
+        TagSketch.offer(before, List.of("a"), 2);
+
+        assertThat(before.get(0).getCount()).isEqualTo(1L);
+    }
+
+    @Test
+    void topOrdersByCountThenTag() {
+        List<TagSketch.TagCounter> counters = List.of(
+                new TagSketch.TagCounter("b", 3, 0),
+                new TagSketch.TagCounter("a", 3, 0),
+                new TagSketch.TagCounter("c", 5, 0));
+
+        assertThat(TagSketch.top(counters, 2)).extracting("tag").containsExactly("c", "a");
+        assertThat(TagSketch.top(null, 2)).isEmpty();
+    }
+}
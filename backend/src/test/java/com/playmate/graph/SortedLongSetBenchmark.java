@@ -0,0 +1,88 @@
+package com.playmate.graph;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 共同关注交集基准：SortedLongSet（归并/跳跃查找）对比 HashSet.retainAll
+ * 运行：mvn test-compile 后执行本类 main，或 java -cp ... org.openjdk.jmh.Main SortedLongSetBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortedLongSetBenchmark {
+
+    /**
+     * 小集合 x 大集合规模：10k x 10k 为相近规模（归并），1k x 1M 与 100 x 100k 为悬殊规模（跳跃查找），
+     * 5k x 100k 位于切换点附近；JMH 的参数取笛卡尔积，这里用成对的规模字符串只跑需要的组合
+     */
+    @Param({"10000x10000", "1000x1000000", "100x100000", "5000x100000"})
+    public String shape;
+
+    private SortedLongSet small;
+    private SortedLongSet large;
+    private Set<Long> smallHash;
+    private Set<Long> largeHash;
+
+    @Setup
+    public void setup() {
+        String[] sizes = shape.split("x");
+        int smallSize = Integer.parseInt(sizes[0]);
+        int largeSize = Integer.parseInt(sizes[1]);
+        Random random = new Random(7);
+        // 取值范围为大集合规模的 10 倍，两种规模下交集比例相近
+        small = randomSet(random, smallSize, largeSize * 10);
+        large = randomSet(random, largeSize, largeSize * 10);
+        smallHash = new HashSet<>(small.toList());
+        largeHash = new HashSet<>(large.toList());
+    }
+
+    @Benchmark
+    public SortedLongSet sortedIntersect() {
+        return small.intersect(large);
+    }
+
+    @Benchmark
+    public int sortedIntersectCount() {
+        return small.intersectCount(large);
+    }
+
+    @Benchmark
+    public Set<Long> hashSetRetainAll() {
+        Set<Long> result = new HashSet<>(smallHash);
+        result.retainAll(largeHash);
+        return result;
+    }
+
+    private static SortedLongSet randomSet(Random random, int size, int bound) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(bound);
+        }
+        return SortedLongSet.of(values);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SortedLongSetBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,107 @@
+package com.playmate.graph;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedLongSetTest {
+
+    private static final Random RANDOM = new Random(42);
+
+    @Test
+    void ofSortsAndDeduplicates() {
+        SortedLongSet set = SortedLongSet.of(new long[]{5, 1, 3, 5, 1});
+
+        assertThat(set.toList()).containsExactly(1L, 3L, 5L);
+        assertThat(set.contains(3)).isTrue();
+        assertThat(set.contains(4)).isFalse();
+    }
+
+    @Test
+    void intersectWithEmptyIsEmpty() {
+        SortedLongSet set = SortedLongSet.of(List.of(1L, 2L, 3L));
+
+        assertThat(set.intersect(SortedLongSet.empty()).isEmpty()).isTrue();
+        assertThat(SortedLongSet.empty().intersectCount(set)).isZero();
+    }
+
+    @Test
+    void mergeIntersectOnSimilarSizes() {
+        // 规模相近走线性归并
+        for (int round = 0; round < 50; round++) {
+            assertIntersectMatchesReference(randomSet(1_000, 5_000), randomSet(1_500, 5_000));
+        }
+    }
+
+    @Test
+    void gallopIntersectOnSkewedSizes() {
+        // 规模相差超过 32 倍走跳跃查找
+        for (int round = 0; round < 50; round++) {
+            assertIntersectMatchesReference(randomSet(20, 100_000), randomSet(50_000, 100_000));
+        }
+    }
+
+    @Test
+    void gallopIntersectAtBoundaries() {
+        long[] large = new long[10_000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = i * 2L;
+        }
+        SortedLongSet big = SortedLongSet.of(large);
+        // 首尾元素、越界元素与不存在的奇数
+        SortedLongSet small = SortedLongSet.of(new long[]{-1, 0, 1, 9_999, 10_000, 19_998, 19_999, 40_000});
+
+        assertThat(small.intersect(big).toList()).containsExactly(0L, 10_000L, 19_998L);
+        assertThat(big.intersect(small).toList()).containsExactly(0L, 10_000L, 19_998L);
+        assertThat(small.intersectCount(big)).isEqualTo(3);
+    }
+
+    @Test
+    void gallopAndMergeAgreeAroundRatio() {
+        // 规模比在切换阈值附近时两种路径的结果一致
+        for (int smallSize = 1; smallSize <= 64; smallSize++) {
+            SortedLongSet small = randomSet(smallSize, 5_000);
+            SortedLongSet large = randomSet(smallSize * 32, 5_000);
+            assertIntersectMatchesReference(small, large);
+        }
+    }
+
+    @Test
+    void unionAndDifferenceMatchReference() {
+        for (int round = 0; round < 20; round++) {
+            SortedLongSet a = randomSet(500, 2_000);
+            SortedLongSet b = randomSet(800, 2_000);
+
+            Set<Long> union = new TreeSet<>(a.toList());
+            union.addAll(b.toList());
+            Set<Long> difference = new TreeSet<>(a.toList());
+            difference.removeAll(b.toList());
+
+            assertThat(a.union(b).toList()).containsExactlyElementsOf(union);
+            assertThat(a.difference(b).toList()).containsExactlyElementsOf(difference);
+        }
+    }
+
+    private static void assertIntersectMatchesReference(SortedLongSet a, SortedLongSet b) {
+        Set<Long> expected = new TreeSet<>(a.toList());
+        expected.retainAll(new HashSet<>(b.toList()));
+
+        assertThat(a.intersect(b).toList()).containsExactlyElementsOf(expected);
+        assertThat(b.intersect(a).toList()).containsExactlyElementsOf(expected);
+        assertThat(a.intersectCount(b)).isEqualTo(expected.size());
+    }
+
+    private static SortedLongSet randomSet(int size, int bound) {
+        long[] values = new long[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = RANDOM.nextInt(bound);
+        }
+        return SortedLongSet.of(values);
+    }
+}
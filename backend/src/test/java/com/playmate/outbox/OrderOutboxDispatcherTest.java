@@ -0,0 +1,138 @@
+package com.playmate.outbox;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderOutboxDispatcherTest {
+
+    private MongoTemplate mongoTemplate;
+    private OrderEventHandler handler;
+    private OrderOutboxDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        handler = mock(OrderEventHandler.class);
+        when(handler.name()).thenReturn("test");
+        when(handler.accepts(any())).thenReturn(true);
+        dispatcher = new OrderOutboxDispatcher(mongoTemplate, List.of(handler), 10, 1);
+        ReflectionTestUtils.setField(dispatcher, "baseBackoffMs", 1000L);
+        ReflectionTestUtils.setField(dispatcher, "maxBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(dispatcher, "alertAttempts", 10);
+    }
+
+    @Test
+    void pollsByOrderLevelNextAttempt() {
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of());
+
+        dispatcher.poll();
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Order.class));
+        assertThat(query.getValue().getQueryObject()).containsKey("outboxNextAttempt");
+        assertThat(query.getValue().getSortObject()).containsEntry("outboxNextAttempt", 1);
+    }
+
+    @Test
+    void headInBackoffPushesOrderNextAttemptWithoutDelivering() {
+        LocalDateTime retryAt = LocalDateTime.now().plusMinutes(5);
+        OrderEvent head = OrderEvent.of(OrderStatus.ACCEPTED);
+        head.setNextAttemptTime(retryAt);
+        Order order = order(head, OrderEvent.of(OrderStatus.IN_PROGRESS));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+
+        dispatcher.poll();
+
+        verify(handler, never()).handle(any(), any());
+        assertThat(updates()).anySatisfy(update ->
+                assertThat(update.get("$set", Document.class)).containsEntry("outboxNextAttempt", retryAt));
+    }
+
+    @Test
+    void failedHeadMovesOrderNextAttemptToItsRetryTime() {
+        Order order = order(OrderEvent.of(OrderStatus.ACCEPTED));
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+        doThrow(new RuntimeException("down")).when(handler).handle(any(), any());
+
+        dispatcher.poll();
+
+        assertThat(updates()).anySatisfy(update -> {
+            Document set = update.get("$set", Document.class);
+            assertThat(set.get("outboxNextAttempt")).isNotNull().isEqualTo(set.get("outbox.$.nextAttemptTime"));
+        });
+    }
+
+    @Test
+    void deliveredEventIsPulledAndDrainedOrderLeavesTheIndex() {
+        OrderEvent event = OrderEvent.of(OrderStatus.COMPLETED);
+        Order order = order(event);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+
+        dispatcher.poll();
+
+        verify(handler).handle(order, event);
+        assertThat(updates()).anySatisfy(update ->
+                assertThat(update.get("$pull", Document.class))
+                        .containsEntry("outbox", new Document("eventId", event.getEventId())));
+        assertThat(updates()).anySatisfy(update ->
+                assertThat(update.get("$unset", Document.class)).containsKeys("outbox", "outboxNextAttempt"));
+    }
+
+    @Test
+    void retrySkipsHandlersThatAlreadySucceeded() {
+        OrderEventHandler other = mock(OrderEventHandler.class);
+        when(other.name()).thenReturn("other");
+        when(other.accepts(any())).thenReturn(true);
+        dispatcher = new OrderOutboxDispatcher(mongoTemplate, List.of(handler, other), 10, 1);
+        OrderEvent event = OrderEvent.of(OrderStatus.COMPLETED);
+        event.setAttempts(1);
+        event.setDeliveredTo(List.of("test"));
+        Order order = order(event);
+        when(mongoTemplate.find(any(Query.class), eq(Order.class))).thenReturn(List.of(order));
+
+        dispatcher.poll();
+
+        verify(handler, never()).handle(any(), any());
+        verify(other).handle(order, event);
+        assertThat(updates()).anySatisfy(update ->
+                assertThat(update.get("$pull", Document.class))
+                        .containsEntry("outbox", new Document("eventId", event.getEventId())));
+    }
+
+    private List<Document> updates() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce()).updateFirst(any(Query.class), captor.capture(), eq(Order.class));
+        return captor.getAllValues().stream().map(Update::getUpdateObject).toList();
+    }
+
+    private static Order order(OrderEvent... events) {
+        Order order = new Order();
+        order.setId("65f1c0de4a7b2c0012345678");
+        order.setOutbox(new ArrayList<>(List.of(events)));
+        order.setOutboxNextAttempt(events[0].getNextAttemptTime());
+        return order;
+    }
+}
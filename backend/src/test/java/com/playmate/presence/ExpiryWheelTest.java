@@ -0,0 +1,52 @@
+package com.playmate.presence;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiryWheelTest {
+
+    @Test
+    void sizeRoundsUpToPowerOfTwo() {
+        assertThat(new ExpiryWheel(62).size()).isEqualTo(64);
+        assertThat(new ExpiryWheel(64).size()).isEqualTo(64);
+        assertThat(new ExpiryWheel(65).size()).isEqualTo(128);
+        assertThat(new ExpiryWheel(0).size()).isEqualTo(2);
+    }
+
+    @Test
+    void drainReturnsScheduledIdsOnceAndClearsTheSlot() {
+        ExpiryWheel wheel = new ExpiryWheel(8);
+        wheel.schedule(3, 1L);
+        wheel.schedule(3, 2L);
+        wheel.schedule(4, 3L);
+
+        assertThat(wheel.drain(3)).containsExactly(1L, 2L);
+        assertThat(wheel.drain(3)).isEmpty();
+        assertThat(wheel.drain(4)).containsExactly(3L);
+    }
+
+    @Test
+    void ticksWrapAroundTheWheel() {
+        ExpiryWheel wheel = new ExpiryWheel(8);
+        wheel.schedule(5, 1L);
+        wheel.schedule(5 + wheel.size(), 2L);
+
+        assertThat(wheel.drain(5 + 3L * wheel.size())).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void bucketGrowsPastInitialCapacity() {
+        ExpiryWheel wheel = new ExpiryWheel(4);
+        for (long id = 0; id < 2000; id++) {
+            wheel.schedule(1, id);
+        }
+
+        long[] drained = wheel.drain(1);
+        assertThat(drained).hasSize(2000);
+        assertThat(drained[1999]).isEqualTo(1999L);
+
+        wheel.schedule(1, 7L);
+        assertThat(wheel.drain(1)).containsExactly(7L);
+    }
+}
@@ -0,0 +1,131 @@
+package com.playmate.presence;
+
+import com.playmate.search.PlayerDoc;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.search.WeeklyAvailability;
+import com.playmate.websocket.UserSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresenceServiceTest {
+
+    private static final long TIMEOUT_MS = 60_000;
+    private static final long TICK_MS = 1_000;
+    private static final long USER_ID = 42L;
+
+    private PlayerSearchEngine playerSearchEngine;
+    private UserSessionRegistry userSessionRegistry;
+    private PresenceService presenceService;
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        playerSearchEngine = mock(PlayerSearchEngine.class);
+        userSessionRegistry = mock(UserSessionRegistry.class);
+        presenceService = new PresenceService(playerSearchEngine, userSessionRegistry, TIMEOUT_MS, TICK_MS);
+        base = System.currentTimeMillis();
+    }
+
+    @Test
+    void expiresAfterTimeoutWithoutHeartbeat() {
+        presenceService.touch(USER_ID, base);
+        presenceService.advance(base + TIMEOUT_MS / 2);
+        assertThat(presenceService.isOnline(USER_ID)).isTrue();
+
+        presenceService.advance(base + TIMEOUT_MS + 2 * TICK_MS);
+
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+        assertThat(presenceService.onlineCount()).isZero();
+        verify(playerSearchEngine).setOnline(USER_ID, false);
+    }
+
+    @Test
+    void heartbeatPushesExpiryBack() {
+        presenceService.touch(USER_ID, base);
+        presenceService.advance(base + 40_000);
+        presenceService.touch(USER_ID, base + 40_000);
+
+        presenceService.advance(base + TIMEOUT_MS + 2 * TICK_MS);
+        assertThat(presenceService.isOnline(USER_ID)).isTrue();
+
+        presenceService.advance(base + 40_000 + TIMEOUT_MS + 2 * TICK_MS);
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+    }
+
+    @Test
+    void catchesUpAfterFallingBehindMoreThanOneTurn() {
+        presenceService.touch(USER_ID, base);
+
+        presenceService.advance(base + 10 * TIMEOUT_MS);
+
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+    }
+
+    @Test
+    void staysOnlineUntilLastSessionCloses() {
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(2);
+        presenceService.touch(USER_ID, base);
+        presenceService.touch(USER_ID, base);
+
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(1);
+        presenceService.disconnect(USER_ID);
+        assertThat(presenceService.isOnline(USER_ID)).isTrue();
+
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(0);
+        presenceService.disconnect(USER_ID);
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+        assertThat(presenceService.onlineCount()).isZero();
+    }
+
+    @Test
+    void expiryWithOpenSessionsDoesNotDropOnlineStateEarly() {
+        // 两个连接都开着，但心跳中断超过超时时间
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(2);
+        presenceService.touch(USER_ID, base);
+        presenceService.touch(USER_ID, base);
+        presenceService.advance(base + TIMEOUT_MS + 2 * TICK_MS);
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+
+        // 心跳恢复后重新上线，之后关掉其中一个连接仍应在线
+        presenceService.touch(USER_ID, base + TIMEOUT_MS + 3 * TICK_MS);
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(1);
+        presenceService.disconnect(USER_ID);
+        assertThat(presenceService.isOnline(USER_ID)).isTrue();
+
+        when(userSessionRegistry.sessionCount(USER_ID)).thenReturn(0);
+        presenceService.disconnect(USER_ID);
+        assertThat(presenceService.isOnline(USER_ID)).isFalse();
+        assertThat(presenceService.onlineCount()).isZero();
+    }
+
+    @Test
+    void gameCountsFollowOnlineState() {
+        when(playerSearchEngine.getByUserId(USER_ID)).thenReturn(player(USER_ID, Set.of("lol", "dota2")));
+        presenceService.touch(USER_ID, base);
+        presenceService.touch(7L, base);
+
+        assertThat(presenceService.onlineCount()).isEqualTo(2);
+        assertThat(presenceService.onlineCount("lol")).isEqualTo(1);
+        assertThat(presenceService.onlineCountsByGame()).containsOnlyKeys("lol", "dota2");
+        assertThat(presenceService.onlineAmong(List.of(USER_ID, 7L, 8L))).containsExactlyInAnyOrder(USER_ID, 7L);
+
+        presenceService.advance(base + TIMEOUT_MS + 2 * TICK_MS);
+
+        assertThat(presenceService.onlineCount()).isZero();
+        assertThat(presenceService.onlineCount("lol")).isZero();
+        assertThat(presenceService.onlineCountsByGame()).isEmpty();
+    }
+
+    private static PlayerDoc player(long userId, Set<String> games) {
+        return new PlayerDoc(userId, userId, "player" + userId, null, games, null,
+                null, null, null, 0, null, null, WeeklyAvailability.ALWAYS);
+    }
+}
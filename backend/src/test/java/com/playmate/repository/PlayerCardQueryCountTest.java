@@ -0,0 +1,118 @@
+package com.playmate.repository;
+
+import com.playmate.dto.PlayerCard;
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+import com.playmate.search.PlayerLeaderboard;
+import com.playmate.search.PlayerSearchEngine;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 陪玩列表查询：卡片投影与带实体图的列表各自只发固定条数语句，不随结果行数增长
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class PlayerCardQueryCountTest {
+
+    private static final int PLAYER_COUNT = 25;
+
+    // Player 实体监听器写入内存索引，这里不关心
+    @MockBean
+    private PlayerSearchEngine playerSearchEngine;
+
+    @MockBean
+    private PlayerLeaderboard playerLeaderboard;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PLAYER_COUNT; i++) {
+            User user = new User();
+            user.setUsername("player" + i);
+            user.setPhone("phone-" + i);
+            user.setNickname("player" + i);
+            user.setPassword("secret");
+            entityManager.persist(user);
+
+            Player player = new Player();
+            player.setUser(user);
+            player.setGame(i % 2 == 0 ? "王者荣耀" : "英雄联盟");
+            player.setServicePrice(BigDecimal.valueOf(10 + i));
+            player.setRating(BigDecimal.valueOf(4.5));
+            player.setTotalOrders(i);
+            entityManager.persist(player);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void topCardsUseOneStatement() {
+        List<PlayerCard> cards = playerRepository.findTopCards(PageRequest.of(0, 20));
+
+        assertThat(cards).hasSize(20);
+        assertThat(cards).allSatisfy(card -> assertThat(card.getNickname()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void cardPageUsesContentAndCountStatements() {
+        Page<PlayerCard> page = playerRepository.findCards(BigDecimal.valueOf(12), null, null,
+                PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "totalOrders")));
+
+        assertThat(page.getContent()).hasSize(10);
+        assertThat(page.getTotalElements()).isEqualTo(PLAYER_COUNT - 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void gameCardPageUsesContentAndCountStatements() {
+        Page<PlayerCard> page = playerRepository.findCardsByGame("王者荣耀", null, null, null,
+                PageRequest.of(0, 5));
+
+        assertThat(page.getContent()).hasSize(5);
+        assertThat(page.getTotalElements()).isEqualTo((PLAYER_COUNT + 1) / 2);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void entityListFetchesUsersInTheSameStatement() {
+        List<Player> players = playerRepository.findTopPlayers();
+
+        assertThat(players).hasSize(PLAYER_COUNT);
+        assertThat(players).allSatisfy(player -> assertThat(player.getUser().getNickname()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,101 @@
+package com.playmate.repository;
+
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+import com.playmate.graph.BlockListStore;
+import com.playmate.search.PlayerLeaderboard;
+import com.playmate.search.PlayerSearchEngine;
+import com.playmate.search.PlayerSearchIndexListener;
+import com.playmate.service.PlayerService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 完成单计数：同一订单的完成事件重投只累加一次，不同订单各自累加
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:processed_events;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ProcessedOrderEventTest {
+
+    private static final String HANDLER = "player-total-orders";
+
+    // Player 实体监听器写入内存索引，这里不关心
+    @MockBean
+    private PlayerSearchEngine playerSearchEngine;
+
+    @MockBean
+    private PlayerLeaderboard playerLeaderboard;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private PlayerRepository playerRepository;
+
+    @Autowired
+    private ProcessedOrderEventRepository processedOrderEventRepository;
+
+    private PlayerService playerService;
+    private Long playerUserId;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("player");
+        user.setPhone("phone-1");
+        user.setNickname("player");
+        user.setPassword("secret");
+        entityManager.persist(user);
+
+        Player player = new Player();
+        player.setUser(user);
+        player.setGame("王者荣耀");
+        player.setServicePrice(BigDecimal.TEN);
+        player.setTotalOrders(0);
+        entityManager.persist(player);
+        entityManager.flush();
+        entityManager.clear();
+        playerUserId = user.getId();
+
+        playerService = new PlayerService(playerSearchEngine, mock(BlockListStore.class), playerRepository,
+                processedOrderEventRepository, mock(PlayerSearchIndexListener.class));
+    }
+
+    @Test
+    void redeliveredCompletionCountsOnce() {
+        playerService.recordCompletedOrder(HANDLER, "order-1", playerUserId);
+        playerService.recordCompletedOrder(HANDLER, "order-1", playerUserId);
+        playerService.recordCompletedOrder(HANDLER, "order-2", playerUserId);
+
+        assertThat(totalOrders()).isEqualTo(2);
+        assertThat(processedOrderEventRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void sameOrderIsTrackedPerHandler() {
+        assertThat(processedOrderEventRepository.insertIfAbsent(HANDLER, "order-1")).isEqualTo(1);
+        assertThat(processedOrderEventRepository.insertIfAbsent("other-handler", "order-1")).isEqualTo(1);
+        assertThat(processedOrderEventRepository.insertIfAbsent(HANDLER, "order-1")).isZero();
+    }
+
+    private int totalOrders() {
+        return playerRepository.findWithUserByUserId(playerUserId).orElseThrow().getTotalOrders();
+    }
+}
@@ -0,0 +1,116 @@
+package com.playmate.search;
+
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderStatus;
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+import com.playmate.repository.OrderRepository;
+import com.playmate.repository.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlayerLeaderboardTest {
+
+    private PlayerRepository repository;
+    private OrderRepository orderRepository;
+    private PlayerLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(PlayerRepository.class);
+        orderRepository = mock(OrderRepository.class);
+        leaderboard = new PlayerLeaderboard(repository, orderRepository);
+        ReflectionTestUtils.setField(leaderboard, "loadBatchSize", 100);
+        ReflectionTestUtils.setField(leaderboard, "priceTiers", List.of(new BigDecimal("30")));
+    }
+
+    @Test
+    void writesDuringReloadWinOverRowsReadBeforeThem() {
+        // 加载读到旧数据之后、入榜之前，陪玩 1 的接单数更新、陪玩 2 被删除
+        when(repository.findPageAfterId(eq(0L), any())).thenAnswer(invocation -> {
+            leaderboard.onPlayerSaved(player(1, 9));
+            leaderboard.onPlayerRemoved(2);
+            return List.of(player(1, 3), player(2, 5));
+        });
+
+        leaderboard.reload();
+
+        List<PlayerDoc> top = leaderboard.top(PlayerLeaderboard.OVERALL, 10, null);
+        assertThat(top).extracting(PlayerDoc::playerId).containsExactly(1L);
+        assertThat(top.get(0).totalOrders()).isEqualTo(9);
+    }
+
+    @Test
+    void writesAfterReloadAreNotReplayedByLaterReloads() {
+        when(repository.findPageAfterId(eq(0L), any())).thenReturn(List.of(player(1, 3)));
+        leaderboard.reload();
+        leaderboard.onPlayerSaved(player(1, 4));
+
+        when(repository.findPageAfterId(eq(0L), any())).thenReturn(List.of(player(1, 7)));
+        leaderboard.reload();
+
+        assertThat(leaderboard.top(PlayerLeaderboard.OVERALL, 10, null))
+                .extracting(PlayerDoc::totalOrders).containsExactly(7);
+    }
+
+    @Test
+    void redeliveredCompletionIsCountedOnce() {
+        leaderboard.onOrderCompleted("order-1", 101);
+        leaderboard.onOrderCompleted("order-1", 101);
+        leaderboard.onOrderCompleted("order-2", 101);
+
+        assertThat(leaderboard.weeklyCompleted(101)).isEqualTo(2);
+    }
+
+    @Test
+    void restartRebuildsWeeklyCountsFromCompletedOrders() {
+        // 重启前 order-1、order-2 已完成，其中 order-2 的事件已出队但计数随进程丢失
+        when(orderRepository.streamPlayerIdsByStatusAndEndTimeAfter(
+                OrderStatus.COMPLETED.code(), LocalDate.now().with(DayOfWeek.MONDAY).atStartOfDay()))
+                .thenReturn(Stream.of(completed("order-1", "101"), completed("order-2", "101"),
+                        completed("order-3", "102"), completed("order-4", "not-a-user")));
+        when(repository.findPageAfterId(eq(0L), any())).thenReturn(List.of());
+
+        leaderboard.load();
+        // order-1 的事件仍在发件箱中，重投时跳过
+        leaderboard.onOrderCompleted("order-1", 101);
+        leaderboard.onOrderCompleted("order-5", 101);
+
+        assertThat(leaderboard.weeklyCompleted(101)).isEqualTo(3);
+        assertThat(leaderboard.weeklyTop(10, null)).containsExactly(
+                new PlayerLeaderboard.WeeklyEntry(101, 3), new PlayerLeaderboard.WeeklyEntry(102, 1));
+    }
+
+    private static Order completed(String orderId, String playerId) {
+        Order order = new Order();
+        order.setId(orderId);
+        order.setPlayerId(playerId);
+        return order;
+    }
+
+    private static Player player(long id, int totalOrders) {
+        User user = new User();
+        user.setId(100 + id);
+        user.setNickname("player" + id);
+        Player player = new Player();
+        player.setId(id);
+        player.setUser(user);
+        player.setServicePrice(new BigDecimal("50"));
+        player.setRating(new BigDecimal("4.50"));
+        player.setTotalOrders(totalOrders);
+        return player;
+    }
+}
@@ -0,0 +1,74 @@
+package com.playmate.search;
+
+import com.playmate.dto.PlayerSearchResponse;
+import com.playmate.entity.Player;
+import com.playmate.entity.User;
+import com.playmate.repository.PlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PlayerSearchEngineTest {
+
+    private PlayerSearchEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        // 行号按加载顺序分配：第一个陪玩（行号 0）恰好位于价格下限
+        List<Player> players = List.of(
+                player(1, "50"),
+                player(2, "10"),
+                player(3, "30"),
+                player(4, "80"),
+                player(5, "50"),
+                player(6, "120"));
+        PlayerRepository repository = mock(PlayerRepository.class);
+        when(repository.findPageAfterId(eq(0L), any())).thenReturn(players);
+
+        engine = new PlayerSearchEngine(repository);
+        ReflectionTestUtils.setField(engine, "loadBatchSize", 100);
+        engine.rebuild();
+    }
+
+    @Test
+    void minPriceExcludesCheaperPlayersWhenFirstOrdinalIsAtMin() {
+        assertThat(searchPrices(new BigDecimal("50"), null)).containsExactlyInAnyOrder("50", "50", "80", "120");
+    }
+
+    @Test
+    void priceRangeIsInclusiveOnBothEnds() {
+        assertThat(searchPrices(new BigDecimal("30"), new BigDecimal("80"))).containsExactlyInAnyOrder("30", "50", "50", "80");
+        assertThat(searchPrices(null, new BigDecimal("10"))).containsExactly("10");
+        assertThat(searchPrices(new BigDecimal("121"), null)).isEmpty();
+        assertThat(searchPrices(new BigDecimal("90"), new BigDecimal("40"))).isEmpty();
+    }
+
+    private List<String> searchPrices(BigDecimal minPrice, BigDecimal maxPrice) {
+        PlayerSearchResponse response = engine.search(new PlayerSearchQuery(
+                null, minPrice, maxPrice, null, null, null, false, null, null, PlayerSort.PRICE_ASC, null, 100));
+        return response.getItems().stream()
+                .map(item -> item.getPrice().stripTrailingZeros().toPlainString())
+                .toList();
+    }
+
+    private static Player player(long id, String price) {
+        User user = new User();
+        user.setId(100 + id);
+        user.setNickname("player" + id);
+        Player player = new Player();
+        player.setId(id);
+        player.setUser(user);
+        player.setServicePrice(new BigDecimal(price));
+        player.setTotalOrders(0);
+        return player;
+    }
+}
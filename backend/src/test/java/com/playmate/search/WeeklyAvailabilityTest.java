@@ -0,0 +1,114 @@
+package com.playmate.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WeeklyAvailabilityTest {
+
+    // 2026-10-19 是周一
+    private static LocalDateTime at(int dayOfWeek, int hour, int minute) {
+        return LocalDateTime.of(2026, 10, 18 + dayOfWeek, hour, minute);
+    }
+
+    private static boolean availableAt(WeeklyAvailability availability, int dayOfWeek, int hour, int minute) {
+        return availability.isAvailable(WeeklyAvailability.slotOf(at(dayOfWeek, hour, minute)));
+    }
+
+    @Test
+    void dayRangeMarksOnlyListedDays() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("[\"周一至周五 19:00-23:00\"]");
+
+        assertThat(availableAt(availability, 1, 19, 0)).isTrue();
+        assertThat(availableAt(availability, 5, 22, 30)).isTrue();
+        assertThat(availableAt(availability, 5, 23, 0)).isFalse();
+        assertThat(availableAt(availability, 3, 18, 30)).isFalse();
+        assertThat(availableAt(availability, 6, 19, 0)).isFalse();
+    }
+
+    @Test
+    void weekendAndSingleDays() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("[\"周末 10:00-12:00\", \"周三 08:00-09:00\"]");
+
+        assertThat(availableAt(availability, 6, 10, 0)).isTrue();
+        assertThat(availableAt(availability, 7, 11, 30)).isTrue();
+        assertThat(availableAt(availability, 3, 8, 30)).isTrue();
+        assertThat(availableAt(availability, 1, 10, 0)).isFalse();
+        assertThat(availableAt(availability, 3, 10, 0)).isFalse();
+    }
+
+    @Test
+    void dayRangeWrapsPastSunday() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("[\"周六至周一 10:00-12:00\"]");
+
+        assertThat(availableAt(availability, 6, 10, 0)).isTrue();
+        assertThat(availableAt(availability, 7, 10, 0)).isTrue();
+        assertThat(availableAt(availability, 1, 10, 0)).isTrue();
+        assertThat(availableAt(availability, 2, 10, 0)).isFalse();
+    }
+
+    @Test
+    void crossMidnightRangeSpillsIntoNextDay() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("[\"周五 22:00-02:00\"]");
+
+        assertThat(availableAt(availability, 5, 23, 30)).isTrue();
+        assertThat(availableAt(availability, 6, 1, 30)).isTrue();
+        assertThat(availableAt(availability, 6, 2, 0)).isFalse();
+        assertThat(availableAt(availability, 5, 1, 30)).isFalse();
+        assertThat(availability.covers(at(5, 23, 0), at(6, 1, 0))).isTrue();
+        assertThat(availability.covers(at(5, 23, 0), at(6, 2, 30))).isFalse();
+    }
+
+    @Test
+    void sundayNightObjectWrapsToMonday() {
+        WeeklyAvailability availability = WeeklyAvailability.parse(
+                "[{\"day\": 7, \"start\": \"23:00\", \"end\": \"01:00\"}]");
+
+        assertThat(availableAt(availability, 7, 23, 30)).isTrue();
+        assertThat(availableAt(availability, 1, 0, 30)).isTrue();
+        assertThat(availableAt(availability, 1, 1, 0)).isFalse();
+        assertThat(availableAt(availability, 7, 22, 30)).isFalse();
+    }
+
+    @Test
+    void partialSlotsAreNotAvailable() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("[\"周二 19:15-20:45\"]");
+
+        assertThat(availableAt(availability, 2, 19, 0)).isFalse();
+        assertThat(availableAt(availability, 2, 19, 30)).isTrue();
+        assertThat(availableAt(availability, 2, 20, 0)).isTrue();
+        assertThat(availableAt(availability, 2, 20, 30)).isFalse();
+    }
+
+    @Test
+    void malformedEntriesAreSkipped() {
+        WeeklyAvailability availability = WeeklyAvailability.parse(
+                "[\"随时联系\", {\"day\": 9, \"start\": \"10:00\", \"end\": \"11:00\"}, \"周一 25:00-26:00\", \"周一 10:00-11:00\"]");
+
+        assertThat(availableAt(availability, 1, 10, 0)).isTrue();
+        assertThat(availableAt(availability, 1, 11, 0)).isFalse();
+        assertThat(availableAt(availability, 2, 10, 0)).isFalse();
+    }
+
+    @Test
+    void missingOrUnrecognizedScheduleIsAlwaysAvailable() {
+        for (String input : new String[]{null, "", "  ", "[]", "{\"day\": 1}", "随时联系", "[\"周一 25:00-26:00\"]"}) {
+            WeeklyAvailability availability = WeeklyAvailability.parse(input);
+
+            assertThat(availability).as(String.valueOf(input)).isSameAs(WeeklyAvailability.ALWAYS);
+            assertThat(availability.covers(at(3, 3, 0), at(3, 5, 0))).isTrue();
+        }
+    }
+
+    @Test
+    void plainTextWithoutDaysMeansEveryDay() {
+        WeeklyAvailability availability = WeeklyAvailability.parse("20:00-22:00");
+
+        for (int day = 1; day <= 7; day++) {
+            assertThat(availableAt(availability, day, 21, 0)).isTrue();
+            assertThat(availableAt(availability, day, 22, 0)).isFalse();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.playmate.service;
+
+import com.playmate.dto.FollowResponse;
+import com.playmate.entity.Follow;
+import com.playmate.entity.FollowStatus;
+import com.playmate.entity.User;
+import com.playmate.graph.BlockListStore;
+import com.playmate.graph.FollowGraphStore;
+import com.playmate.graph.FollowRecommendationEngine;
+import com.playmate.repository.FollowRepository;
+import com.playmate.repository.UserRepository;
+import com.playmate.search.PersonalizedPlayerRanker;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 关注列表分页：整页用户信息由一次 findAllById 批量加载，语句数不随页大小增长
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+class FollowServicePageQueryTest {
+
+    private static final int FOLLOWER_COUNT = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private FollowService followService;
+    private Statistics statistics;
+    private Long celebrityId;
+
+    @BeforeEach
+    void setUp() {
+        followService = new FollowService(followRepository, userRepository,
+                mock(FollowGraphStore.class), mock(UserStatsService.class),
+                mock(FollowRecommendationEngine.class), mock(BlockListStore.class),
+                mock(PersonalizedPlayerRanker.class));
+
+        celebrityId = persistUser("celebrity").getId();
+        for (int i = 0; i < FOLLOWER_COUNT; i++) {
+            Follow follow = new Follow();
+            follow.setFollowerId(persistUser("fan" + i).getId());
+            follow.setFollowingId(celebrityId);
+            follow.setStatus(FollowStatus.FOLLOWING);
+            entityManager.persist(follow);
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void followerPageLoadsUsersInOneQuery() {
+        Page<FollowResponse> page = followService.getFollowers(celebrityId, PageRequest.of(0, 20));
+
+        assertThat(page.getContent()).hasSize(20);
+        assertThat(page.getContent()).allSatisfy(response -> {
+            assertThat(response.getFollower()).isNotNull();
+            assertThat(response.getFollowing()).isNotNull();
+        });
+        // 分页查询 + 总数查询 + 一次批量加载用户
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void statementCountDoesNotGrowWithPageSize() {
+        followService.getFollowers(celebrityId, PageRequest.of(0, 5));
+        long small = statistics.getPrepareStatementCount();
+        statistics.clear();
+        entityManager.clear();
+
+        followService.getFollowers(celebrityId, PageRequest.of(0, FOLLOWER_COUNT));
+        long full = statistics.getPrepareStatementCount();
+
+        // 一页取完时不再需要总数查询
+        assertThat(full).isLessThanOrEqualTo(small);
+    }
+
+    private User persistUser(String name) {
+        User user = new User();
+        user.setUsername(name);
+        user.setPhone("phone-" + name);
+        user.setNickname(name);
+        user.setPassword("secret");
+        return entityManager.persist(user);
+    }
+}
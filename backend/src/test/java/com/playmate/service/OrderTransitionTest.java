@@ -0,0 +1,225 @@
+package com.playmate.service;
+
+import com.playmate.dispatch.OrderDispatchEngine;
+import com.playmate.dispatch.OrderTimeoutScheduler;
+import com.playmate.entity.Order;
+import com.playmate.entity.OrderEvent;
+import com.playmate.entity.OrderStatus;
+import com.playmate.repository.OrderRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 订单状态流转：每次流转都是一次以来源状态和操作人为条件的 findAndModify，
+ * 并发请求由数据库按条件裁决，只有一个能命中
+ */
+class OrderTransitionTest {
+
+    private static final String ORDER_ID = "65f1c0de4a7b2c0012345678";
+    private static final long PLAYER_ID = 7;
+    private static final long USER_ID = 3;
+
+    private MongoTemplate mongoTemplate;
+    private OrderRepository orderRepository;
+    private OrderDispatchEngine orderDispatchEngine;
+    private OrderTimeoutScheduler orderTimeoutScheduler;
+    private OrderService orderService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        orderRepository = mock(OrderRepository.class);
+        orderDispatchEngine = mock(OrderDispatchEngine.class);
+        orderTimeoutScheduler = mock(OrderTimeoutScheduler.class);
+        orderService = new OrderService();
+        ReflectionTestUtils.setField(orderService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(orderService, "orderRepository", orderRepository);
+        ReflectionTestUtils.setField(orderService, "orderDispatchEngine", orderDispatchEngine);
+        ReflectionTestUtils.setField(orderService, "orderTimeoutScheduler", orderTimeoutScheduler);
+    }
+
+    @Test
+    void acceptOrderMatchesPendingOrderOfferedToOrAssignedToPlayer() {
+        stubFindAndModify(order(OrderStatus.ACCEPTED));
+
+        assertThat(orderService.acceptOrder(ORDER_ID, PLAYER_ID).getId()).isEqualTo(ORDER_ID);
+
+        Document query = capturedQuery();
+        assertThat(query.get("id")).isEqualTo(ORDER_ID);
+        assertThat(statusIn(query)).containsExactly("pending");
+        assertThat(query.get("$or").toString()).contains("playerId=7", "offeredTo=7");
+
+        Document update = capturedUpdate();
+        assertThat(update.get("$set", Document.class))
+                .containsEntry("status", "accepted")
+                .containsEntry("playerId", "7");
+        assertThat(update.get("$unset", Document.class)).containsKey("offeredTo");
+        assertThat(pushedEvent(update).getType()).isEqualTo("accepted");
+        verify(orderDispatchEngine).onAccepted(ORDER_ID, PLAYER_ID);
+    }
+
+    @Test
+    void startRequiresAssignedPlayerAndAcceptedStatus() {
+        stubFindAndModify(order(OrderStatus.IN_PROGRESS));
+        orderService.startOrder(ORDER_ID, PLAYER_ID);
+        Document start = capturedQuery();
+        assertThat(statusIn(start)).containsExactly("accepted");
+        assertThat(start.get("playerId")).isEqualTo("7");
+        assertThat(capturedUpdate().get("$set", Document.class)).containsEntry("status", "in_progress").containsKey("startTime");
+    }
+
+    @Test
+    void completeRequiresAssignedPlayerAndInProgressStatus() {
+        stubFindAndModify(order(OrderStatus.COMPLETED));
+        orderService.completeOrder(ORDER_ID, PLAYER_ID);
+        Document complete = capturedQuery();
+        assertThat(statusIn(complete)).containsExactly("in_progress");
+        assertThat(complete.get("playerId")).isEqualTo("7");
+        Document update = capturedUpdate();
+        assertThat(update.get("$set", Document.class)).containsEntry("status", "completed").containsKey("endTime");
+        assertThat(pushedEvent(update).getType()).isEqualTo("completed");
+    }
+
+    @Test
+    void cancelRequiresOwnerAndNotYetStarted() {
+        stubFindAndModify(order(OrderStatus.CANCELLED));
+
+        orderService.cancelOrder(ORDER_ID, USER_ID, "不想玩了");
+
+        Document query = capturedQuery();
+        assertThat(statusIn(query)).containsExactlyInAnyOrder("pending", "accepted");
+        assertThat(query.get("userId")).isEqualTo("3");
+        assertThat(capturedUpdate().get("$set", Document.class))
+                .containsEntry("status", "cancelled")
+                .containsEntry("cancelReason", "不想玩了");
+    }
+
+    @Test
+    void missedConditionReportsCurrentStatusWithoutSideEffects() {
+        when(orderRepository.findById(ORDER_ID)).thenReturn(Optional.of(order(OrderStatus.ACCEPTED)));
+
+        assertThatThrownBy(() -> orderService.acceptOrder(ORDER_ID, PLAYER_ID))
+                .hasMessageContaining("accepted");
+        verify(orderDispatchEngine, never()).onAccepted(anyString(), anyLong());
+        verify(orderTimeoutScheduler, never()).cancel(anyString());
+    }
+
+    @Test
+    void concurrentAcceptsHaveExactlyOneWinner() throws Exception {
+        // 用同步的条件更新模拟单文档 findAndModify：来源状态命中才改写
+        Order stored = order(OrderStatus.PENDING);
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Order.class)))
+                .thenAnswer(invocation -> {
+                    Query query = invocation.getArgument(0);
+                    Update update = invocation.getArgument(1);
+                    synchronized (stored) {
+                        if (!statusIn(query.getQueryObject()).contains(stored.getStatus())) {
+                            return null;
+                        }
+                        stored.setStatus(update.getUpdateObject().get("$set", Document.class).getString("status"));
+                        return order(OrderStatus.fromCode(stored.getStatus()));
+                    }
+                });
+        when(orderRepository.findById(ORDER_ID)).thenAnswer(invocation -> {
+            synchronized (stored) {
+                return Optional.of(order(OrderStatus.fromCode(stored.getStatus())));
+            }
+        });
+
+        int threads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger winners = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    orderService.acceptOrder(ORDER_ID, PLAYER_ID);
+                    winners.incrementAndGet();
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(winners.get()).isEqualTo(1);
+        assertThat(rejected.get()).isEqualTo(threads - 1);
+        assertThat(stored.getStatus()).isEqualTo("accepted");
+        verify(orderDispatchEngine, times(1)).onAccepted(ORDER_ID, PLAYER_ID);
+    }
+
+    private void stubFindAndModify(Order result) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(Order.class)))
+                .thenReturn(result);
+    }
+
+    private Document capturedQuery() {
+        ArgumentCaptor<Query> captor = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<FindAndModifyOptions> options = ArgumentCaptor.forClass(FindAndModifyOptions.class);
+        verify(mongoTemplate).findAndModify(captor.capture(), any(Update.class), options.capture(), eq(Order.class));
+        assertThat(options.getValue().isReturnNew()).isTrue();
+        assertThat(options.getValue().isUpsert()).isFalse();
+        return captor.getValue().getQueryObject();
+    }
+
+    private Document capturedUpdate() {
+        ArgumentCaptor<Update> captor = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), captor.capture(), any(FindAndModifyOptions.class), eq(Order.class));
+        return captor.getValue().getUpdateObject();
+    }
+
+    private static List<Object> statusIn(Document query) {
+        return new ArrayList<>((Collection<?>) query.get("status", Document.class).get("$in"));
+    }
+
+    private static OrderEvent pushedEvent(Document update) {
+        return (OrderEvent) update.get("$push", Document.class).get("outbox");
+    }
+
+    private static Order order(OrderStatus status) {
+        Order order = new Order();
+        order.setId(ORDER_ID);
+        order.setUserId(String.valueOf(USER_ID));
+        order.setPlayerId(String.valueOf(PLAYER_ID));
+        order.setStatus(status.code());
+        return order;
+    }
+}
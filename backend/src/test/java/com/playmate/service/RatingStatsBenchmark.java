@@ -0,0 +1,111 @@
+package com.playmate.service;
+
+import com.playmate.entity.PlayerRatingSummary;
+import com.playmate.entity.TagSketch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 陪玩评分统计基准：汇总由 ratings 条评价累加而成，统计接口只读一份汇总，耗时不随评价数增长
+ * uncached 每次都读汇总并组装结果，cached 命中进程内缓存
+ * 运行：mvn test-compile 后执行本类 main，或 java -cp ... org.openjdk.jmh.Main RatingStatsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RatingStatsBenchmark {
+
+    private static final int TAG_POOL = 200;
+    private static final int SKETCH_CAPACITY = 20;
+
+    @Param({"10", "10000", "1000000"})
+    public int ratings;
+
+    private RatingService uncached;
+    private RatingService cached;
+
+    @Setup
+    public void setup() {
+        PlayerRatingSummary summary = buildSummary(new Random(7), ratings);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.findById(anyString(), eq(PlayerRatingSummary.class))).thenReturn(summary);
+        uncached = newService(mongoTemplate, 0);
+        cached = newService(mongoTemplate, 1);
+    }
+
+    @Benchmark
+    public Map<String, Object> uncachedStats() {
+        return uncached.getPlayerRatingStats("1");
+    }
+
+    @Benchmark
+    public Map<String, Object> cachedStats() {
+        return cached.getPlayerRatingStats("1");
+    }
+
+    private static RatingService newService(MongoTemplate mongoTemplate, int cacheMaxPlayers) {
+        RatingService service = new RatingService();
+        ReflectionTestUtils.setField(service, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(service, "tagSketchCapacity", SKETCH_CAPACITY);
+        ReflectionTestUtils.setField(service, "statsCacheTtlMs", TimeUnit.HOURS.toMillis(1));
+        ReflectionTestUtils.setField(service, "statsCacheMaxPlayers", cacheMaxPlayers);
+        return service;
+    }
+
+    /**
+     * 按 addToSummary 的方式逐条累加：星级计数加一，标签交给热门计数器
+     */
+    private static PlayerRatingSummary buildSummary(Random random, int ratings) {
+        PlayerRatingSummary summary = new PlayerRatingSummary();
+        summary.setId("1");
+        List<TagSketch.TagCounter> tags = new ArrayList<>();
+        for (int i = 0; i < ratings; i++) {
+            int stars = 1 + random.nextInt(5);
+            summary.setSum(summary.getSum() + stars);
+            summary.setCount(summary.getCount() + 1);
+            summary.getHistogram().merge(String.valueOf(stars), 1L, Long::sum);
+            List<String> ratingTags = new ArrayList<>();
+            for (int t = random.nextInt(3); t > 0; t--) {
+                // 偏斜分布，少数标签占多数
+                ratingTags.add("tag" + (int) (TAG_POOL * Math.pow(random.nextDouble(), 3)));
+            }
+            if (!ratingTags.isEmpty()) {
+                tags = TagSketch.offer(tags, ratingTags, SKETCH_CAPACITY);
+            }
+        }
+        summary.setTags(tags);
+        return summary;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RatingStatsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
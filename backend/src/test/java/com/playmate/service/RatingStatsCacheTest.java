@@ -0,0 +1,74 @@
+package com.playmate.service;
+
+import com.playmate.entity.PlayerRatingSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评分统计缓存：读取期间有新评价写入时，旧汇总算出的结果不得写回缓存
+ */
+class RatingStatsCacheTest {
+
+    private static final String PLAYER_ID = "42";
+
+    private MongoTemplate mongoTemplate;
+    private RatingService ratingService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        ratingService = new RatingService();
+        ReflectionTestUtils.setField(ratingService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(ratingService, "statsCacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(ratingService, "statsCacheMaxPlayers", 100);
+    }
+
+    @Test
+    void cachesStatsUntilInvalidated() {
+        when(mongoTemplate.findById(eq(PLAYER_ID), eq(PlayerRatingSummary.class)))
+                .thenReturn(summary(1, 5), summary(2, 9));
+
+        assertThat(ratingService.getPlayerRatingStats(PLAYER_ID)).containsEntry("totalRatings", 1L);
+        assertThat(ratingService.getPlayerRatingStats(PLAYER_ID)).containsEntry("totalRatings", 1L);
+        verify(mongoTemplate, times(1)).findById(eq(PLAYER_ID), eq(PlayerRatingSummary.class));
+
+        ReflectionTestUtils.invokeMethod(ratingService, "invalidateStats", PLAYER_ID);
+        assertThat(ratingService.getPlayerRatingStats(PLAYER_ID)).containsEntry("totalRatings", 2L);
+    }
+
+    @Test
+    void doesNotCacheStatsReadBeforeConcurrentInvalidation() {
+        // 第一次读到旧汇总后、写回缓存前，另一线程写入新评价并失效缓存
+        when(mongoTemplate.findById(eq(PLAYER_ID), eq(PlayerRatingSummary.class)))
+                .thenAnswer(invocation -> {
+                    ReflectionTestUtils.invokeMethod(ratingService, "invalidateStats", PLAYER_ID);
+                    return summary(1, 5);
+                })
+                .thenReturn(summary(2, 9));
+
+        Map<String, Object> stale = ratingService.getPlayerRatingStats(PLAYER_ID);
+        Map<String, Object> fresh = ratingService.getPlayerRatingStats(PLAYER_ID);
+
+        assertThat(stale).containsEntry("totalRatings", 1L);
+        assertThat(fresh).containsEntry("totalRatings", 2L);
+    }
+
+    private static PlayerRatingSummary summary(long count, long sum) {
+        PlayerRatingSummary summary = new PlayerRatingSummary();
+        summary.setId(PLAYER_ID);
+        summary.setCount(count);
+        summary.setSum(sum);
+        return summary;
+    }
+}
@@ -0,0 +1,97 @@
+package com.playmate.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.playmate.entity.PlayerRatingSummary;
+import com.playmate.entity.Rating;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评分汇总校准：按评价集合修正丢失的累加，统计期间汇总有变化时不覆盖
+ */
+class RatingSummaryReconcileTest {
+
+    private MongoTemplate mongoTemplate;
+    private PlayerService playerService;
+    private RatingService ratingService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        playerService = mock(PlayerService.class);
+        ratingService = new RatingService();
+        ReflectionTestUtils.setField(ratingService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(ratingService, "playerService", playerService);
+        ReflectionTestUtils.setField(ratingService, "statsCacheTtlMs", 60_000L);
+        ReflectionTestUtils.setField(ratingService, "statsCacheMaxPlayers", 100);
+
+        // 42 号陪玩实际有一条 5 星和一条 3 星，7 号陪玩只有一条 4 星
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Rating.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(
+                        group("42", 5, 1), group("42", 3, 1), group("7", 4, 1)), new Document()));
+    }
+
+    @Test
+    void repairsSummaryThatLostAnIncrement() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PlayerRatingSummary.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        int fixed = ratingService.reconcileSummaries(List.of(summary("42", 1, 5, Map.of("5", 1L)),
+                summary("7", 1, 4, Map.of("4", 1L))));
+
+        assertThat(fixed).isEqualTo(1);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(query.capture(), update.capture(), eq(PlayerRatingSummary.class));
+        assertThat(query.getValue().getQueryObject())
+                .containsEntry("_id", "42").containsEntry("count", 1L).containsEntry("sum", 5L);
+        Document set = update.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set).containsEntry("sum", 8L).containsEntry("count", 2L);
+        assertThat(set.get("histogram")).isEqualTo(Map.of("5", 1L, "3", 1L));
+        verify(playerService).recordRating(42L, new BigDecimal("4.00"));
+    }
+
+    @Test
+    void skipsSummaryChangedDuringReconcile() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PlayerRatingSummary.class)))
+                .thenReturn(UpdateResult.acknowledged(0, 0L, null));
+
+        int fixed = ratingService.reconcileSummaries(List.of(summary("42", 1, 5, Map.of("5", 1L))));
+
+        assertThat(fixed).isZero();
+        verify(playerService, never()).recordRating(any(), any());
+    }
+
+    private static Document group(String playerId, int stars, long count) {
+        return new Document("_id", new Document("playerId", playerId).append("rating", stars)).append("count", count);
+    }
+
+    private static PlayerRatingSummary summary(String playerId, long count, long sum, Map<String, Long> histogram) {
+        PlayerRatingSummary summary = new PlayerRatingSummary();
+        summary.setId(playerId);
+        summary.setCount(count);
+        summary.setSum(sum);
+        summary.getHistogram().putAll(histogram);
+        return summary;
+    }
+}
@@ -0,0 +1,84 @@
+package com.playmate.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.playmate.entity.PlayerRatingSummary;
+import com.playmate.entity.Rating;
+import com.playmate.entity.TagSketch;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 评价标签计数：版本冲突时重试，连续冲突后按评价集合重建，不丢弃本条评价的标签
+ */
+class RatingTagUpdateTest {
+
+    private static final String PLAYER_ID = "42";
+
+    private MongoTemplate mongoTemplate;
+    private RatingService ratingService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        ratingService = new RatingService();
+        ReflectionTestUtils.setField(ratingService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(ratingService, "tagSketchCapacity", 20);
+        when(mongoTemplate.findById(eq(PLAYER_ID), eq(PlayerRatingSummary.class))).thenReturn(new PlayerRatingSummary());
+    }
+
+    @Test
+    void retriesIncrementallyAfterAConflict() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PlayerRatingSummary.class)))
+                .thenReturn(missed(), applied());
+
+        ReflectionTestUtils.invokeMethod(ratingService, "addTagsToSummary", PLAYER_ID, List.of("耐心"));
+
+        verify(mongoTemplate, times(2)).updateFirst(any(Query.class), any(Update.class), eq(PlayerRatingSummary.class));
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), eq(Rating.class), eq(Document.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuildsFromRatingsAfterRepeatedConflicts() {
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(PlayerRatingSummary.class)))
+                .thenReturn(missed(), missed(), missed(), missed(), missed(), applied());
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Rating.class), eq(Document.class)))
+                .thenReturn(new AggregationResults<>(List.of(new Document("_id", "耐心").append("count", 3)), new Document()));
+
+        ReflectionTestUtils.invokeMethod(ratingService, "addTagsToSummary", PLAYER_ID, List.of("耐心"));
+
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(6)).updateFirst(any(Query.class), updates.capture(), eq(PlayerRatingSummary.class));
+        List<TagSketch.TagCounter> rebuilt = (List<TagSketch.TagCounter>) updates.getValue().getUpdateObject()
+                .get("$set", Document.class).get("tags");
+        assertThat(rebuilt).extracting("tag", "count").containsExactly(tuple("耐心", 3L));
+    }
+
+    private static UpdateResult missed() {
+        return UpdateResult.acknowledged(0, 0L, null);
+    }
+
+    private static UpdateResult applied() {
+        return UpdateResult.acknowledged(1, 1L, null);
+    }
+}